@@ -0,0 +1,66 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.domain.GeoPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former request building (String.format, UriComponentsBuilder, then the string parsed again by the
+ * RestTemplate URI handler) with the precompiled request template.
+ * Run with the gc profiler to get the allocation per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceMatrixRequestTemplateBenchmark {
+
+    private static final String ENDPOINT_URL = "https://maps.googleapis.com/maps/api/distancematrix/json";
+    private static final String API_KEY = "AIzaSyD-benchmark-key_0123456789abcdef";
+    private static final List<String> ORIGIN = Arrays.asList("48.858245", "2.294642");
+    private static final List<String> DESTINATION = Arrays.asList("48.868480", "2.781909");
+    private static final GeoPoint ORIGIN_POINT = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION_POINT = GeoPoint.of(48.86848, 2.781909);
+
+    private DefaultUriBuilderFactory restTemplateUriHandler;
+    private DistanceMatrixRequestTemplate requestTemplate;
+
+    @Setup
+    public void setup() {
+        restTemplateUriHandler = new DefaultUriBuilderFactory();
+        requestTemplate = new DistanceMatrixRequestTemplate(ENDPOINT_URL, API_KEY);
+    }
+
+    @Benchmark
+    public URI uriComponentsBuilder() {
+        String url = UriComponentsBuilder.fromHttpUrl(ENDPOINT_URL)
+            .queryParam("origins", String.format("%s,%s", ORIGIN.get(0), ORIGIN.get(1)))
+            .queryParam("destinations", String.format("%s,%s", DESTINATION.get(0), DESTINATION.get(1)))
+            .queryParam("key", API_KEY)
+            .build()
+            .toString();
+        return restTemplateUriHandler.expand(url);
+    }
+
+    @Benchmark
+    public URI requestTemplate() {
+        return requestTemplate.uri(ORIGIN_POINT, DESTINATION_POINT);
+    }
+}
@@ -0,0 +1,75 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the full binding of a Distance Matrix response with the streaming parser.
+ * Run with the gc profiler to get the allocation per call (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistanceMatrixResponseParserBenchmark {
+
+    private static final byte[] RESPONSE = ("{\n" +
+        "   \"destination_addresses\" : [ \"Avenue Gustave Eiffel, 75007 Paris, France\" ],\n" +
+        "   \"origin_addresses\" : [ \"Boulevard de Parc, 77700 Coupvray, France\" ],\n" +
+        "   \"rows\" : [\n" +
+        "      {\n" +
+        "         \"elements\" : [\n" +
+        "            {\n" +
+        "               \"distance\" : {\n" +
+        "                  \"text\" : \"45.6 km\",\n" +
+        "                  \"value\" : 45612\n" +
+        "               },\n" +
+        "               \"duration\" : {\n" +
+        "                  \"text\" : \"48 mins\",\n" +
+        "                  \"value\" : 2856\n" +
+        "               },\n" +
+        "               \"status\" : \"OK\"\n" +
+        "            }\n" +
+        "         ]\n" +
+        "      }\n" +
+        "   ],\n" +
+        "   \"status\" : \"OK\"\n" +
+        "}\n").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private DistanceMatrixResponseParser parser;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        parser = new DistanceMatrixResponseParser(objectMapper.getFactory());
+    }
+
+    @Benchmark
+    public DistanceMatrixResponseEntity objectMapperBinding() throws IOException {
+        return objectMapper.readValue(new ByteArrayInputStream(RESPONSE), DistanceMatrixResponseEntity.class);
+    }
+
+    @Benchmark
+    public DistanceMatrixResponseEntity streamingParser() throws IOException {
+        return parser.parse(new ByteArrayInputStream(RESPONSE));
+    }
+}
@@ -0,0 +1,120 @@
+package fr.dla.app.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the order listing by page (LIMIT/OFFSET, plus the count the former Page query ran) with the listing after a
+ * cursor (WHERE id > ? LIMIT), at increasing depths of a table of a million orders, on an in-memory H2 database.
+ * The queries are the ones Hibernate generates for OrderEntityRepository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderPaginationBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    private static final int LIMIT = 20;
+    private static final String COLUMNS = "id, distance, status, estimated_distance, failure_reason, created_date, version";
+
+    /**
+     * Number of orders before the requested page.
+     */
+    @Param({"0", "10000", "500000", "990000"})
+    private int offset;
+
+    private Connection connection;
+    private PreparedStatement offsetQuery;
+    private PreparedStatement keysetQuery;
+    private PreparedStatement countQuery;
+    private int lastIdBeforePage;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:orderPagination;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists order_entity (id integer primary key, distance integer, "
+                + "status integer, estimated_distance boolean, failure_reason varchar(255), created_date timestamp, version bigint)");
+            statement.execute("delete from order_entity");
+            // ids with gaps, as the pooled-lo blocks of several instances leave them
+            statement.execute("insert into order_entity (" + COLUMNS + ") select x * 3, mod(x, 50000), mod(x, 2), false, null, "
+                + "current_timestamp, 0 from system_range(1, " + ORDERS + ")");
+        }
+        offsetQuery = connection.prepareStatement("select " + COLUMNS + " from order_entity where status in (0, 1) order by id limit ? offset ?");
+        keysetQuery = connection.prepareStatement("select " + COLUMNS + " from order_entity where id > ? and status in (0, 1) order by id limit ?");
+        countQuery = connection.prepareStatement("select count(id) from order_entity");
+        lastIdBeforePage = offset * 3;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop table order_entity");
+        }
+        connection.close();
+    }
+
+    /**
+     * Former listing: the page at the offset, and the count of all the orders of the Page.
+     */
+    @Benchmark
+    public void offsetPageWithCount(Blackhole blackhole) throws SQLException {
+        offsetSlice(blackhole);
+        try (ResultSet resultSet = countQuery.executeQuery()) {
+            resultSet.next();
+            blackhole.consume(resultSet.getLong(1));
+        }
+    }
+
+    /**
+     * Page listing kept for compatibility: the page at the offset, plus one row to know if there is a next page.
+     */
+    @Benchmark
+    public void offsetSlice(Blackhole blackhole) throws SQLException {
+        offsetQuery.setInt(1, LIMIT + 1);
+        offsetQuery.setInt(2, offset);
+        consume(offsetQuery, blackhole);
+    }
+
+    /**
+     * Cursor listing: seek the first order after the cursor in the primary key index.
+     */
+    @Benchmark
+    public void keysetSlice(Blackhole blackhole) throws SQLException {
+        keysetQuery.setInt(1, lastIdBeforePage);
+        keysetQuery.setInt(2, LIMIT + 1);
+        consume(keysetQuery, blackhole);
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet resultSet = query.executeQuery()) {
+            while (resultSet.next()) {
+                blackhole.consume(resultSet.getInt(1));
+                blackhole.consume(resultSet.getInt(2));
+            }
+        }
+    }
+}
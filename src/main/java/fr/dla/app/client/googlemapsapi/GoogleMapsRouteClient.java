@@ -1,9 +1,37 @@
 package fr.dla.app.client.googlemapsapi;
 
 import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.domain.GeoPoint;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface GoogleMapsRouteClient {
-    DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(List<String> origin, List<String> destination);
+
+    /**
+     * Google limits of a single Distance Matrix request.
+     */
+    int MAX_ORIGINS = 25;
+    int MAX_DESTINATIONS = 25;
+    int MAX_ELEMENTS = 100;
+
+    DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination);
+
+    /**
+     * Non-blocking variant of {@link #getDistanceDetailsBetweenTwoCoordinates(GeoPoint, GeoPoint)}, no thread waits for Google.
+     *
+     * @param origin      origin latitude and longitude
+     * @param destination destination latitude and longitude
+     * @return the future response, completed exceptionally with the same errors as the blocking call
+     */
+    CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin, GeoPoint destination);
+
+    /**
+     * Request the distances between every origin and every destination in a single call, within the limits above.
+     *
+     * @param origins      origins, one row per origin in the response
+     * @param destinations destinations, one element per destination in each row
+     * @return the distance matrix
+     */
+    DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations);
 }
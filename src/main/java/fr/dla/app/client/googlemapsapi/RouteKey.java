@@ -0,0 +1,92 @@
+package fr.dla.app.client.googlemapsapi;
+
+import fr.dla.app.domain.GeoPoint;
+
+/**
+ * Origin/destination pair rounded to a fixed number of decimal places, used to share distance lookups.
+ */
+public final class RouteKey {
+
+    private final long originLatitude;
+    private final long originLongitude;
+    private final long destinationLatitude;
+    private final long destinationLongitude;
+
+    private RouteKey(long originLatitude, long originLongitude, long destinationLatitude, long destinationLongitude) {
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.destinationLatitude = destinationLatitude;
+        this.destinationLongitude = destinationLongitude;
+    }
+
+    /**
+     * Build a key from request coordinates.
+     *
+     * @param origin      origin latitude and longitude
+     * @param destination destination latitude and longitude
+     * @param precision   number of decimal places kept, at most {@link GeoPoint#DECIMAL_PLACES}
+     * @return the key
+     */
+    public static RouteKey of(GeoPoint origin, GeoPoint destination, int precision) {
+        long divisor = divisor(precision);
+        return new RouteKey(
+            quantize(origin.getLatitudeE7(), divisor),
+            quantize(origin.getLongitudeE7(), divisor),
+            quantize(destination.getLatitudeE7(), divisor),
+            quantize(destination.getLongitudeE7(), divisor));
+    }
+
+    private static long divisor(int precision) {
+        long divisor = 1;
+        for (int i = Math.min(precision, GeoPoint.DECIMAL_PLACES); i < GeoPoint.DECIMAL_PLACES; i++) {
+            divisor *= 10;
+        }
+        return divisor;
+    }
+
+    /**
+     * Round half up, as {@link Math#round(double)} did on the decimal degrees.
+     */
+    private static long quantize(int coordinateE7, long divisor) {
+        return Math.floorDiv(coordinateE7 + divisor / 2, divisor);
+    }
+
+    /**
+     * Compact text form of the key, the same on every node and across restarts.
+     */
+    public String asText() {
+        return originLatitude + "," + originLongitude + ";" + destinationLatitude + "," + destinationLongitude;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RouteKey routeKey = (RouteKey) o;
+        return originLatitude == routeKey.originLatitude &&
+            originLongitude == routeKey.originLongitude &&
+            destinationLatitude == routeKey.destinationLatitude &&
+            destinationLongitude == routeKey.destinationLongitude;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = originLatitude;
+        hash = 31 * hash + originLongitude;
+        hash = 31 * hash + destinationLatitude;
+        hash = 31 * hash + destinationLongitude;
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return "RouteKey{" +
+            "origin=" + originLatitude + "," + originLongitude +
+            ", destination=" + destinationLatitude + "," + destinationLongitude +
+            '}';
+    }
+}
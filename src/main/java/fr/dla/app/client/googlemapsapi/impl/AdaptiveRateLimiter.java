@@ -0,0 +1,107 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.config.ApplicationProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket whose rate follows an additive increase / multiplicative decrease policy.
+ * <p>
+ * A permit is reserved even when the bucket is empty, as long as the wait stays under the maximum: the bucket goes
+ * into debt, so waiting callers are served in reservation order at the permitted rate.
+ */
+final class AdaptiveRateLimiter {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double backOffFactor;
+    private final double rampUpStep;
+    private final long rampUpIntervalNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double storedPermits;
+    private long lastRefillNanos;
+    private long lastAdjustmentNanos;
+    private long lastBackOffNanos;
+
+    AdaptiveRateLimiter(ApplicationProperties.GoogleMapsApi.RateLimit rateLimitProperties, LongSupplier nanoClock) {
+        this.minRate = rateLimitProperties.getMinRate();
+        this.maxRate = rateLimitProperties.getMaxRate();
+        this.backOffFactor = rateLimitProperties.getBackOffFactor();
+        this.rampUpStep = rateLimitProperties.getRampUpStep();
+        this.rampUpIntervalNanos = rateLimitProperties.getRampUpInterval().toNanos();
+        this.maxWaitNanos = rateLimitProperties.getMaxWait().toNanos();
+        this.nanoClock = nanoClock;
+        this.rate = Math.max(minRate, Math.min(maxRate, rateLimitProperties.getInitialRate()));
+        this.storedPermits = 1;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastAdjustmentNanos = lastRefillNanos;
+        this.lastBackOffNanos = lastRefillNanos - rampUpIntervalNanos;
+    }
+
+    /**
+     * Reserve a permit.
+     *
+     * @return how long the caller must wait before using its permit, in nanoseconds, or -1 when that wait would exceed
+     * the maximum wait, in which case nothing is reserved
+     */
+    synchronized long reserve() {
+        refill(nanoClock.getAsLong());
+
+        long waitNanos = storedPermits >= 1 ? 0 : (long) Math.ceil((1 - storedPermits) * NANOS_PER_SECOND / rate);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+
+        storedPermits--;
+        return waitNanos;
+    }
+
+    /**
+     * Google is throttling us: divide the rate. Throttling reported within a ramp up interval of the previous back off
+     * comes from requests already in flight and is ignored, so a single overload does not collapse the rate.
+     */
+    synchronized void backOff() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+
+        lastAdjustmentNanos = now;
+        if (now - lastBackOffNanos < rampUpIntervalNanos) {
+            return;
+        }
+
+        rate = Math.max(minRate, rate * backOffFactor);
+        storedPermits = Math.min(storedPermits, rate);
+        lastBackOffNanos = now;
+    }
+
+    /**
+     * Google accepted a request: add a step to the rate once per ramp up interval.
+     */
+    synchronized void onSuccess() {
+        long now = nanoClock.getAsLong();
+        refill(now);
+
+        if (rate < maxRate && now - lastAdjustmentNanos >= rampUpIntervalNanos) {
+            rate = Math.min(maxRate, rate + rampUpStep);
+            lastAdjustmentNanos = now;
+        }
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill(long now) {
+        if (now > lastRefillNanos) {
+            // One second worth of permits at most, so an idle period only allows a small burst
+            storedPermits = Math.min(Math.max(1, rate), storedPermits + (now - lastRefillNanos) / NANOS_PER_SECOND * rate);
+            lastRefillNanos = now;
+        }
+    }
+}
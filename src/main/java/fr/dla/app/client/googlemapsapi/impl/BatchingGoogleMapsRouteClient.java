@@ -0,0 +1,258 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups the lookups received during a short window into one multi-origin/multi-destination Google call.
+ * <p>
+ * Google bills every element of the origins x destinations matrix, so a batch only groups the lookups sharing an
+ * origin (a single row) or a destination (a single column): every element billed answers a lookup. Unrelated lookups
+ * go to batches of their own, sent concurrently.
+ * <p>
+ * The first caller of a batch waits for its window to close, or for the batch to be full, then sends the request for
+ * every caller of the batch. Each caller gets back a single row/single element response, so the usual status checks
+ * apply.
+ */
+@Slf4j
+public class BatchingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String BATCH_SIZE_METRIC_NAME = "google.maps.api.batch.size";
+
+    private final GoogleMapsRouteClient delegate;
+    private final long windowNanos;
+    private final int maxElements;
+    private final DistributionSummary batchSizeSummary;
+
+    private final Object lock = new Object();
+    /**
+     * Open batches by their single origin or single destination. A batch of one lookup is under both.
+     */
+    private final Map<GeoPoint, Batch> batchesByOrigin = new HashMap<>();
+    private final Map<GeoPoint, Batch> batchesByDestination = new HashMap<>();
+
+    public BatchingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                         ApplicationProperties.GoogleMapsApi.Batching batchingProperties,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.windowNanos = batchingProperties.getWindow().toNanos();
+        this.maxElements = batchingProperties.getMaxElements();
+        this.batchSizeSummary = DistributionSummary.builder(BATCH_SIZE_METRIC_NAME)
+            .description("Number of lookups sent in a single Google maps API request")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        Batch batch;
+        CompletableFuture<DistanceMatrixResponseEntity> result;
+        boolean leader = false;
+
+        synchronized (lock) {
+            batch = openBatchFor(origin, destination);
+            if (batch == null) {
+                batch = new Batch();
+                leader = true;
+            }
+            result = batch.add(origin, destination);
+            if (batch.isFull()) {
+                unindex(batch);
+                batch.close();
+            } else {
+                index(batch);
+            }
+        }
+
+        if (leader) {
+            batch.awaitClosing(windowNanos);
+            synchronized (lock) {
+                unindex(batch);
+            }
+            send(batch);
+        }
+
+        return CompletableFutures.join(result);
+    }
+
+    /**
+     * Not batched: waiting for the batch window would need a thread, which is what the asynchronous call avoids.
+     */
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        return delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return delegate.getDistanceMatrix(origins, destinations);
+    }
+
+    private Batch openBatchFor(GeoPoint origin, GeoPoint destination) {
+        Batch sameOrigin = batchesByOrigin.get(origin);
+        if (sameOrigin != null && sameOrigin.accepts(origin, destination)) {
+            return sameOrigin;
+        }
+        Batch sameDestination = batchesByDestination.get(destination);
+        if (sameDestination != null && sameDestination.accepts(origin, destination)) {
+            return sameDestination;
+        }
+        return null;
+    }
+
+    /**
+     * Keep the batch under its origin while it is a single row, under its destination while it is a single column.
+     */
+    private void index(Batch batch) {
+        GeoPoint firstOrigin = batch.origins.get(0);
+        GeoPoint firstDestination = batch.destinations.get(0);
+        if (batch.origins.size() == 1) {
+            batchesByOrigin.put(firstOrigin, batch);
+        } else {
+            batchesByOrigin.remove(firstOrigin, batch);
+        }
+        if (batch.destinations.size() == 1) {
+            batchesByDestination.put(firstDestination, batch);
+        } else {
+            batchesByDestination.remove(firstDestination, batch);
+        }
+    }
+
+    private void unindex(Batch batch) {
+        batchesByOrigin.remove(batch.origins.get(0), batch);
+        batchesByDestination.remove(batch.destinations.get(0), batch);
+    }
+
+    private void send(Batch batch) {
+        batchSizeSummary.record(batch.lookups.size());
+        log.debug("Google maps API : sending a batch of {} lookups, {} origins x {} destinations",
+            batch.lookups.size(), batch.origins.size(), batch.destinations.size());
+
+        DistanceMatrixResponseEntity response;
+        try {
+            response = delegate.getDistanceMatrix(batch.origins, batch.destinations);
+        } catch (RuntimeException | Error ex) {
+            batch.lookups.forEach(lookup -> lookup.result.completeExceptionally(ex));
+            return;
+        }
+
+        batch.lookups.forEach(lookup -> lookup.result.complete(extract(response, lookup)));
+    }
+
+    private static DistanceMatrixResponseEntity extract(DistanceMatrixResponseEntity response, Lookup lookup) {
+        if (response == null) {
+            return null;
+        }
+
+        DistanceMatrixResponseEntity.DistanceMatrixResponseEntityBuilder lookupResponse = DistanceMatrixResponseEntity.builder()
+            .status(response.getStatus())
+            .rows(Collections.emptyList());
+
+        if (response.getStatus() != GoogleApiTopLevelStatusEnum.OK || response.getRows() == null
+            || response.getRows().size() <= lookup.originIndex) {
+            return lookupResponse.build();
+        }
+
+        if (response.getOrigin_addresses() != null && response.getOrigin_addresses().size() > lookup.originIndex) {
+            lookupResponse.origin_addresses(Collections.singletonList(response.getOrigin_addresses().get(lookup.originIndex)));
+        }
+        if (response.getDestination_addresses() != null && response.getDestination_addresses().size() > lookup.destinationIndex) {
+            lookupResponse.destination_addresses(Collections.singletonList(response.getDestination_addresses().get(lookup.destinationIndex)));
+        }
+
+        Row row = response.getRows().get(lookup.originIndex);
+        if (row == null || row.getElements() == null || row.getElements().size() <= lookup.destinationIndex) {
+            return lookupResponse.rows(Collections.singletonList(new Row(Collections.emptyList()))).build();
+        }
+
+        return lookupResponse
+            .rows(Collections.singletonList(new Row(Collections.singletonList(row.getElements().get(lookup.destinationIndex)))))
+            .build();
+    }
+
+    private static final class Lookup {
+        private final int originIndex;
+        private final int destinationIndex;
+        private final CompletableFuture<DistanceMatrixResponseEntity> result = new CompletableFuture<>();
+
+        private Lookup(int originIndex, int destinationIndex) {
+            this.originIndex = originIndex;
+            this.destinationIndex = destinationIndex;
+        }
+    }
+
+    /**
+     * Lookups of a window, sharing an origin or a destination. Origins and destinations are deduplicated, so lookups
+     * sharing a pickup only add a column: the billed elements are the distinct lookups. Only modified while holding
+     * the client lock.
+     */
+    private final class Batch {
+        private final List<GeoPoint> origins = new ArrayList<>();
+        private final List<GeoPoint> destinations = new ArrayList<>();
+        private final Map<GeoPoint, Integer> originIndexes = new HashMap<>();
+        private final Map<GeoPoint, Integer> destinationIndexes = new HashMap<>();
+        private final List<Lookup> lookups = new ArrayList<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        /**
+         * Whether the batch stays a single row or a single column, within the limits, with the lookup.
+         */
+        private boolean accepts(GeoPoint origin, GeoPoint destination) {
+            int originCount = origins.size() + (originIndexes.containsKey(origin) ? 0 : 1);
+            int destinationCount = destinations.size() + (destinationIndexes.containsKey(destination) ? 0 : 1);
+            return (originCount == 1 || destinationCount == 1)
+                && originCount <= MAX_ORIGINS && destinationCount <= MAX_DESTINATIONS
+                && originCount * destinationCount <= maxElements;
+        }
+
+        private CompletableFuture<DistanceMatrixResponseEntity> add(GeoPoint origin, GeoPoint destination) {
+            int originIndex = originIndexes.computeIfAbsent(origin, key -> {
+                origins.add(origin);
+                return origins.size() - 1;
+            });
+            int destinationIndex = destinationIndexes.computeIfAbsent(destination, key -> {
+                destinations.add(destination);
+                return destinations.size() - 1;
+            });
+            Lookup lookup = new Lookup(originIndex, destinationIndex);
+            lookups.add(lookup);
+            return lookup.result;
+        }
+
+        private int getElementCount() {
+            return origins.size() * destinations.size();
+        }
+
+        private boolean isFull() {
+            return getElementCount() >= maxElements || origins.size() >= MAX_ORIGINS || destinations.size() >= MAX_DESTINATIONS;
+        }
+
+        private void close() {
+            closed.countDown();
+        }
+
+        private void awaitClosing(long timeoutNanos) {
+            try {
+                closed.await(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
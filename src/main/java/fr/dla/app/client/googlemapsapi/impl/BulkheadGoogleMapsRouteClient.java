@@ -0,0 +1,140 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+
+/**
+ * Bounds the number of Google maps API lookups in progress, so that a slow Google cannot hold every web worker:
+ * once the limit is reached, the other callers wait up to the configured maximum wait and are rejected with a 503
+ * beyond it, leaving the workers free for the requests that do not need Google.
+ * <p>
+ * Asynchronous lookups hold their permit until their future completes, and never wait for one.
+ */
+@Slf4j
+public class BulkheadGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String ACTIVE_METRIC_NAME = "google.maps.api.bulkhead.active";
+    static final String MAX_METRIC_NAME = "google.maps.api.bulkhead.max";
+    static final String WAIT_METRIC_NAME = "google.maps.api.bulkhead.wait";
+    static final String REJECTED_METRIC_NAME = "google.maps.api.bulkhead.rejected";
+
+    static final String BULKHEAD_FULL_ERROR_KEY = "googleApiBulkheadFull";
+
+    private static final String COMPARTMENT_TAG = "compartment";
+    private static final String COMPARTMENT = "google-maps-api";
+
+    private final GoogleMapsRouteClient delegate;
+    private final int maxConcurrentCalls;
+    private final long maxWaitNanos;
+    private final Semaphore permits;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public BulkheadGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                         ApplicationProperties.GoogleMapsApi.Bulkhead bulkheadProperties,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.maxConcurrentCalls = bulkheadProperties.getMaxConcurrentCalls();
+        this.maxWaitNanos = bulkheadProperties.getMaxWait().toNanos();
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        Gauge.builder(ACTIVE_METRIC_NAME, this, BulkheadGoogleMapsRouteClient::getActiveCalls)
+            .description("Google maps API lookups in progress in the bulkhead")
+            .tag(COMPARTMENT_TAG, COMPARTMENT)
+            .register(meterRegistry);
+        Gauge.builder(MAX_METRIC_NAME, this, client -> client.maxConcurrentCalls)
+            .description("Google maps API lookups allowed at the same time by the bulkhead")
+            .tag(COMPARTMENT_TAG, COMPARTMENT)
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder(WAIT_METRIC_NAME)
+            .description("Time waited for a bulkhead permit before a Google maps API lookup")
+            .tag(COMPARTMENT_TAG, COMPARTMENT)
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REJECTED_METRIC_NAME)
+            .description("Google maps API lookups rejected because the bulkhead was full")
+            .tag(COMPARTMENT_TAG, COMPARTMENT)
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        return call(() -> delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination));
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        if (!permits.tryAcquire()) {
+            CompletableFuture<DistanceMatrixResponseEntity> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(reject());
+            return rejected;
+        }
+
+        CompletableFuture<DistanceMatrixResponseEntity> request;
+        try {
+            request = delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+
+        request.whenComplete((response, ex) -> permits.release());
+        return request;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return call(() -> delegate.getDistanceMatrix(origins, destinations));
+    }
+
+    int getActiveCalls() {
+        return maxConcurrentCalls - permits.availablePermits();
+    }
+
+    private DistanceMatrixResponseEntity call(Supplier<DistanceMatrixResponseEntity> request) {
+        acquire();
+        try {
+            return request.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            throw reject();
+        }
+    }
+
+    private ServiceUnavailableException reject() {
+        rejectedCounter.increment();
+        log.warn("Google maps API : {} lookups in progress, bulkhead full", getActiveCalls());
+        return new ServiceUnavailableException("Too many Google maps API lookups in progress, retry later",
+            GOOGLE_API_ENTITY, BULKHEAD_FULL_ERROR_KEY);
+    }
+}
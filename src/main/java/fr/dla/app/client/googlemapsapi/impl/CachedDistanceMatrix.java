@@ -0,0 +1,104 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.domain.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Distance matrix answered from a cache where possible: only the origins and destinations of the elements missing from
+ * the cache are requested, and the elements Google resolves are stored back.
+ */
+final class CachedDistanceMatrix {
+
+    private CachedDistanceMatrix() {
+    }
+
+    /**
+     * @param origins      origins of the matrix
+     * @param destinations destinations of the matrix
+     * @param cachedElement element cached for a route, null if missing
+     * @param request      Distance Matrix request of the missing origins and destinations
+     * @param store        stores an element Google resolved with an OK status
+     * @return the matrix, mixing cached elements and requested ones, or the response of the request when it failed
+     */
+    static DistanceMatrixResponseEntity resolve(List<GeoPoint> origins, List<GeoPoint> destinations,
+                                                BiFunction<GeoPoint, GeoPoint, Element> cachedElement,
+                                                BiFunction<List<GeoPoint>, List<GeoPoint>, DistanceMatrixResponseEntity> request,
+                                                ElementStore store) {
+        Element[][] elements = new Element[origins.size()][destinations.size()];
+        Set<Integer> missingOrigins = new TreeSet<>();
+        Set<Integer> missingDestinations = new TreeSet<>();
+        for (int i = 0; i < origins.size(); i++) {
+            for (int j = 0; j < destinations.size(); j++) {
+                elements[i][j] = cachedElement.apply(origins.get(i), destinations.get(j));
+                if (elements[i][j] == null) {
+                    missingOrigins.add(i);
+                    missingDestinations.add(j);
+                }
+            }
+        }
+        if (missingOrigins.isEmpty()) {
+            return matrix(elements, false);
+        }
+
+        DistanceMatrixResponseEntity response = request.apply(
+            missingOrigins.stream().map(origins::get).collect(Collectors.toList()),
+            missingDestinations.stream().map(destinations::get).collect(Collectors.toList()));
+        if (response == null || response.getStatus() != GoogleApiTopLevelStatusEnum.OK) {
+            return response;
+        }
+        if (!hasShape(response, missingOrigins.size(), missingDestinations.size())) {
+            // the elements cannot be placed, every order of the matrix fails with an empty elements error
+            return DistanceMatrixResponseEntity.builder().status(response.getStatus()).rows(Collections.emptyList()).build();
+        }
+
+        int row = 0;
+        for (int i : missingOrigins) {
+            List<Element> rowElements = response.getRows().get(row++).getElements();
+            int column = 0;
+            for (int j : missingDestinations) {
+                Element element = rowElements.get(column++);
+                elements[i][j] = element;
+                if (!response.isEstimated() && element != null && element.getStatus() == GoogleApiElementLevelStatusEnum.OK
+                    && element.getDistance() != null && element.getDistance().getValue() != null) {
+                    store.store(origins.get(i), destinations.get(j), element);
+                }
+            }
+        }
+        return matrix(elements, response.isEstimated());
+    }
+
+    private static boolean hasShape(DistanceMatrixResponseEntity response, int rows, int columns) {
+        return response.getRows() != null && response.getRows().size() == rows
+            && response.getRows().stream().allMatch(row -> row.getElements() != null && row.getElements().size() == columns);
+    }
+
+    private static DistanceMatrixResponseEntity matrix(Element[][] elements, boolean estimated) {
+        List<Row> rows = new ArrayList<>();
+        for (Element[] rowElements : elements) {
+            rows.add(new Row(Arrays.asList(rowElements)));
+        }
+        return DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .rows(rows)
+            .estimated(estimated)
+            .build();
+    }
+
+    @FunctionalInterface
+    interface ElementStore {
+        void store(GeoPoint origin, GeoPoint destination, Element element);
+    }
+}
@@ -0,0 +1,107 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.RouteKey;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps successful distance lookups in memory, keyed by rounded origin/destination coordinates.
+ */
+@Slf4j
+public class CachingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String CACHE_NAME = "googleMapsDistance";
+
+    private final GoogleMapsRouteClient delegate;
+    private final Cache<RouteKey, DistanceMatrixResponseEntity> cache;
+    private final int precision;
+
+    public CachingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                        ApplicationProperties.GoogleMapsApi.Cache cacheProperties,
+                                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.precision = cacheProperties.getPrecision();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheProperties.getMaximumSize())
+            .expireAfterWrite(cacheProperties.getTimeToLive())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        RouteKey routeKey = RouteKey.of(origin, destination, precision);
+
+        DistanceMatrixResponseEntity cachedResponse = cache.getIfPresent(routeKey);
+        if (cachedResponse != null) {
+            log.debug("Google maps API : distance cache hit for {}", routeKey);
+            return cachedResponse;
+        }
+
+        DistanceMatrixResponseEntity response = delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination);
+
+        if (response != null && response.getStatus() == GoogleApiTopLevelStatusEnum.OK && !response.isEstimated()) {
+            cache.put(routeKey, response);
+        }
+
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        RouteKey routeKey = RouteKey.of(origin, destination, precision);
+
+        DistanceMatrixResponseEntity cachedResponse = cache.getIfPresent(routeKey);
+        if (cachedResponse != null) {
+            log.debug("Google maps API : distance cache hit for {}", routeKey);
+            return CompletableFuture.completedFuture(cachedResponse);
+        }
+
+        return delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination)
+            .thenApply(response -> {
+                if (response != null && response.getStatus() == GoogleApiTopLevelStatusEnum.OK && !response.isEstimated()) {
+                    cache.put(routeKey, response);
+                }
+                return response;
+            });
+    }
+
+    /**
+     * Only the routes missing from the cache are requested, the elements resolved are cached as single lookups.
+     */
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return CachedDistanceMatrix.resolve(origins, destinations, this::cachedElement, delegate::getDistanceMatrix,
+            (origin, destination, element) -> cache.put(RouteKey.of(origin, destination, precision),
+                DistanceMatrixResponseEntity.builder()
+                    .status(GoogleApiTopLevelStatusEnum.OK)
+                    .rows(Collections.singletonList(new Row(Collections.singletonList(element))))
+                    .build()));
+    }
+
+    private Element cachedElement(GeoPoint origin, GeoPoint destination) {
+        DistanceMatrixResponseEntity cachedResponse = cache.getIfPresent(RouteKey.of(origin, destination, precision));
+        if (cachedResponse == null || CollectionUtils.isEmpty(cachedResponse.getRows())
+            || CollectionUtils.isEmpty(cachedResponse.getRows().get(0).getElements())) {
+            return null;
+        }
+        return cachedResponse.getRows().get(0).getElements().get(0);
+    }
+}
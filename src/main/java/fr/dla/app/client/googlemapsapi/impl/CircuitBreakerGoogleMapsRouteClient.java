@@ -0,0 +1,268 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Stops calling Google when too many of the last calls failed or were slow, and estimates the distances locally
+ * meanwhile: great-circle distance multiplied by a road factor, flagged as {@link DistanceMatrixResponseEntity#isEstimated()}.
+ * <p>
+ * Once open, the breaker lets a few trial calls through after a delay (half-open state): it closes if they all succeed,
+ * and opens again otherwise.
+ */
+@Slf4j
+public class CircuitBreakerGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String STATE_METRIC_NAME = "google.maps.api.circuit.breaker.state";
+    static final String TRANSITIONS_METRIC_NAME = "google.maps.api.circuit.breaker.transitions";
+    static final String SHORT_CIRCUITED_METRIC_NAME = "google.maps.api.circuit.breaker.short.circuited";
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final GoogleMapsRouteClient delegate;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallDurationNanos;
+    private final int minimumCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final double roadFactor;
+    private final LongSupplier nanoClock;
+    private final MeterRegistry meterRegistry;
+    private final Counter shortCircuitedCounter;
+
+    // Outcomes of the last calls while closed, guarded by this
+    private final boolean[] failures;
+    private final boolean[] slowCalls;
+    private int recordedCalls;
+    private int nextCall;
+    private int failureCount;
+    private int slowCallCount;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreakerGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                               ApplicationProperties.GoogleMapsApi.CircuitBreaker circuitBreakerProperties,
+                                               MeterRegistry meterRegistry) {
+        this(delegate, circuitBreakerProperties, System::nanoTime, meterRegistry);
+    }
+
+    CircuitBreakerGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                        ApplicationProperties.GoogleMapsApi.CircuitBreaker circuitBreakerProperties,
+                                        LongSupplier nanoClock,
+                                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.failureRateThreshold = circuitBreakerProperties.getFailureRateThreshold();
+        this.slowCallRateThreshold = circuitBreakerProperties.getSlowCallRateThreshold();
+        this.slowCallDurationNanos = circuitBreakerProperties.getSlowCallDuration().toNanos();
+        this.minimumCalls = circuitBreakerProperties.getMinimumCalls();
+        this.openDurationNanos = circuitBreakerProperties.getOpenDuration().toNanos();
+        this.halfOpenCalls = circuitBreakerProperties.getHalfOpenCalls();
+        this.roadFactor = circuitBreakerProperties.getRoadFactor();
+        this.failures = new boolean[Math.max(minimumCalls, circuitBreakerProperties.getWindowSize())];
+        this.slowCalls = new boolean[failures.length];
+        this.nanoClock = nanoClock;
+        this.meterRegistry = meterRegistry;
+        this.shortCircuitedCounter = Counter.builder(SHORT_CIRCUITED_METRIC_NAME)
+            .description("Google maps API lookups answered with an estimated distance while the circuit breaker is open")
+            .register(meterRegistry);
+        Gauge.builder(STATE_METRIC_NAME, this, client -> client.getState().ordinal())
+            .description("Google maps API circuit breaker state: 0 closed, 1 open, 2 half-open")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        return call(() -> delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination),
+            Collections.singletonList(origin), Collections.singletonList(destination));
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        if (!tryAcquirePermission()) {
+            return CompletableFuture.completedFuture(
+                estimate(Collections.singletonList(origin), Collections.singletonList(destination)));
+        }
+
+        long start = nanoClock.getAsLong();
+        CompletableFuture<DistanceMatrixResponseEntity> request;
+        try {
+            request = delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+        } catch (RuntimeException ex) {
+            record(true, nanoClock.getAsLong() - start);
+            throw ex;
+        }
+
+        request.whenComplete((response, ex) -> record(ex != null || isFailure(response), nanoClock.getAsLong() - start));
+        return request;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return call(() -> delegate.getDistanceMatrix(origins, destinations), origins, destinations);
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private DistanceMatrixResponseEntity call(Supplier<DistanceMatrixResponseEntity> request,
+                                              List<GeoPoint> origins, List<GeoPoint> destinations) {
+        if (!tryAcquirePermission()) {
+            return estimate(origins, destinations);
+        }
+
+        long start = nanoClock.getAsLong();
+        DistanceMatrixResponseEntity response;
+        try {
+            response = request.get();
+        } catch (RuntimeException ex) {
+            record(true, nanoClock.getAsLong() - start);
+            throw ex;
+        }
+
+        record(isFailure(response), nanoClock.getAsLong() - start);
+        return response;
+    }
+
+    /**
+     * Only errors of Google itself count, a request rejected because of its content is a success for the breaker.
+     */
+    private static boolean isFailure(DistanceMatrixResponseEntity response) {
+        return response == null || response.getStatus() == GoogleApiTopLevelStatusEnum.UNKNOWN_ERROR;
+    }
+
+    private synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+
+        return true;
+    }
+
+    private synchronized void record(boolean failure, long durationNanos) {
+        boolean slow = durationNanos >= slowCallDurationNanos;
+
+        switch (state) {
+            case OPEN:
+                // Call sent before the breaker opened
+                return;
+            case HALF_OPEN:
+                if (failure || slow) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    transitionTo(State.CLOSED);
+                    resetWindow();
+                }
+                return;
+            default:
+                break;
+        }
+
+        if (recordedCalls == failures.length) {
+            failureCount -= failures[nextCall] ? 1 : 0;
+            slowCallCount -= slowCalls[nextCall] ? 1 : 0;
+        } else {
+            recordedCalls++;
+        }
+        failures[nextCall] = failure;
+        slowCalls[nextCall] = slow;
+        failureCount += failure ? 1 : 0;
+        slowCallCount += slow ? 1 : 0;
+        nextCall = (nextCall + 1) % failures.length;
+
+        if (recordedCalls >= minimumCalls && (failureCount * 100.0 / recordedCalls >= failureRateThreshold
+            || slowCallCount * 100.0 / recordedCalls >= slowCallRateThreshold)) {
+            log.warn("Google maps API : {} failed and {} slow calls out of the last {}",
+                failureCount, slowCallCount, recordedCalls);
+            open();
+        }
+    }
+
+    private void open() {
+        transitionTo(State.OPEN);
+        openedAtNanos = nanoClock.getAsLong();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recordedCalls = 0;
+        nextCall = 0;
+        failureCount = 0;
+        slowCallCount = 0;
+    }
+
+    private void transitionTo(State newState) {
+        log.warn("Google maps API : circuit breaker {} -> {}", state, newState);
+        Counter.builder(TRANSITIONS_METRIC_NAME)
+            .description("Google maps API circuit breaker state transitions")
+            .tag("from", state.name().toLowerCase(Locale.ROOT))
+            .tag("to", newState.name().toLowerCase(Locale.ROOT))
+            .register(meterRegistry)
+            .increment();
+        state = newState;
+    }
+
+    private DistanceMatrixResponseEntity estimate(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        shortCircuitedCounter.increment();
+
+        List<Row> rows = new ArrayList<>(origins.size());
+        for (GeoPoint origin : origins) {
+            List<Element> elements = new ArrayList<>(destinations.size());
+            for (GeoPoint destination : destinations) {
+                double meters = GreatCircleDistance.meters(origin.getLatitude(), origin.getLongitude(),
+                    destination.getLatitude(), destination.getLongitude());
+                elements.add(Element.builder()
+                    .distance(new Distance(null, (int) Math.round(meters * roadFactor)))
+                    .status(GoogleApiElementLevelStatusEnum.OK)
+                    .build());
+            }
+            rows.add(new Row(elements));
+        }
+
+        log.debug("Google maps API : circuit breaker open, estimated distances {}", rows);
+
+        return DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .rows(rows)
+            .estimated(true)
+            .build();
+    }
+}
@@ -0,0 +1,107 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.RouteKey;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Lets concurrent lookups of the same route share a single in-flight Google call, result or error included.
+ */
+@Slf4j
+public class CoalescingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String COALESCED_METRIC_NAME = "google.maps.api.coalesced";
+
+    private final GoogleMapsRouteClient delegate;
+    private final int precision;
+    private final Counter coalescedCounter;
+    private final ConcurrentMap<RouteKey, CompletableFuture<DistanceMatrixResponseEntity>> inFlightRequests = new ConcurrentHashMap<>();
+
+    public CoalescingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                           ApplicationProperties.GoogleMapsApi.Coalescing coalescingProperties,
+                                           MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.precision = coalescingProperties.getPrecision();
+        this.coalescedCounter = Counter.builder(COALESCED_METRIC_NAME)
+            .description("Google maps API lookups served by an identical in-flight request")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        RouteKey routeKey = RouteKey.of(origin, destination, precision);
+
+        CompletableFuture<DistanceMatrixResponseEntity> request = new CompletableFuture<>();
+        CompletableFuture<DistanceMatrixResponseEntity> inFlightRequest = inFlightRequests.putIfAbsent(routeKey, request);
+
+        if (inFlightRequest != null) {
+            coalescedCounter.increment();
+            log.debug("Google maps API : joining in-flight request for {}", routeKey);
+            return CompletableFutures.join(inFlightRequest);
+        }
+
+        try {
+            DistanceMatrixResponseEntity response = delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination);
+            request.complete(response);
+            return response;
+        } catch (RuntimeException | Error ex) {
+            request.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightRequests.remove(routeKey, request);
+        }
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        RouteKey routeKey = RouteKey.of(origin, destination, precision);
+
+        CompletableFuture<DistanceMatrixResponseEntity> request = new CompletableFuture<>();
+        CompletableFuture<DistanceMatrixResponseEntity> inFlightRequest = inFlightRequests.putIfAbsent(routeKey, request);
+
+        if (inFlightRequest != null) {
+            coalescedCounter.increment();
+            log.debug("Google maps API : joining in-flight request for {}", routeKey);
+            // A dependent stage, so that a caller cancelling its future does not cancel the shared request
+            return inFlightRequest.thenApply(Function.identity());
+        }
+
+        CompletableFuture<DistanceMatrixResponseEntity> response;
+        try {
+            response = delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+        } catch (RuntimeException | Error ex) {
+            // Thrown before any call was sent (client stopped, invalid URI): the joined lookups must not wait forever
+            inFlightRequests.remove(routeKey, request);
+            request.completeExceptionally(ex);
+            return request.thenApply(Function.identity());
+        }
+
+        response.whenComplete((result, ex) -> {
+            inFlightRequests.remove(routeKey, request);
+            if (ex != null) {
+                request.completeExceptionally(ex);
+            } else {
+                request.complete(result);
+            }
+        });
+
+        return request.thenApply(Function.identity());
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return delegate.getDistanceMatrix(origins, destinations);
+    }
+}
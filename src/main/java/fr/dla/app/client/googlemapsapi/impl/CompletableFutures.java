@@ -0,0 +1,27 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+final class CompletableFutures {
+
+    private CompletableFutures() {
+    }
+
+    /**
+     * Wait for the future and rethrow its failure as is, instead of wrapped in a {@link CompletionException}.
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
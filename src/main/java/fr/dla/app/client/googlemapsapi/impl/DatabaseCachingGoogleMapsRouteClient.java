@@ -0,0 +1,164 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.RouteKey;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.service.DistanceCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.util.CollectionUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Looks the distances up in the database shared by all the instances before calling Google, and stores the distances
+ * resolved by Google asynchronously.
+ * <p>
+ * Only the distance value is stored, a hit is answered with a single row/single element OK response. The database
+ * being unavailable never fails a lookup, Google is called instead.
+ */
+@Slf4j
+public class DatabaseCachingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String DATABASE_CACHE_METRIC_NAME = "google.maps.api.database.cache";
+
+    private final GoogleMapsRouteClient delegate;
+    private final DistanceCacheService distanceCacheService;
+    private final Executor taskExecutor;
+    private final int precision;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public DatabaseCachingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                                ApplicationProperties.GoogleMapsApi.DatabaseCache databaseCacheProperties,
+                                                DistanceCacheService distanceCacheService,
+                                                Executor taskExecutor,
+                                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.distanceCacheService = distanceCacheService;
+        this.taskExecutor = taskExecutor;
+        this.precision = databaseCacheProperties.getPrecision();
+        this.hitCounter = Counter.builder(DATABASE_CACHE_METRIC_NAME)
+            .description("Google maps API lookups looked up in the database cache")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.missCounter = Counter.builder(DATABASE_CACHE_METRIC_NAME)
+            .description("Google maps API lookups looked up in the database cache")
+            .tag("result", "miss")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        String routeKey = toStorageKey(origin, destination);
+
+        Optional<DistanceMatrixResponseEntity> storedResponse = findStoredResponse(routeKey);
+        if (storedResponse.isPresent()) {
+            return storedResponse.get();
+        }
+
+        DistanceMatrixResponseEntity response = delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination);
+        store(routeKey, response);
+        return response;
+    }
+
+    /**
+     * The database is read from the task executor, the caller thread never waits for it.
+     */
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        String routeKey = toStorageKey(origin, destination);
+
+        return CompletableFuture.supplyAsync(() -> findStoredResponse(routeKey), taskExecutor)
+            .thenCompose(storedResponse -> storedResponse
+                .map(CompletableFuture::completedFuture)
+                .orElseGet(() -> delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination)
+                    .thenApply(response -> {
+                        store(routeKey, response);
+                        return response;
+                    })));
+    }
+
+    /**
+     * Only the routes missing from the database are requested, the distances resolved are stored.
+     */
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return CachedDistanceMatrix.resolve(origins, destinations,
+            (origin, destination) -> findStoredResponse(toStorageKey(origin, destination))
+                .map(response -> response.getRows().get(0).getElements().get(0))
+                .orElse(null),
+            delegate::getDistanceMatrix,
+            (origin, destination, element) -> saveDistance(toStorageKey(origin, destination), element.getDistance().getValue()));
+    }
+
+    /**
+     * The precision is part of the key, changing it does not return distances stored with another one.
+     */
+    private String toStorageKey(GeoPoint origin, GeoPoint destination) {
+        return precision + ":" + RouteKey.of(origin, destination, precision).asText();
+    }
+
+    private Optional<DistanceMatrixResponseEntity> findStoredResponse(String routeKey) {
+        Optional<Integer> distance;
+        try {
+            distance = distanceCacheService.findDistance(routeKey);
+        } catch (DataAccessException ex) {
+            log.warn("Google maps API : database cache unavailable, calling Google. {}", ex.getMessage());
+            return Optional.empty();
+        }
+
+        if (!distance.isPresent()) {
+            missCounter.increment();
+            return Optional.empty();
+        }
+
+        hitCounter.increment();
+        log.debug("Google maps API : database cache hit for {}", routeKey);
+
+        return Optional.of(DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .rows(Collections.singletonList(new Row(Collections.singletonList(Element.builder()
+                .distance(new Distance(null, distance.get()))
+                .status(GoogleApiElementLevelStatusEnum.OK)
+                .build()))))
+            .build());
+    }
+
+    private void store(String routeKey, DistanceMatrixResponseEntity response) {
+        if (response == null || response.isEstimated() || response.getStatus() != GoogleApiTopLevelStatusEnum.OK
+            || CollectionUtils.isEmpty(response.getRows()) || CollectionUtils.isEmpty(response.getRows().get(0).getElements())) {
+            return;
+        }
+
+        Element element = response.getRows().get(0).getElements().get(0);
+        if (element.getStatus() != GoogleApiElementLevelStatusEnum.OK || element.getDistance() == null
+            || element.getDistance().getValue() == null) {
+            return;
+        }
+
+        saveDistance(routeKey, element.getDistance().getValue());
+    }
+
+    private void saveDistance(String routeKey, int distance) {
+        try {
+            distanceCacheService.saveDistance(routeKey, distance);
+        } catch (RuntimeException ex) {
+            log.warn("Google maps API : distance of {} not stored in the database cache. {}", routeKey, ex.getMessage());
+        }
+    }
+}
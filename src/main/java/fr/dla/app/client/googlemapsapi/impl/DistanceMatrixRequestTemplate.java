@@ -0,0 +1,112 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.domain.GeoPoint;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds the Distance Matrix request URIs from a template compiled once: the endpoint, the parameter names and the
+ * encoded API key are copied as is, only the coordinates are written on each call, into a buffer reused by the thread.
+ * <p>
+ * The API key is percent-encoded as {@code UriComponentsBuilder.encode()} does. Coordinates only hold digits, '-', '.'
+ * and the ',' that Google reads unencoded, and are written without escaping.
+ */
+final class DistanceMatrixRequestTemplate {
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] UNENCODED = new boolean[128];
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 8192;
+    private static final String DESTINATIONS_PARAMETER = "&destinations=";
+    private static final String KEY_PARAMETER = "&key=";
+    private static final String COORDINATES_SEPARATOR = "%7C";
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNENCODED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNENCODED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNENCODED[c] = true;
+        }
+        for (char c : "-._~,".toCharArray()) {
+            UNENCODED[c] = true;
+        }
+    }
+
+    private final String originsPrefix;
+    private final String keySuffix;
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_CAPACITY));
+
+    DistanceMatrixRequestTemplate(String endpointUrl, String apiKey) {
+        this.originsPrefix = endpointUrl + (endpointUrl.indexOf('?') < 0 ? "?" : "&") + "origins=";
+        StringBuilder keySuffixBuilder = new StringBuilder(KEY_PARAMETER);
+        appendEncoded(keySuffixBuilder, apiKey == null ? "" : apiKey);
+        this.keySuffix = keySuffixBuilder.toString();
+    }
+
+    URI uri(GeoPoint origin, GeoPoint destination) {
+        return uri(Collections.singletonList(origin), Collections.singletonList(destination));
+    }
+
+    /**
+     * @param origins      origins, separated by an encoded '|'
+     * @param destinations destinations
+     */
+    URI uri(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        StringBuilder buffer = buffers.get();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            buffer = new StringBuilder(INITIAL_BUFFER_CAPACITY);
+            buffers.set(buffer);
+        }
+        buffer.setLength(0);
+
+        buffer.append(originsPrefix);
+        appendCoordinates(buffer, origins);
+        buffer.append(DESTINATIONS_PARAMETER);
+        appendCoordinates(buffer, destinations);
+        buffer.append(keySuffix);
+
+        return URI.create(buffer.toString());
+    }
+
+    private static void appendCoordinates(StringBuilder buffer, List<GeoPoint> points) {
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) {
+                buffer.append(COORDINATES_SEPARATOR);
+            }
+            points.get(i).appendTo(buffer);
+        }
+    }
+
+    private static void appendEncoded(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < UNENCODED.length && UNENCODED[c]) {
+                buffer.append(c);
+            } else if (c < 0x80) {
+                appendEscaped(buffer, c);
+            } else {
+                // Rare non-ASCII value, encode the whole remainder as UTF-8
+                for (byte b : value.substring(i).getBytes(StandardCharsets.UTF_8)) {
+                    int unsigned = b & 0xFF;
+                    if (unsigned < UNENCODED.length && UNENCODED[unsigned]) {
+                        buffer.append((char) unsigned);
+                    } else {
+                        appendEscaped(buffer, unsigned);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder buffer, int b) {
+        buffer.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+    }
+}
@@ -0,0 +1,148 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-level reader of Distance Matrix responses, keeping only what the order creation reads: the top-level status,
+ * the element statuses and the distance values.
+ * <p>
+ * Addresses, durations and texts are skipped without being materialized, so the returned entity only has its status
+ * and rows filled in.
+ */
+public class DistanceMatrixResponseParser {
+
+    private static final String STATUS_FIELD = "status";
+    private static final String ROWS_FIELD = "rows";
+    private static final String ELEMENTS_FIELD = "elements";
+    private static final String DISTANCE_FIELD = "distance";
+    private static final String VALUE_FIELD = "value";
+
+    private final JsonFactory jsonFactory;
+
+    public DistanceMatrixResponseParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public DistanceMatrixResponseEntity parse(InputStream content) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            expect(parser, JsonToken.START_OBJECT);
+
+            DistanceMatrixResponseEntity response = new DistanceMatrixResponseEntity();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (STATUS_FIELD.equals(fieldName)) {
+                    response.setStatus(readEnum(parser, GoogleApiTopLevelStatusEnum.class));
+                } else if (ROWS_FIELD.equals(fieldName)) {
+                    response.setRows(readRows(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return response;
+        }
+    }
+
+    private static List<Row> readRows(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+
+        List<Row> rows = new ArrayList<>(1);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Row row = new Row();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (ELEMENTS_FIELD.equals(fieldName)) {
+                    row.setElements(readElements(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<Element> readElements(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_ARRAY);
+
+        List<Element> elements = new ArrayList<>(1);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Element element = new Element();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if (STATUS_FIELD.equals(fieldName)) {
+                    element.setStatus(readEnum(parser, GoogleApiElementLevelStatusEnum.class));
+                } else if (DISTANCE_FIELD.equals(fieldName)) {
+                    element.setDistance(readDistance(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            elements.add(element);
+        }
+        return elements;
+    }
+
+    private static Distance readDistance(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+
+        Distance distance = new Distance();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (VALUE_FIELD.equals(fieldName) && valueToken != JsonToken.VALUE_NULL) {
+                distance.setValue(parser.getIntValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return distance;
+    }
+
+    private static <E extends Enum<E>> E readEnum(JsonParser parser, Class<E> enumType) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        String value = parser.getText();
+        try {
+            return Enum.valueOf(enumType, value);
+        } catch (IllegalArgumentException ex) {
+            throw new JsonParseException(parser, String.format("Unknown %s value '%s'", enumType.getSimpleName(), value), ex);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken expectedToken) throws IOException {
+        if (parser.currentToken() != expectedToken) {
+            throw new JsonParseException(parser, String.format("Expected %s but found %s", expectedToken, parser.currentToken()));
+        }
+    }
+}
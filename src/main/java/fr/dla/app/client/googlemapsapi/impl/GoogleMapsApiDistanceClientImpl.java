@@ -1,23 +1,38 @@
 package fr.dla.app.client.googlemapsapi.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
 import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.domain.GeoPoint;
 import fr.dla.app.web.rest.errors.InternalServerErrorException;
 import fr.dla.app.web.rest.errors.ProxyException;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponents;
-import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 
 import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
 
@@ -25,12 +40,16 @@ import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
 @Component
 public class GoogleMapsApiDistanceClientImpl implements GoogleMapsRouteClient {
 
-    private static final String ORIGINS_PARAMETER = "origins";
-    private static final String DESTINATIONS_PARAMETER = "destinations";
-    private static final String KEY_PARAMETER = "key";
+    public static final String TOO_MANY_REQUESTS_ERROR_KEY = "googleApiTooManyRequests";
+
     private static final String GOOGLE_API_EXCEPTION_ERROR_KEY = "googleApiException";
+    private static final String GZIP_ENCODING = "gzip";
 
     private final RestTemplate restTemplate;
+    private final CloseableHttpAsyncClient asyncHttpClient;
+    private final ObjectMapper objectMapper;
+    private final DistanceMatrixResponseParser responseParser;
+    private volatile DistanceMatrixRequestTemplate requestTemplate;
 
     @Value("${application.google-maps-api.url}")
     private String endpointUrl;
@@ -38,30 +57,97 @@ public class GoogleMapsApiDistanceClientImpl implements GoogleMapsRouteClient {
     @Value("${application.google-maps-api.key}")
     private String apiKey;
 
-    public GoogleMapsApiDistanceClientImpl(@Qualifier("vanillaRestTemplate") RestTemplate restTemplate) {
+    @Value("${application.google-maps-api.http.compression:true}")
+    private boolean compression;
+
+    @Value("${application.google-maps-api.streaming-parser:true}")
+    private boolean streamingParser;
+
+    public GoogleMapsApiDistanceClientImpl(@Qualifier("vanillaRestTemplate") RestTemplate restTemplate,
+                                           @Qualifier("googleMapsApiAsyncHttpClient") CloseableHttpAsyncClient asyncHttpClient,
+                                           ObjectMapper objectMapper) {
         this.restTemplate = restTemplate;
+        this.asyncHttpClient = asyncHttpClient;
+        this.objectMapper = objectMapper;
+        this.responseParser = new DistanceMatrixResponseParser(objectMapper.getFactory());
     }
 
     @Override
-    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(@Size(min = 2, max = 2) List<String> origin,
-                                                                                @Size(min = 2, max = 2) List<String> destination) {
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
 
         log.info("Google maps API : get distance between two coordinates. origin={}, destination={}", origin, destination);
 
-        UriComponents requestBuilder = UriComponentsBuilder.fromHttpUrl(endpointUrl)
-            .queryParam(ORIGINS_PARAMETER, String.format("%s,%s", origin.get(0), origin.get(1)))
-            .queryParam(DESTINATIONS_PARAMETER, String.format("%s,%s", destination.get(0), destination.get(1)))
-            .queryParam(KEY_PARAMETER, apiKey)
-            .build();
+        return requestDistanceMatrix(requestTemplate().uri(origin, destination));
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+
+        log.info("Google maps API : get distance between two coordinates asynchronously. origin={}, destination={}", origin, destination);
+
+        URI requestUri = requestTemplate().uri(origin, destination);
+
+        log.info("GET request ---> {}", requestUri);
+
+        HttpGet request = new HttpGet(requestUri);
+        if (compression) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, GZIP_ENCODING);
+        }
+
+        CompletableFuture<DistanceMatrixResponseEntity> result = new CompletableFuture<>();
+        Future<HttpResponse> httpResponse = asyncHttpClient.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    result.complete(readResponse(response));
+                } catch (RuntimeException ex) {
+                    result.completeExceptionally(ex);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                result.completeExceptionally(new InternalServerErrorException(ex.getMessage(), GOOGLE_API_ENTITY, GOOGLE_API_EXCEPTION_ERROR_KEY));
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+
+        result.whenComplete((response, ex) -> {
+            if (ex instanceof CancellationException) {
+                httpResponse.cancel(true);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+
+        log.info("Google maps API : get distance matrix. origins={}, destinations={}", origins, destinations);
+
+        return requestDistanceMatrix(requestTemplate().uri(origins, destinations));
+    }
 
-        log.info("GET request ---> {}", requestBuilder);
+    private DistanceMatrixResponseEntity requestDistanceMatrix(URI requestUri) {
+        log.info("GET request ---> {}", requestUri);
 
         ResponseEntity<DistanceMatrixResponseEntity> responseEntity;
 
         try {
-            responseEntity = restTemplate.getForEntity(requestBuilder.toString(), DistanceMatrixResponseEntity.class);
+            if (streamingParser) {
+                responseEntity = restTemplate.execute(requestUri, HttpMethod.GET, null,
+                    response -> new ResponseEntity<>(responseParser.parse(response.getBody()), response.getHeaders(), response.getStatusCode()));
+            } else {
+                responseEntity = restTemplate.getForEntity(requestUri, DistanceMatrixResponseEntity.class);
+            }
         } catch (HttpClientErrorException ex) {
-            throw new ProxyException(ex.getMessage(), GOOGLE_API_ENTITY, GOOGLE_API_EXCEPTION_ERROR_KEY);
+            throw new ProxyException(ex.getMessage(), GOOGLE_API_ENTITY, clientErrorKey(ex.getRawStatusCode()));
         } catch (ResourceAccessException | HttpServerErrorException ex) {
             throw new InternalServerErrorException(ex.getMessage(), GOOGLE_API_ENTITY, GOOGLE_API_EXCEPTION_ERROR_KEY);
         }
@@ -70,4 +156,55 @@ public class GoogleMapsApiDistanceClientImpl implements GoogleMapsRouteClient {
 
         return responseEntity.getBody();
     }
+
+    /**
+     * Compiled on first use, once the endpoint and the key are injected.
+     */
+    private DistanceMatrixRequestTemplate requestTemplate() {
+        DistanceMatrixRequestTemplate template = requestTemplate;
+        if (template == null) {
+            template = new DistanceMatrixRequestTemplate(endpointUrl, apiKey);
+            requestTemplate = template;
+        }
+        return template;
+    }
+
+    private DistanceMatrixResponseEntity readResponse(HttpResponse response) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        String statusMessage = statusCode + " " + response.getStatusLine().getReasonPhrase();
+
+        if (HttpStatus.Series.resolve(statusCode) == HttpStatus.Series.CLIENT_ERROR) {
+            throw new ProxyException(statusMessage, GOOGLE_API_ENTITY, clientErrorKey(statusCode));
+        }
+        if (HttpStatus.Series.resolve(statusCode) == HttpStatus.Series.SERVER_ERROR) {
+            throw new InternalServerErrorException(statusMessage, GOOGLE_API_ENTITY, GOOGLE_API_EXCEPTION_ERROR_KEY);
+        }
+
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return null;
+        }
+
+        try (InputStream content = decode(entity)) {
+            DistanceMatrixResponseEntity distanceMatrixResponseEntity = streamingParser
+                ? responseParser.parse(content)
+                : objectMapper.readValue(content, DistanceMatrixResponseEntity.class);
+            log.info("GET response <--- {} {}", statusMessage, distanceMatrixResponseEntity);
+            return distanceMatrixResponseEntity;
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex.getMessage(), GOOGLE_API_ENTITY, GOOGLE_API_EXCEPTION_ERROR_KEY);
+        }
+    }
+
+    private static String clientErrorKey(int statusCode) {
+        return statusCode == HttpStatus.TOO_MANY_REQUESTS.value() ? TOO_MANY_REQUESTS_ERROR_KEY : GOOGLE_API_EXCEPTION_ERROR_KEY;
+    }
+
+    private static InputStream decode(HttpEntity entity) throws IOException {
+        Header contentEncoding = entity.getContentEncoding();
+        if (contentEncoding != null && GZIP_ENCODING.equalsIgnoreCase(contentEncoding.getValue())) {
+            return new GZIPInputStream(entity.getContent());
+        }
+        return entity.getContent();
+    }
 }
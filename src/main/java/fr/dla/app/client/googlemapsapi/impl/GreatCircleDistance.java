@@ -0,0 +1,23 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+/**
+ * Haversine distance between two points of the earth, considered as a sphere.
+ */
+final class GreatCircleDistance {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GreatCircleDistance() {
+    }
+
+    static double meters(double originLatitude, double originLongitude, double destinationLatitude, double destinationLongitude) {
+        double latitudeDelta = Math.toRadians(destinationLatitude - originLatitude);
+        double longitudeDelta = Math.toRadians(destinationLongitude - originLongitude);
+
+        double haversine = Math.pow(Math.sin(latitudeDelta / 2), 2)
+            + Math.cos(Math.toRadians(originLatitude)) * Math.cos(Math.toRadians(destinationLatitude))
+            * Math.pow(Math.sin(longitudeDelta / 2), 2);
+
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(haversine)));
+    }
+}
@@ -0,0 +1,224 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a second identical lookup when the first one is slower than a percentile of the recent response times.
+ * The first response wins and the other request is cancelled.
+ * <p>
+ * Every lookup adds {@code maxRatio} to a hedge budget and every hedge takes one from it, so hedges never exceed that
+ * share of the lookups. Both blocking and asynchronous lookups go through the asynchronous delegate; distance matrix
+ * requests, including batched lookups, are not hedged.
+ */
+@Slf4j
+public class HedgingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String HEDGES_SENT_METRIC_NAME = "google.maps.api.hedging.sent";
+    static final String HEDGES_WON_METRIC_NAME = "google.maps.api.hedging.won";
+    static final String DELAY_METRIC_NAME = "google.maps.api.hedging.delay";
+
+    /**
+     * Response times recorded before the percentile is computed, the initial delay is used until then.
+     */
+    static final int MIN_SAMPLES = 20;
+
+    /**
+     * Hedges allowed in a row after a quiet period.
+     */
+    private static final double MAX_BUDGET = 10;
+
+    private final GoogleMapsRouteClient delegate;
+    private final TaskScheduler taskScheduler;
+    private final long minDelayNanos;
+    private final long initialDelayNanos;
+    private final double maxRatio;
+    private final LatencyWindow latencies;
+    private final Counter hedgesSentCounter;
+    private final Counter hedgesWonCounter;
+
+    private double hedgeBudget;
+
+    public HedgingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                        ApplicationProperties.GoogleMapsApi.Hedging hedgingProperties,
+                                        TaskScheduler taskScheduler,
+                                        MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.taskScheduler = taskScheduler;
+        this.minDelayNanos = hedgingProperties.getMinDelay().toNanos();
+        this.initialDelayNanos = hedgingProperties.getInitialDelay().toNanos();
+        this.maxRatio = hedgingProperties.getMaxRatio();
+        this.latencies = new LatencyWindow(hedgingProperties.getWindowSize(), hedgingProperties.getPercentile());
+        this.hedgesSentCounter = Counter.builder(HEDGES_SENT_METRIC_NAME)
+            .description("Google maps API lookups sent a second time because the first request was slow")
+            .register(meterRegistry);
+        this.hedgesWonCounter = Counter.builder(HEDGES_WON_METRIC_NAME)
+            .description("Google maps API hedged lookups answered first by the second request")
+            .register(meterRegistry);
+        Gauge.builder(DELAY_METRIC_NAME, this, client -> client.getDelayNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1))
+            .description("Delay before a Google maps API lookup is hedged")
+            .baseUnit("milliseconds")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        return CompletableFutures.join(getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination));
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        depositBudget();
+
+        HedgedLookup lookup = new HedgedLookup(origin, destination);
+        lookup.send(false);
+
+        if (!lookup.result.isDone()) {
+            ScheduledFuture<?> hedge = taskScheduler.schedule(lookup::hedge, Instant.now().plusNanos(getDelayNanos()));
+            lookup.result.whenComplete((response, ex) -> hedge.cancel(false));
+        }
+
+        return lookup.result;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return delegate.getDistanceMatrix(origins, destinations);
+    }
+
+    long getDelayNanos() {
+        long percentileNanos = latencies.getPercentileNanos();
+        return Math.max(minDelayNanos, percentileNanos < 0 ? initialDelayNanos : percentileNanos);
+    }
+
+    private synchronized void depositBudget() {
+        hedgeBudget = Math.min(MAX_BUDGET, hedgeBudget + maxRatio);
+    }
+
+    private synchronized boolean withdrawBudget() {
+        if (hedgeBudget < 1) {
+            return false;
+        }
+        hedgeBudget--;
+        return true;
+    }
+
+    /**
+     * Requests of one lookup. The result completes with the first response, or with the last error once no request is
+     * left in flight.
+     */
+    private final class HedgedLookup {
+        private final GeoPoint origin;
+        private final GeoPoint destination;
+        private final CompletableFuture<DistanceMatrixResponseEntity> result = new CompletableFuture<>();
+        private final List<CompletableFuture<DistanceMatrixResponseEntity>> requests = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlightRequests = new AtomicInteger();
+
+        private HedgedLookup(GeoPoint origin, GeoPoint destination) {
+            this.origin = origin;
+            this.destination = destination;
+            result.whenComplete((response, ex) -> requests.forEach(request -> request.cancel(true)));
+        }
+
+        private void hedge() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!withdrawBudget()) {
+                log.debug("Google maps API : hedge budget exhausted, not hedging lookup origin={}, destination={}", origin, destination);
+                return;
+            }
+
+            hedgesSentCounter.increment();
+            log.debug("Google maps API : hedging slow lookup origin={}, destination={}", origin, destination);
+            send(true);
+        }
+
+        private void send(boolean hedged) {
+            long start = System.nanoTime();
+            inFlightRequests.incrementAndGet();
+
+            CompletableFuture<DistanceMatrixResponseEntity> request;
+            try {
+                request = delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+            } catch (RuntimeException ex) {
+                onFailure(ex);
+                return;
+            }
+
+            requests.add(request);
+            request.whenComplete((response, ex) -> {
+                if (ex != null) {
+                    onFailure(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                    return;
+                }
+                latencies.record(System.nanoTime() - start);
+                if (result.complete(response) && hedged) {
+                    hedgesWonCounter.increment();
+                }
+            });
+
+            // The other request may have answered while this one was being sent
+            if (result.isDone()) {
+                request.cancel(true);
+            }
+        }
+
+        private void onFailure(Throwable ex) {
+            if (inFlightRequests.decrementAndGet() == 0) {
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * Last response times, the percentile is computed again every {@link #MIN_SAMPLES} records.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private final double percentile;
+        private int count;
+        private int next;
+        private long recorded;
+        private volatile long percentileNanos = -1;
+
+        private LatencyWindow(int size, double percentile) {
+            this.samples = new long[Math.max(MIN_SAMPLES, size)];
+            this.percentile = percentile;
+        }
+
+        private synchronized void record(long latencyNanos) {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+
+            if (++recorded % MIN_SAMPLES == 0) {
+                long[] sortedSamples = Arrays.copyOf(samples, count);
+                Arrays.sort(sortedSamples);
+                percentileNanos = sortedSamples[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+            }
+        }
+
+        private long getPercentileNanos() {
+            return percentileNanos;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.DlappException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Measures the calls actually sent to Google: latency and count by response status, element statuses, and the
+ * billable elements, also summed since the last daily quota reset.
+ * <p>
+ * A request cancelled because another one answered first (a hedge losing its race) is recorded as CANCELLED, not as
+ * an error.
+ * <p>
+ * Every tag value is registered up front so that a status never seen yet is published as 0 rather than missing,
+ * which alert rules on rates need.
+ */
+@Slf4j
+public class MetricsGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String REQUESTS_METRIC_NAME = "google.maps.api.requests";
+    static final String ELEMENTS_METRIC_NAME = "google.maps.api.elements";
+    static final String BILLABLE_ELEMENTS_METRIC_NAME = "google.maps.api.billable.elements";
+    static final String DAILY_USAGE_METRIC_NAME = "google.maps.api.daily.usage";
+    static final String DAILY_QUOTA_METRIC_NAME = "google.maps.api.daily.quota";
+
+    static final String SINGLE_TYPE = "single";
+    static final String MATRIX_TYPE = "matrix";
+    static final String TOO_MANY_REQUESTS_STATUS = "TOO_MANY_REQUESTS";
+    static final String ERROR_STATUS = "ERROR";
+    static final String CANCELLED_STATUS = "CANCELLED";
+    static final String EMPTY_STATUS = "EMPTY";
+
+    private final GoogleMapsRouteClient delegate;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final ZoneId resetZone;
+    private final int resetHour;
+    private final Map<String, Map<String, Timer>> requestTimers = new HashMap<>();
+    private final Map<GoogleApiElementLevelStatusEnum, Counter> elementCounters = new EnumMap<>(GoogleApiElementLevelStatusEnum.class);
+    private final Counter billableElementsCounter;
+
+    private final AtomicLong dailyUsage = new AtomicLong();
+    private volatile long usagePeriodStartMillis;
+
+    public MetricsGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                        ApplicationProperties.GoogleMapsApi.Metrics metricsProperties,
+                                        MeterRegistry meterRegistry) {
+        this(delegate, metricsProperties, Clock.systemUTC(), meterRegistry);
+    }
+
+    MetricsGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                 ApplicationProperties.GoogleMapsApi.Metrics metricsProperties,
+                                 Clock clock,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.resetZone = ZoneId.of(metricsProperties.getResetZone());
+        this.resetHour = metricsProperties.getResetHour();
+        this.usagePeriodStartMillis = usagePeriodStart(clock.instant());
+
+        for (String type : new String[]{SINGLE_TYPE, MATRIX_TYPE}) {
+            Map<String, Timer> timers = new HashMap<>();
+            for (GoogleApiTopLevelStatusEnum status : GoogleApiTopLevelStatusEnum.values()) {
+                timers.put(status.name(), requestTimer(type, status.name()));
+            }
+            for (String status : new String[]{TOO_MANY_REQUESTS_STATUS, ERROR_STATUS, CANCELLED_STATUS, EMPTY_STATUS}) {
+                timers.put(status, requestTimer(type, status));
+            }
+            requestTimers.put(type, timers);
+        }
+        for (GoogleApiElementLevelStatusEnum status : GoogleApiElementLevelStatusEnum.values()) {
+            elementCounters.put(status, Counter.builder(ELEMENTS_METRIC_NAME)
+                .description("Elements returned by the Google maps API, by element status")
+                .tag("status", status.name())
+                .register(meterRegistry));
+        }
+        this.billableElementsCounter = Counter.builder(BILLABLE_ELEMENTS_METRIC_NAME)
+            .description("Elements billed by the Google maps API")
+            .register(meterRegistry);
+
+        Gauge.builder(DAILY_USAGE_METRIC_NAME, this, MetricsGoogleMapsRouteClient::getDailyUsage)
+            .description("Elements billed by the Google maps API since the last daily quota reset")
+            .register(meterRegistry);
+        if (metricsProperties.getDailyQuota() > 0) {
+            Gauge.builder(DAILY_QUOTA_METRIC_NAME, metricsProperties, ApplicationProperties.GoogleMapsApi.Metrics::getDailyQuota)
+                .description("Elements allowed per day by the Google maps API quota")
+                .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        return call(SINGLE_TYPE, 1, () -> delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination));
+    }
+
+    /**
+     * Returns the future of the delegate itself, so that cancelling it still cancels the HTTP request.
+     */
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<DistanceMatrixResponseEntity> request;
+        try {
+            request = delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination);
+        } catch (RuntimeException ex) {
+            record(SINGLE_TYPE, 1, sample, null, ex);
+            throw ex;
+        }
+
+        request.whenComplete((response, ex) -> record(SINGLE_TYPE, 1, sample, response, ex));
+        return request;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return call(MATRIX_TYPE, origins.size() * destinations.size(), () -> delegate.getDistanceMatrix(origins, destinations));
+    }
+
+    long getDailyUsage() {
+        rollOverUsagePeriod();
+        return dailyUsage.get();
+    }
+
+    private DistanceMatrixResponseEntity call(String type, int elements, Supplier<DistanceMatrixResponseEntity> request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        DistanceMatrixResponseEntity response;
+        try {
+            response = request.get();
+        } catch (RuntimeException ex) {
+            record(type, elements, sample, null, ex);
+            throw ex;
+        }
+
+        record(type, elements, sample, response, null);
+        return response;
+    }
+
+    private void record(String type, int elements, Timer.Sample sample, DistanceMatrixResponseEntity response, Throwable error) {
+        sample.stop(requestTimers.get(type).get(status(response, error)));
+
+        if (response == null || response.getStatus() != GoogleApiTopLevelStatusEnum.OK) {
+            return;
+        }
+
+        billableElementsCounter.increment(elements);
+        rollOverUsagePeriod();
+        dailyUsage.addAndGet(elements);
+
+        if (response.getRows() != null) {
+            for (Row row : response.getRows()) {
+                if (row.getElements() == null) {
+                    continue;
+                }
+                for (Element element : row.getElements()) {
+                    if (element.getStatus() != null) {
+                        elementCounters.get(element.getStatus()).increment();
+                    }
+                }
+            }
+        }
+    }
+
+    private static String status(DistanceMatrixResponseEntity response, Throwable error) {
+        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+        if (cause instanceof DlappException
+            && GoogleMapsApiDistanceClientImpl.TOO_MANY_REQUESTS_ERROR_KEY.equals(((DlappException) cause).getErrorKey())) {
+            return TOO_MANY_REQUESTS_STATUS;
+        }
+        if (cause instanceof CancellationException) {
+            return CANCELLED_STATUS;
+        }
+        if (error != null) {
+            return ERROR_STATUS;
+        }
+        if (response == null || response.getStatus() == null) {
+            return EMPTY_STATUS;
+        }
+        return response.getStatus().name();
+    }
+
+    private void rollOverUsagePeriod() {
+        long periodStart = usagePeriodStart(clock.instant());
+        if (periodStart == usagePeriodStartMillis) {
+            return;
+        }
+        synchronized (this) {
+            if (periodStart != usagePeriodStartMillis) {
+                log.info("Google maps API : {} elements used during the last quota period", dailyUsage.get());
+                dailyUsage.set(0);
+                usagePeriodStartMillis = periodStart;
+            }
+        }
+    }
+
+    /**
+     * Start of the quota period containing the given instant: the last time the clock of the reset zone showed the
+     * reset hour.
+     */
+    private long usagePeriodStart(Instant now) {
+        ZonedDateTime zonedNow = now.atZone(resetZone);
+        ZonedDateTime reset = zonedNow.truncatedTo(ChronoUnit.DAYS).withHour(resetHour);
+        if (zonedNow.isBefore(reset)) {
+            reset = reset.minusDays(1);
+        }
+        return reset.toInstant().toEpochMilli();
+    }
+
+    private Timer requestTimer(String type, String status) {
+        return Timer.builder(REQUESTS_METRIC_NAME)
+            .description("Requests sent to the Google maps API, by response status")
+            .tag("type", type)
+            .tag("status", status)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,211 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.DlappException;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+
+/**
+ * Paces the requests sent to Google with an {@link AdaptiveRateLimiter}: the permitted rate is divided when Google
+ * answers OVER_QUERY_LIMIT, OVER_DAILY_LIMIT or HTTP 429, then increases step by step while requests go through.
+ * <p>
+ * Callers wait for a permit up to the configured maximum wait, and are rejected with a 503 beyond it.
+ */
+@Slf4j
+public class RateLimitingGoogleMapsRouteClient implements GoogleMapsRouteClient {
+
+    static final String RATE_METRIC_NAME = "google.maps.api.rate.limiter.rate";
+    static final String QUEUE_METRIC_NAME = "google.maps.api.rate.limiter.queue";
+    static final String THROTTLED_METRIC_NAME = "google.maps.api.rate.limiter.throttled";
+    static final String REJECTED_METRIC_NAME = "google.maps.api.rate.limiter.rejected";
+
+    private static final String RATE_LIMITED_ERROR_KEY = "googleApiRateLimited";
+
+    private final GoogleMapsRouteClient delegate;
+    private final AdaptiveRateLimiter rateLimiter;
+    private final TaskScheduler taskScheduler;
+    private final AtomicInteger queuedRequests = new AtomicInteger();
+    private final Counter throttledCounter;
+    private final Counter rejectedCounter;
+
+    public RateLimitingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                             ApplicationProperties.GoogleMapsApi.RateLimit rateLimitProperties,
+                                             TaskScheduler taskScheduler,
+                                             MeterRegistry meterRegistry) {
+        this(delegate, new AdaptiveRateLimiter(rateLimitProperties, System::nanoTime), taskScheduler, meterRegistry);
+    }
+
+    RateLimitingGoogleMapsRouteClient(GoogleMapsRouteClient delegate,
+                                      AdaptiveRateLimiter rateLimiter,
+                                      TaskScheduler taskScheduler,
+                                      MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.taskScheduler = taskScheduler;
+        Gauge.builder(RATE_METRIC_NAME, rateLimiter, AdaptiveRateLimiter::getRate)
+            .description("Google maps API requests per second currently permitted")
+            .register(meterRegistry);
+        Gauge.builder(QUEUE_METRIC_NAME, queuedRequests, AtomicInteger::get)
+            .description("Google maps API requests waiting for a permit")
+            .register(meterRegistry);
+        this.throttledCounter = Counter.builder(THROTTLED_METRIC_NAME)
+            .description("Google maps API requests throttled by Google")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REJECTED_METRIC_NAME)
+            .description("Google maps API requests rejected after waiting too long for a permit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceDetailsBetweenTwoCoordinates(GeoPoint origin, GeoPoint destination) {
+        return call(() -> delegate.getDistanceDetailsBetweenTwoCoordinates(origin, destination));
+    }
+
+    @Override
+    public CompletableFuture<DistanceMatrixResponseEntity> getDistanceDetailsBetweenTwoCoordinatesAsync(GeoPoint origin,
+                                                                                                        GeoPoint destination) {
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos < 0) {
+            CompletableFuture<DistanceMatrixResponseEntity> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(reject());
+            return rejected;
+        }
+
+        if (waitNanos == 0) {
+            return observe(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination));
+        }
+
+        // Waits on the scheduler rather than on a thread of the caller
+        CompletableFuture<DistanceMatrixResponseEntity> result = new CompletableFuture<>();
+        queuedRequests.incrementAndGet();
+        taskScheduler.schedule(() -> {
+            queuedRequests.decrementAndGet();
+            if (result.isDone()) {
+                return;
+            }
+            CompletableFuture<DistanceMatrixResponseEntity> request;
+            try {
+                request = observe(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination));
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            request.whenComplete((response, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, ex) -> {
+                if (ex instanceof CancellationException) {
+                    request.cancel(true);
+                }
+            });
+        }, Instant.now().plusNanos(waitNanos));
+        return result;
+    }
+
+    @Override
+    public DistanceMatrixResponseEntity getDistanceMatrix(List<GeoPoint> origins, List<GeoPoint> destinations) {
+        return call(() -> delegate.getDistanceMatrix(origins, destinations));
+    }
+
+    private DistanceMatrixResponseEntity call(Supplier<DistanceMatrixResponseEntity> request) {
+        acquire();
+
+        DistanceMatrixResponseEntity response;
+        try {
+            response = request.get();
+        } catch (RuntimeException ex) {
+            onFailure(ex);
+            throw ex;
+        }
+
+        onResponse(response);
+        return response;
+    }
+
+    /**
+     * Returns the request itself, not a dependent stage, so cancelling it still cancels the HTTP request.
+     */
+    private CompletableFuture<DistanceMatrixResponseEntity> observe(CompletableFuture<DistanceMatrixResponseEntity> request) {
+        request.whenComplete((response, ex) -> {
+            if (ex != null) {
+                onFailure(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            } else {
+                onResponse(response);
+            }
+        });
+        return request;
+    }
+
+    private void acquire() {
+        long waitNanos = rateLimiter.reserve();
+        if (waitNanos < 0) {
+            throw reject();
+        }
+        if (waitNanos == 0) {
+            return;
+        }
+
+        queuedRequests.incrementAndGet();
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for a Google maps API permit",
+                GOOGLE_API_ENTITY, RATE_LIMITED_ERROR_KEY);
+        } finally {
+            queuedRequests.decrementAndGet();
+        }
+    }
+
+    private ServiceUnavailableException reject() {
+        rejectedCounter.increment();
+        return new ServiceUnavailableException(String.format("Google maps API rate limit reached (%.1f requests per second), retry later",
+            rateLimiter.getRate()), GOOGLE_API_ENTITY, RATE_LIMITED_ERROR_KEY);
+    }
+
+    private void onResponse(DistanceMatrixResponseEntity response) {
+        if (response != null && (response.getStatus() == GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT
+            || response.getStatus() == GoogleApiTopLevelStatusEnum.OVER_DAILY_LIMIT)) {
+            throttled(response.getStatus().toString());
+        } else {
+            rateLimiter.onSuccess();
+        }
+    }
+
+    private void onFailure(Throwable ex) {
+        if (ex instanceof DlappException
+            && GoogleMapsApiDistanceClientImpl.TOO_MANY_REQUESTS_ERROR_KEY.equals(((DlappException) ex).getErrorKey())) {
+            throttled("HTTP 429");
+        }
+    }
+
+    private void throttled(String reason) {
+        throttledCounter.increment();
+        rateLimiter.backOff();
+        log.warn("Google maps API : throttled by Google ({}), permitted rate is now {} requests per second",
+            reason, rateLimiter.getRate());
+    }
+}
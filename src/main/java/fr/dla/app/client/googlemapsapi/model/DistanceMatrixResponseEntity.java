@@ -1,5 +1,6 @@
 package fr.dla.app.client.googlemapsapi.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -20,4 +21,10 @@ public class DistanceMatrixResponseEntity {
     private List<String> destination_addresses;
     private List<Row> rows;
     private GoogleApiTopLevelStatusEnum status;
+
+    /**
+     * Distances computed locally while Google is unavailable, never sent by Google.
+     */
+    @JsonIgnore
+    private boolean estimated;
 }
@@ -1,15 +1,115 @@
 package fr.dla.app.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class ApplicationConfiguration {
+
+    private static final String CONNECTION_POOL_METRIC_PREFIX = "google.maps.api.http.pool.";
+
+    private final ApplicationProperties applicationProperties;
+
+    public ApplicationConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
     @Bean
     @Qualifier("vanillaRestTemplate")
-    public RestTemplate vanillaRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate vanillaRestTemplate(@Qualifier("googleMapsApiHttpClient") CloseableHttpClient googleMapsApiHttpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(googleMapsApiHttpClient));
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager googleMapsApiConnectionManager() {
+        ApplicationProperties.GoogleMapsApi.Http http = applicationProperties.getGoogleMapsApi().getHttp();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(
+            http.getTimeToLive().toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(http.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(http.getMaxConnectionsPerRoute());
+        connectionManager.setValidateAfterInactivity((int) http.getValidateAfterInactivity().toMillis());
+        return connectionManager;
+    }
+
+    @Bean
+    @Qualifier("googleMapsApiHttpClient")
+    public CloseableHttpClient googleMapsApiHttpClient(PoolingHttpClientConnectionManager googleMapsApiConnectionManager) {
+        ApplicationProperties.GoogleMapsApi.Http http = applicationProperties.getGoogleMapsApi().getHttp();
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+            .setConnectionManager(googleMapsApiConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) http.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) http.getConnectionRequestTimeout().toMillis())
+                .build())
+            .evictExpiredConnections()
+            .evictIdleConnections(http.getMaxIdleTime().toMillis(), TimeUnit.MILLISECONDS);
+
+        if (!http.isCompression()) {
+            httpClientBuilder.disableContentCompression();
+        }
+
+        return httpClientBuilder.build();
+    }
+
+    @Bean(initMethod = "start")
+    @Qualifier("googleMapsApiAsyncHttpClient")
+    public CloseableHttpAsyncClient googleMapsApiAsyncHttpClient() throws IOReactorException {
+        ApplicationProperties.GoogleMapsApi googleMapsApi = applicationProperties.getGoogleMapsApi();
+        ApplicationProperties.GoogleMapsApi.Http http = googleMapsApi.getHttp();
+        ApplicationProperties.GoogleMapsApi.Async async = googleMapsApi.getAsync();
+
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+            new DefaultConnectingIOReactor(IOReactorConfig.custom()
+                .setIoThreadCount(async.getIoThreadCount())
+                .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                .setSoTimeout((int) http.getReadTimeout().toMillis())
+                .build()));
+        connectionManager.setMaxTotal(async.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(async.getMaxConnections());
+
+        return HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout((int) http.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) http.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) http.getConnectionRequestTimeout().toMillis())
+                .build())
+            .build();
+    }
+
+    @Bean
+    public MeterBinder googleMapsApiConnectionPoolMetrics(PoolingHttpClientConnectionManager googleMapsApiConnectionManager) {
+        return registry -> {
+            Gauge.builder(CONNECTION_POOL_METRIC_PREFIX + "leased", googleMapsApiConnectionManager, manager -> manager.getTotalStats().getLeased())
+                .description("Google maps API connections currently in use")
+                .register(registry);
+            Gauge.builder(CONNECTION_POOL_METRIC_PREFIX + "pending", googleMapsApiConnectionManager, manager -> manager.getTotalStats().getPending())
+                .description("Google maps API requests waiting for a connection")
+                .register(registry);
+            Gauge.builder(CONNECTION_POOL_METRIC_PREFIX + "available", googleMapsApiConnectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("Idle Google maps API connections kept alive in the pool")
+                .register(registry);
+            Gauge.builder(CONNECTION_POOL_METRIC_PREFIX + "max", googleMapsApiConnectionManager, manager -> manager.getTotalStats().getMax())
+                .description("Maximum number of Google maps API connections")
+                .register(registry);
+        };
     }
 }
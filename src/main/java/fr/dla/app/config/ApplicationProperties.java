@@ -2,6 +2,8 @@ package fr.dla.app.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+
 /**
  * Properties specific to Dlapp.
  * <p>
@@ -11,13 +13,46 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application")
 public class ApplicationProperties {
 
-    private GoogleMapsApi googleMapsApi;
+    private GoogleMapsApi googleMapsApi = new GoogleMapsApi();
+
+    private OrderIntake orderIntake = new OrderIntake();
+
+    private Idempotency idempotency = new Idempotency();
 
     public static class GoogleMapsApi {
         private String url;
 
         private String key;
 
+        /**
+         * Read only the statuses and distances of the responses instead of binding the whole document.
+         */
+        private boolean streamingParser = true;
+
+        private final Cache cache = new Cache();
+
+        private final Coalescing coalescing = new Coalescing();
+
+        private final Batching batching = new Batching();
+
+        private final Http http = new Http();
+
+        private final Async async = new Async();
+
+        private final RateLimit rateLimit = new RateLimit();
+
+        private final Hedging hedging = new Hedging();
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private final DatabaseCache databaseCache = new DatabaseCache();
+
+        private final Metrics metrics = new Metrics();
+
+        private final WarmUp warmUp = new WarmUp();
+
+        private final Bulkhead bulkhead = new Bulkhead();
+
         public String getUrl() {
             return url;
         }
@@ -33,6 +68,964 @@ public class ApplicationProperties {
         public void setKey(String key) {
             this.key = key;
         }
+
+        public boolean isStreamingParser() {
+            return streamingParser;
+        }
+
+        public void setStreamingParser(boolean streamingParser) {
+            this.streamingParser = streamingParser;
+        }
+
+        public Cache getCache() {
+            return cache;
+        }
+
+        public Coalescing getCoalescing() {
+            return coalescing;
+        }
+
+        public Batching getBatching() {
+            return batching;
+        }
+
+        public Http getHttp() {
+            return http;
+        }
+
+        public Async getAsync() {
+            return async;
+        }
+
+        public RateLimit getRateLimit() {
+            return rateLimit;
+        }
+
+        public Hedging getHedging() {
+            return hedging;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public DatabaseCache getDatabaseCache() {
+            return databaseCache;
+        }
+
+        public Metrics getMetrics() {
+            return metrics;
+        }
+
+        public WarmUp getWarmUp() {
+            return warmUp;
+        }
+
+        public Bulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        public static class Cache {
+            private boolean enabled = true;
+
+            /**
+             * Number of decimal places kept from the coordinates to build the cache key (5 is about one meter).
+             */
+            private int precision = 5;
+
+            private long maximumSize = 10_000;
+
+            private Duration timeToLive = Duration.ofHours(24);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getPrecision() {
+                return precision;
+            }
+
+            public void setPrecision(int precision) {
+                this.precision = precision;
+            }
+
+            public long getMaximumSize() {
+                return maximumSize;
+            }
+
+            public void setMaximumSize(long maximumSize) {
+                this.maximumSize = maximumSize;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+        }
+
+        public static class Coalescing {
+            private boolean enabled = true;
+
+            /**
+             * Number of decimal places kept from the coordinates to decide that two lookups are identical.
+             */
+            private int precision = 6;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getPrecision() {
+                return precision;
+            }
+
+            public void setPrecision(int precision) {
+                this.precision = precision;
+            }
+        }
+
+        public static class Batching {
+            private boolean enabled = false;
+
+            /**
+             * How long the first lookup of a batch waits for other lookups before the request is sent.
+             */
+            private Duration window = Duration.ofMillis(20);
+
+            /**
+             * Maximum number of elements (origins x destinations) billed by a batched request. A batch is a single row or
+             * a single column, so one element per distinct lookup, at most 25.
+             */
+            private int maxElements = 100;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getWindow() {
+                return window;
+            }
+
+            public void setWindow(Duration window) {
+                this.window = window;
+            }
+
+            public int getMaxElements() {
+                return maxElements;
+            }
+
+            public void setMaxElements(int maxElements) {
+                this.maxElements = maxElements;
+            }
+        }
+
+        public static class Http {
+            private int maxConnections = 50;
+
+            /**
+             * Google maps API has a single route, so this is the effective pool size.
+             */
+            private int maxConnectionsPerRoute = 20;
+
+            private Duration connectTimeout = Duration.ofSeconds(2);
+
+            private Duration readTimeout = Duration.ofSeconds(5);
+
+            /**
+             * Maximum wait for a free connection of the pool.
+             */
+            private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+            /**
+             * Idle connections are closed after this delay.
+             */
+            private Duration maxIdleTime = Duration.ofSeconds(30);
+
+            /**
+             * Connections are never reused after this delay, whatever their state.
+             */
+            private Duration timeToLive = Duration.ofMinutes(5);
+
+            /**
+             * Connections idle for longer are checked before being leased.
+             */
+            private Duration validateAfterInactivity = Duration.ofSeconds(2);
+
+            /**
+             * Ask for gzip/deflate encoded responses.
+             */
+            private boolean compression = true;
+
+            public int getMaxConnections() {
+                return maxConnections;
+            }
+
+            public void setMaxConnections(int maxConnections) {
+                this.maxConnections = maxConnections;
+            }
+
+            public int getMaxConnectionsPerRoute() {
+                return maxConnectionsPerRoute;
+            }
+
+            public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+                this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            }
+
+            public Duration getConnectTimeout() {
+                return connectTimeout;
+            }
+
+            public void setConnectTimeout(Duration connectTimeout) {
+                this.connectTimeout = connectTimeout;
+            }
+
+            public Duration getReadTimeout() {
+                return readTimeout;
+            }
+
+            public void setReadTimeout(Duration readTimeout) {
+                this.readTimeout = readTimeout;
+            }
+
+            public Duration getConnectionRequestTimeout() {
+                return connectionRequestTimeout;
+            }
+
+            public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+                this.connectionRequestTimeout = connectionRequestTimeout;
+            }
+
+            public Duration getMaxIdleTime() {
+                return maxIdleTime;
+            }
+
+            public void setMaxIdleTime(Duration maxIdleTime) {
+                this.maxIdleTime = maxIdleTime;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public Duration getValidateAfterInactivity() {
+                return validateAfterInactivity;
+            }
+
+            public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+                this.validateAfterInactivity = validateAfterInactivity;
+            }
+
+            public boolean isCompression() {
+                return compression;
+            }
+
+            public void setCompression(boolean compression) {
+                this.compression = compression;
+            }
+        }
+
+        public static class Async {
+            /**
+             * Resolve the distance of POST /orders without holding a servlet thread during the Google call.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Maximum number of concurrent connections of the non-blocking client, one per in-flight lookup.
+             */
+            private int maxConnections = 200;
+
+            private int ioThreadCount = 2;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxConnections() {
+                return maxConnections;
+            }
+
+            public void setMaxConnections(int maxConnections) {
+                this.maxConnections = maxConnections;
+            }
+
+            public int getIoThreadCount() {
+                return ioThreadCount;
+            }
+
+            public void setIoThreadCount(int ioThreadCount) {
+                this.ioThreadCount = ioThreadCount;
+            }
+        }
+
+        public static class RateLimit {
+            private boolean enabled = true;
+
+            /**
+             * Requests per second allowed at startup.
+             */
+            private double initialRate = 50;
+
+            private double minRate = 1;
+
+            private double maxRate = 100;
+
+            /**
+             * The rate is multiplied by this factor when Google throttles a request.
+             */
+            private double backOffFactor = 0.5;
+
+            /**
+             * Requests per second added back after each ramp up interval without throttling.
+             */
+            private double rampUpStep = 5;
+
+            private Duration rampUpInterval = Duration.ofSeconds(1);
+
+            /**
+             * Longest wait for a permit, requests are rejected with a 503 beyond it.
+             */
+            private Duration maxWait = Duration.ofSeconds(2);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getInitialRate() {
+                return initialRate;
+            }
+
+            public void setInitialRate(double initialRate) {
+                this.initialRate = initialRate;
+            }
+
+            public double getMinRate() {
+                return minRate;
+            }
+
+            public void setMinRate(double minRate) {
+                this.minRate = minRate;
+            }
+
+            public double getMaxRate() {
+                return maxRate;
+            }
+
+            public void setMaxRate(double maxRate) {
+                this.maxRate = maxRate;
+            }
+
+            public double getBackOffFactor() {
+                return backOffFactor;
+            }
+
+            public void setBackOffFactor(double backOffFactor) {
+                this.backOffFactor = backOffFactor;
+            }
+
+            public double getRampUpStep() {
+                return rampUpStep;
+            }
+
+            public void setRampUpStep(double rampUpStep) {
+                this.rampUpStep = rampUpStep;
+            }
+
+            public Duration getRampUpInterval() {
+                return rampUpInterval;
+            }
+
+            public void setRampUpInterval(Duration rampUpInterval) {
+                this.rampUpInterval = rampUpInterval;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+        }
+
+        public static class Hedging {
+            private boolean enabled = false;
+
+            /**
+             * Percentile of the recent response times after which a lookup is sent a second time.
+             */
+            private double percentile = 0.95;
+
+            /**
+             * Number of recent response times the percentile is computed on.
+             */
+            private int windowSize = 1000;
+
+            /**
+             * Delay used until enough response times are recorded.
+             */
+            private Duration initialDelay = Duration.ofMillis(500);
+
+            private Duration minDelay = Duration.ofMillis(50);
+
+            /**
+             * Maximum share of the lookups that can be hedged, which bounds the extra quota use.
+             */
+            private double maxRatio = 0.05;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public double getPercentile() {
+                return percentile;
+            }
+
+            public void setPercentile(double percentile) {
+                this.percentile = percentile;
+            }
+
+            public int getWindowSize() {
+                return windowSize;
+            }
+
+            public void setWindowSize(int windowSize) {
+                this.windowSize = windowSize;
+            }
+
+            public Duration getInitialDelay() {
+                return initialDelay;
+            }
+
+            public void setInitialDelay(Duration initialDelay) {
+                this.initialDelay = initialDelay;
+            }
+
+            public Duration getMinDelay() {
+                return minDelay;
+            }
+
+            public void setMinDelay(Duration minDelay) {
+                this.minDelay = minDelay;
+            }
+
+            public double getMaxRatio() {
+                return maxRatio;
+            }
+
+            public void setMaxRatio(double maxRatio) {
+                this.maxRatio = maxRatio;
+            }
+        }
+
+        public static class CircuitBreaker {
+            private boolean enabled = true;
+
+            /**
+             * Number of last calls the failure and slow call rates are computed on.
+             */
+            private int windowSize = 50;
+
+            /**
+             * Calls recorded before the breaker can open.
+             */
+            private int minimumCalls = 20;
+
+            /**
+             * Percentage of failed calls opening the breaker.
+             */
+            private double failureRateThreshold = 50;
+
+            /**
+             * Percentage of slow calls opening the breaker.
+             */
+            private double slowCallRateThreshold = 80;
+
+            private Duration slowCallDuration = Duration.ofSeconds(2);
+
+            /**
+             * How long the breaker stays open before trial calls are let through.
+             */
+            private Duration openDuration = Duration.ofSeconds(30);
+
+            /**
+             * Number of trial calls that must succeed to close the breaker.
+             */
+            private int halfOpenCalls = 5;
+
+            /**
+             * Multiplier applied to the great-circle distance to estimate the road distance while the breaker is open.
+             */
+            private double roadFactor = 1.3;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getWindowSize() {
+                return windowSize;
+            }
+
+            public void setWindowSize(int windowSize) {
+                this.windowSize = windowSize;
+            }
+
+            public int getMinimumCalls() {
+                return minimumCalls;
+            }
+
+            public void setMinimumCalls(int minimumCalls) {
+                this.minimumCalls = minimumCalls;
+            }
+
+            public double getFailureRateThreshold() {
+                return failureRateThreshold;
+            }
+
+            public void setFailureRateThreshold(double failureRateThreshold) {
+                this.failureRateThreshold = failureRateThreshold;
+            }
+
+            public double getSlowCallRateThreshold() {
+                return slowCallRateThreshold;
+            }
+
+            public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+                this.slowCallRateThreshold = slowCallRateThreshold;
+            }
+
+            public Duration getSlowCallDuration() {
+                return slowCallDuration;
+            }
+
+            public void setSlowCallDuration(Duration slowCallDuration) {
+                this.slowCallDuration = slowCallDuration;
+            }
+
+            public Duration getOpenDuration() {
+                return openDuration;
+            }
+
+            public void setOpenDuration(Duration openDuration) {
+                this.openDuration = openDuration;
+            }
+
+            public int getHalfOpenCalls() {
+                return halfOpenCalls;
+            }
+
+            public void setHalfOpenCalls(int halfOpenCalls) {
+                this.halfOpenCalls = halfOpenCalls;
+            }
+
+            public double getRoadFactor() {
+                return roadFactor;
+            }
+
+            public void setRoadFactor(double roadFactor) {
+                this.roadFactor = roadFactor;
+            }
+        }
+
+        public static class DatabaseCache {
+            /**
+             * Share the distances between the instances through the database.
+             */
+            private boolean enabled = false;
+
+            /**
+             * Number of decimal places kept from the coordinates to build the stored key.
+             */
+            private int precision = 5;
+
+            private Duration timeToLive = Duration.ofDays(30);
+
+            /**
+             * When the expired distances are deleted.
+             */
+            private String purgeCron = "0 0 * * * ?";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getPrecision() {
+                return precision;
+            }
+
+            public void setPrecision(int precision) {
+                this.precision = precision;
+            }
+
+            public Duration getTimeToLive() {
+                return timeToLive;
+            }
+
+            public void setTimeToLive(Duration timeToLive) {
+                this.timeToLive = timeToLive;
+            }
+
+            public String getPurgeCron() {
+                return purgeCron;
+            }
+
+            public void setPurgeCron(String purgeCron) {
+                this.purgeCron = purgeCron;
+            }
+        }
+
+        public static class Metrics {
+            private boolean enabled = true;
+
+            /**
+             * Elements allowed per day by the Google quota, published next to the daily usage when greater than 0.
+             */
+            private long dailyQuota = 0;
+
+            /**
+             * Hour of the day, in the reset zone, at which Google resets the daily quota.
+             */
+            private int resetHour = 0;
+
+            /**
+             * Google resets the quotas at midnight Pacific Time.
+             */
+            private String resetZone = "America/Los_Angeles";
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public long getDailyQuota() {
+                return dailyQuota;
+            }
+
+            public void setDailyQuota(long dailyQuota) {
+                this.dailyQuota = dailyQuota;
+            }
+
+            public int getResetHour() {
+                return resetHour;
+            }
+
+            public void setResetHour(int resetHour) {
+                this.resetHour = resetHour;
+            }
+
+            public String getResetZone() {
+                return resetZone;
+            }
+
+            public void setResetZone(String resetZone) {
+                this.resetZone = resetZone;
+            }
+        }
+
+        public static class WarmUp {
+            /**
+             * Resolve the most frequent recent routes at startup, the instance reports out of service meanwhile.
+             */
+            private boolean enabled = false;
+
+            /**
+             * How far back the orders are read.
+             */
+            private Duration history = Duration.ofDays(7);
+
+            private int maxRoutes = 500;
+
+            /**
+             * Lookups per second.
+             */
+            private double rate = 10;
+
+            /**
+             * Share of the daily quota the warm-up may use, when the daily quota is configured.
+             */
+            private double quotaShare = 0.02;
+
+            /**
+             * The instance reports ready after this delay even if the warm-up is not done.
+             */
+            private Duration timeout = Duration.ofMinutes(2);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public Duration getHistory() {
+                return history;
+            }
+
+            public void setHistory(Duration history) {
+                this.history = history;
+            }
+
+            public int getMaxRoutes() {
+                return maxRoutes;
+            }
+
+            public void setMaxRoutes(int maxRoutes) {
+                this.maxRoutes = maxRoutes;
+            }
+
+            public double getRate() {
+                return rate;
+            }
+
+            public void setRate(double rate) {
+                this.rate = rate;
+            }
+
+            public double getQuotaShare() {
+                return quotaShare;
+            }
+
+            public void setQuotaShare(double quotaShare) {
+                this.quotaShare = quotaShare;
+            }
+
+            public Duration getTimeout() {
+                return timeout;
+            }
+
+            public void setTimeout(Duration timeout) {
+                this.timeout = timeout;
+            }
+        }
+
+        public static class Bulkhead {
+            private boolean enabled = true;
+
+            /**
+             * Google maps API lookups in progress at the same time, keep it well below the web worker count.
+             */
+            private int maxConcurrentCalls = 20;
+
+            /**
+             * How long a lookup waits for a free slot before being rejected with a 503.
+             */
+            private Duration maxWait = Duration.ofMillis(500);
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaxConcurrentCalls() {
+                return maxConcurrentCalls;
+            }
+
+            public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+                this.maxConcurrentCalls = maxConcurrentCalls;
+            }
+
+            public Duration getMaxWait() {
+                return maxWait;
+            }
+
+            public void setMaxWait(Duration maxWait) {
+                this.maxWait = maxWait;
+            }
+        }
+    }
+
+    public static class OrderIntake {
+        /**
+         * Accept the orders sent with {@code Prefer: respond-async} as pending and resolve their distance in background.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Pending orders waiting for a worker on an instance, beyond which the asynchronous orders are rejected.
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * Pending orders older than this, left by a restart or a failed lookup, are queued again by the sweep.
+         */
+        private Duration retryAfter = Duration.ofMinutes(1);
+
+        /**
+         * Pending orders older than this are marked as failed.
+         */
+        private Duration maxAge = Duration.ofHours(1);
+
+        /**
+         * Delay between two sweeps, as an ISO-8601 duration.
+         */
+        private Duration sweepInterval = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Duration getRetryAfter() {
+            return retryAfter;
+        }
+
+        public void setRetryAfter(Duration retryAfter) {
+            this.retryAfter = retryAfter;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public Duration getSweepInterval() {
+            return sweepInterval;
+        }
+
+        public void setSweepInterval(Duration sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+    }
+
+    public static class Idempotency {
+        /**
+         * Where the Idempotency-Key of the order creations are kept: memory, or database to share them between
+         * instances.
+         */
+        private String store = "memory";
+
+        private Duration timeToLive = Duration.ofHours(24);
+
+        /**
+         * Keys kept by the memory store.
+         */
+        private long maximumSize = 100000;
+
+        /**
+         * How long a request waits for the first request of its key before a 409.
+         */
+        private Duration waitTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Lease of a claim of the database store: a claim still without order after it is presumed abandoned by a dead
+         * instance and taken over. Keep it well above the longest order creation, retries and hedges included, or a
+         * retry would create a second order while the first one is still running.
+         */
+        private Duration claimLease = Duration.ofMinutes(5);
+
+        /**
+         * When the database store deletes the expired keys.
+         */
+        private String purgeCron = "0 0 * * * ?";
+
+        public String getStore() {
+            return store;
+        }
+
+        public void setStore(String store) {
+            this.store = store;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public Duration getClaimLease() {
+            return claimLease;
+        }
+
+        public void setClaimLease(Duration claimLease) {
+            this.claimLease = claimLease;
+        }
+
+        public String getPurgeCron() {
+            return purgeCron;
+        }
+
+        public void setPurgeCron(String purgeCron) {
+            this.purgeCron = purgeCron;
+        }
     }
 
     public GoogleMapsApi getGoogleMapsApi() {
@@ -42,4 +1035,20 @@ public class ApplicationProperties {
     public void setGoogleMapsApi(GoogleMapsApi googleMapsApi) {
         this.googleMapsApi = googleMapsApi;
     }
+
+    public OrderIntake getOrderIntake() {
+        return orderIntake;
+    }
+
+    public void setOrderIntake(OrderIntake orderIntake) {
+        this.orderIntake = orderIntake;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public void setIdempotency(Idempotency idempotency) {
+        this.idempotency = idempotency;
+    }
 }
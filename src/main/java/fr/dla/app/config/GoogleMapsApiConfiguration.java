@@ -0,0 +1,126 @@
+package fr.dla.app.config;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.BatchingGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.BulkheadGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.CachingGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.CircuitBreakerGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.CoalescingGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.DatabaseCachingGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.GoogleMapsApiDistanceClientImpl;
+import fr.dla.app.client.googlemapsapi.impl.HedgingGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.MetricsGoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.impl.RateLimitingGoogleMapsRouteClient;
+import fr.dla.app.service.DistanceCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Builds the {@link GoogleMapsRouteClient} used by the services, wrapping the HTTP client with the enabled features.
+ */
+@Configuration
+public class GoogleMapsApiConfiguration {
+
+    private static final int REQUEST_QUEUE_CAPACITY = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(GoogleMapsApiConfiguration.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    public GoogleMapsApiConfiguration(ApplicationProperties applicationProperties) {
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Bean
+    @Primary
+    public GoogleMapsRouteClient googleMapsRouteClient(GoogleMapsApiDistanceClientImpl googleMapsApiDistanceClient,
+                                                       ObjectProvider<DistanceCacheService> distanceCacheService,
+                                                       TaskScheduler taskScheduler,
+                                                       @Qualifier("taskExecutor") Executor taskExecutor,
+                                                       MeterRegistry meterRegistry) {
+        ApplicationProperties.GoogleMapsApi googleMapsApi = applicationProperties.getGoogleMapsApi();
+        GoogleMapsRouteClient client = googleMapsApiDistanceClient;
+
+        if (googleMapsApi.getMetrics().isEnabled()) {
+            log.debug("Enabling Google maps API request metrics");
+            client = new MetricsGoogleMapsRouteClient(client, googleMapsApi.getMetrics(), meterRegistry);
+        }
+
+        if (googleMapsApi.getRateLimit().isEnabled()) {
+            log.debug("Enabling Google maps API adaptive rate limiter");
+            client = new RateLimitingGoogleMapsRouteClient(client, googleMapsApi.getRateLimit(), taskScheduler, meterRegistry);
+        }
+
+        if (googleMapsApi.getHedging().isEnabled()) {
+            log.debug("Enabling Google maps API request hedging");
+            client = new HedgingGoogleMapsRouteClient(client, googleMapsApi.getHedging(), taskScheduler, meterRegistry);
+        }
+
+        if (googleMapsApi.getBatching().isEnabled()) {
+            log.debug("Enabling Google maps API request batching");
+            client = new BatchingGoogleMapsRouteClient(client, googleMapsApi.getBatching(), meterRegistry);
+        }
+
+        if (googleMapsApi.getCoalescing().isEnabled()) {
+            log.debug("Enabling Google maps API in-flight request coalescing");
+            client = new CoalescingGoogleMapsRouteClient(client, googleMapsApi.getCoalescing(), meterRegistry);
+        }
+
+        if (googleMapsApi.getCircuitBreaker().isEnabled()) {
+            log.debug("Enabling Google maps API circuit breaker");
+            client = new CircuitBreakerGoogleMapsRouteClient(client, googleMapsApi.getCircuitBreaker(), meterRegistry);
+        }
+
+        if (googleMapsApi.getBulkhead().isEnabled()) {
+            log.debug("Enabling Google maps API bulkhead");
+            client = new BulkheadGoogleMapsRouteClient(client, googleMapsApi.getBulkhead(), meterRegistry);
+        }
+
+        if (googleMapsApi.getDatabaseCache().isEnabled()) {
+            log.debug("Enabling Google maps API database distance cache");
+            client = new DatabaseCachingGoogleMapsRouteClient(client, googleMapsApi.getDatabaseCache(),
+                distanceCacheService.getObject(), taskExecutor, meterRegistry);
+        }
+
+        if (googleMapsApi.getCache().isEnabled()) {
+            log.debug("Enabling Google maps API distance cache");
+            client = new CachingGoogleMapsRouteClient(client, googleMapsApi.getCache(), meterRegistry);
+        }
+
+        return client;
+    }
+
+    /**
+     * Threads sending the Distance Matrix requests of the bulk order creations, as many as the bulkhead lets through at
+     * once, within the connections of the pool. The task executor would send them 2 at a time, its core size, and hold
+     * back the other asynchronous tasks meanwhile. Once its queue is full, the request thread sends the requests itself.
+     */
+    @Bean(name = "googleMapsApiRequestExecutor")
+    public Executor googleMapsApiRequestExecutor() {
+        ApplicationProperties.GoogleMapsApi googleMapsApi = applicationProperties.getGoogleMapsApi();
+        int threads = googleMapsApi.getHttp().getMaxConnectionsPerRoute();
+        if (googleMapsApi.getBulkhead().isEnabled()) {
+            threads = Math.min(threads, googleMapsApi.getBulkhead().getMaxConcurrentCalls());
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(REQUEST_QUEUE_CAPACITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("google-maps-api-");
+        return executor;
+    }
+}
@@ -0,0 +1,36 @@
+package fr.dla.app.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Outcome of one order of a bulk creation, in the order of the request.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkOrderResult {
+    private int index;
+    private ResponseStatusEnum status;
+    /**
+     * Created order, null on failure.
+     */
+    private Order order;
+    /**
+     * Why the order was not created, null on success.
+     */
+    private String error;
+
+    public static BulkOrderResult success(int index, Order order) {
+        return new BulkOrderResult(index, ResponseStatusEnum.SUCCESS, order, null);
+    }
+
+    public static BulkOrderResult failure(int index, String error) {
+        return new BulkOrderResult(index, ResponseStatusEnum.FAILURE, null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package fr.dla.app.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Outcome of one order of a bulk take, in the order of the request.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkTakeOrderResult {
+    private int id;
+    private TakeOrderOutcomeEnum outcome;
+}
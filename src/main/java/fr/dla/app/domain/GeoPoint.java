@@ -0,0 +1,209 @@
+package fr.dla.app.domain;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Immutable latitude/longitude pair, stored as fixed-point degrees with 7 decimal places (about 1 cm, the precision
+ * Google maps API works with) packed into a single long: latitude in the high 32 bits, longitude in the low 32 bits.
+ * <p>
+ * In JSON, a point is the {@code [latitude, longitude]} array the API has always accepted, with numbers or numeric
+ * strings.
+ */
+@JsonSerialize(using = GeoPoint.Serializer.class)
+@JsonDeserialize(using = GeoPoint.Deserializer.class)
+public final class GeoPoint {
+
+    public static final int DECIMAL_PLACES = 7;
+
+    private static final int SCALE = 10_000_000;
+    private static final double MAX_LATITUDE = 90;
+    private static final double MAX_LONGITUDE = 180;
+
+    private final long packed;
+
+    private GeoPoint(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * @param latitude  latitude in degrees, between -90 and 90
+     * @param longitude longitude in degrees, between -180 and 180
+     * @throws IllegalArgumentException if a coordinate is out of range or not a number
+     */
+    public static GeoPoint of(double latitude, double longitude) {
+        if (!(Math.abs(latitude) <= MAX_LATITUDE)) {
+            throw new IllegalArgumentException("Latitude must be between -90 and 90, got " + latitude);
+        }
+        if (!(Math.abs(longitude) <= MAX_LONGITUDE)) {
+            throw new IllegalArgumentException("Longitude must be between -180 and 180, got " + longitude);
+        }
+        return new GeoPoint(pack((int) Math.round(latitude * SCALE), (int) Math.round(longitude * SCALE)));
+    }
+
+    /**
+     * Rebuild a point from {@link #toPackedLong()}.
+     */
+    public static GeoPoint fromPackedLong(long packed) {
+        return new GeoPoint(packed);
+    }
+
+    private static long pack(int latitudeE7, int longitudeE7) {
+        return ((long) latitudeE7 << 32) | (longitudeE7 & 0xFFFFFFFFL);
+    }
+
+    public double getLatitude() {
+        return (double) getLatitudeE7() / SCALE;
+    }
+
+    public double getLongitude() {
+        return (double) getLongitudeE7() / SCALE;
+    }
+
+    /**
+     * @return the latitude in ten-millionths of a degree
+     */
+    public int getLatitudeE7() {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * @return the longitude in ten-millionths of a degree
+     */
+    public int getLongitudeE7() {
+        return (int) packed;
+    }
+
+    public long toPackedLong() {
+        return packed;
+    }
+
+    /**
+     * Append {@code latitude,longitude} in decimal degrees without trailing zeros, the format Google expects.
+     */
+    public StringBuilder appendTo(StringBuilder builder) {
+        appendDegrees(builder, getLatitudeE7());
+        builder.append(',');
+        appendDegrees(builder, getLongitudeE7());
+        return builder;
+    }
+
+    private static void appendDegrees(StringBuilder builder, int e7) {
+        long value = e7;
+        if (value < 0) {
+            builder.append('-');
+            value = -value;
+        }
+        builder.append(value / SCALE);
+
+        long fraction = value % SCALE;
+        if (fraction == 0) {
+            return;
+        }
+        builder.append('.');
+        for (long divisor = SCALE / 10; fraction != 0; divisor /= 10) {
+            builder.append((char) ('0' + fraction / divisor));
+            fraction %= divisor;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return packed == ((GeoPoint) o).packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Writes a point as a {@code [latitude, longitude]} array of numbers.
+     */
+    static final class Serializer extends StdSerializer<GeoPoint> {
+
+        private static final long serialVersionUID = 1L;
+
+        Serializer() {
+            super(GeoPoint.class);
+        }
+
+        @Override
+        public void serialize(GeoPoint value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartArray();
+            generator.writeNumber(value.getLatitude());
+            generator.writeNumber(value.getLongitude());
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Reads a {@code [latitude, longitude]} array of numbers or numeric strings, straight into primitives.
+     */
+    static final class Deserializer extends StdDeserializer<GeoPoint> {
+
+        private static final long serialVersionUID = 1L;
+
+        Deserializer() {
+            super(GeoPoint.class);
+        }
+
+        @Override
+        public GeoPoint deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                return (GeoPoint) context.handleUnexpectedToken(GeoPoint.class, parser.currentToken(), parser,
+                    "coordinates must be a [latitude, longitude] array");
+            }
+
+            double latitude = readCoordinate(parser, context);
+            double longitude = readCoordinate(parser, context);
+            if (parser.nextToken() != JsonToken.END_ARRAY) {
+                return (GeoPoint) context.handleUnexpectedToken(GeoPoint.class, parser.currentToken(), parser,
+                    "coordinates must be a [latitude, longitude] array");
+            }
+
+            try {
+                return GeoPoint.of(latitude, longitude);
+            } catch (IllegalArgumentException ex) {
+                return context.reportInputMismatch(GeoPoint.class, ex.getMessage());
+            }
+        }
+
+        private static double readCoordinate(JsonParser parser, DeserializationContext context) throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                return parser.getDoubleValue();
+            }
+            if (token == JsonToken.VALUE_STRING) {
+                String text = parser.getText().trim();
+                try {
+                    return Double.parseDouble(text);
+                } catch (NumberFormatException ex) {
+                    return (Double) context.handleWeirdStringValue(Double.class, text, "coordinate must be a number");
+                }
+            }
+            return (Double) context.handleUnexpectedToken(Double.class, token, parser,
+                "coordinates must be a [latitude, longitude] array");
+        }
+    }
+}
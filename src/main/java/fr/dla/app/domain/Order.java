@@ -1,5 +1,6 @@
 package fr.dla.app.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -15,4 +16,12 @@ public class Order {
     private Integer id;
     private Integer distance;
     private OrderStatusEnum status;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String failureReason;
+
+    public Order(Integer id, Integer distance, OrderStatusEnum status) {
+        this.id = id;
+        this.distance = distance;
+        this.status = status;
+    }
 }
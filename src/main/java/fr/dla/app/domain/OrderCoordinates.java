@@ -4,10 +4,7 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
-import java.util.List;
 
 @Getter
 @Setter
@@ -15,10 +12,8 @@ import java.util.List;
 public class OrderCoordinates {
 
     @NotNull
-    @Size(min = 2, max = 2)
-    private List<@NotBlank String> origin;
+    private GeoPoint origin;
 
     @NotNull
-    @Size(min = 2, max = 2)
-    private List<@NotBlank String> destination;
+    private GeoPoint destination;
 }
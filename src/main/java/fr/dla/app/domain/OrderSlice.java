@@ -0,0 +1,21 @@
+package fr.dla.app.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Orders of a listing page, with the cursor of the next page.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderSlice {
+    private final List<Order> orders;
+    /**
+     * Continuation token of the next page, null on the last page.
+     */
+    private final String nextCursor;
+}
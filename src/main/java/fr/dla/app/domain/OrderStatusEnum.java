@@ -2,5 +2,13 @@ package fr.dla.app.domain;
 
 public enum OrderStatusEnum {
     UNASSIGNED,
-    TAKEN
+    TAKEN,
+    /**
+     * Accepted asynchronously, distance not resolved yet.
+     */
+    PENDING,
+    /**
+     * Accepted asynchronously, the distance could not be resolved.
+     */
+    FAILED
 }
@@ -0,0 +1,31 @@
+package fr.dla.app.domain;
+
+import fr.dla.app.service.OrderService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Status to set on several orders at once.
+ */
+@Getter
+@Setter
+@ToString
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrdersStatus {
+    @NotEmpty
+    @Size(max = OrderService.MAX_BULK_ORDERS)
+    private List<@NotNull Integer> ids;
+
+    @NotBlank
+    private String status;
+}
@@ -1,5 +1,6 @@
 package fr.dla.app.domain;
 
 public enum ResponseStatusEnum {
-    SUCCESS
+    SUCCESS,
+    FAILURE
 }
@@ -0,0 +1,14 @@
+package fr.dla.app.domain;
+
+/**
+ * Outcome of one order of a bulk take.
+ */
+public enum TakeOrderOutcomeEnum {
+    TAKEN,
+    ALREADY_TAKEN,
+    /**
+     * Order neither unassigned nor taken, such as an order still pending or failed.
+     */
+    NOT_AVAILABLE,
+    NOT_FOUND
+}
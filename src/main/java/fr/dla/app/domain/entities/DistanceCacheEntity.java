@@ -0,0 +1,46 @@
+package fr.dla.app.domain.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Distance of a route resolved by Google maps API, shared by all the instances of the application.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+@Table(name = "distance_cache", indexes = {
+    @Index(name = "ux_distance_cache_route_key", columnList = "route_key", unique = true),
+    @Index(name = "idx_distance_cache_created_date", columnList = "created_date")
+})
+public class DistanceCacheEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "route_key", length = 100, nullable = false)
+    private String routeKey;
+
+    @Column(nullable = false)
+    private Integer distance;
+
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    public DistanceCacheEntity(String routeKey) {
+        this.routeKey = routeKey;
+    }
+}
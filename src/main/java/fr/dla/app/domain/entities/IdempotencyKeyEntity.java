@@ -0,0 +1,52 @@
+package fr.dla.app.domain.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.time.Instant;
+
+/**
+ * Idempotency-Key of an order creation, shared by all the instances of the application.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+@Table(name = "idempotency_key", indexes = @Index(name = "idx_idempotency_key_created_date", columnList = "created_date"))
+public class IdempotencyKeyEntity {
+    @Id
+    @Column(length = 255)
+    private String idempotencyKey;
+
+    @Column(length = 100, nullable = false)
+    private String fingerprint;
+
+    /**
+     * Order created for the key, null while the first request is in progress.
+     */
+    private Integer orderId;
+
+    @Column(name = "created_date", nullable = false)
+    private Instant createdDate;
+
+    /**
+     * Null until inserted, so that claiming a key is always an insert.
+     */
+    @Version
+    private Long version;
+
+    public IdempotencyKeyEntity(String idempotencyKey, String fingerprint, Instant createdDate) {
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.createdDate = createdDate;
+    }
+}
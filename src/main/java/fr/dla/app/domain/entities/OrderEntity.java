@@ -6,13 +6,18 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.TableGenerator;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import javax.persistence.Version;
-
+import java.time.Instant;
 
 @Getter
 @Setter
@@ -20,15 +25,56 @@ import javax.persistence.Version;
 @NoArgsConstructor
 @ToString
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_order_entity_created_date", columnList = "created_date"),
+    @Index(name = "idx_order_entity_status_distance", columnList = "status, distance")
+})
 public class OrderEntity {
+    /**
+     * Ids are reserved by blocks of 50 from the id_generator table (a sequence MySQL does not have), so that the inserts
+     * can be batched: each node hands out the ids of its current block in increasing order. OrderIdGeneratorInitializer
+     * makes them continue after the existing orders on startup.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "order_entity_id")
+    @GenericGenerator(name = "order_entity_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+        @Parameter(name = TableGenerator.TABLE_PARAM, value = "id_generator"),
+        @Parameter(name = TableGenerator.SEGMENT_COLUMN_PARAM, value = "sequence_name"),
+        @Parameter(name = TableGenerator.VALUE_COLUMN_PARAM, value = "next_val"),
+        @Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = "order_entity"),
+        @Parameter(name = TableGenerator.INCREMENT_PARAM, value = "50"),
+        @Parameter(name = TableGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Integer id;
 
     private Integer distance;
 
     private OrderStatusEnum status;
 
+    /**
+     * The distance was estimated locally because Google maps API was unavailable.
+     */
+    private boolean estimatedDistance;
+
+    /**
+     * Coordinates the distance was requested for, null for the orders created before they were recorded.
+     */
+    private Double originLatitude;
+
+    private Double originLongitude;
+
+    private Double destinationLatitude;
+
+    private Double destinationLongitude;
+
+    /**
+     * Why the distance of an order accepted asynchronously could not be resolved.
+     */
+    private String failureReason;
+
+    @Column(name = "created_date")
+    private Instant createdDate;
+
     @Version
     private Long version = 0L;
 
@@ -0,0 +1,26 @@
+package fr.dla.app.repository;
+
+import fr.dla.app.domain.entities.DistanceCacheEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Spring Data  repository for the DistanceCache entity.
+ */
+@Repository
+public interface DistanceCacheEntityRepository extends JpaRepository<DistanceCacheEntity, Long> {
+
+    Optional<DistanceCacheEntity> findByRouteKey(String routeKey);
+
+    Optional<DistanceCacheEntity> findByRouteKeyAndCreatedDateAfter(String routeKey, Instant minCreatedDate);
+
+    @Modifying
+    @Query("delete from DistanceCacheEntity distanceCache where distanceCache.createdDate < :maxCreatedDate")
+    int deleteByCreatedDateBefore(@Param("maxCreatedDate") Instant maxCreatedDate);
+}
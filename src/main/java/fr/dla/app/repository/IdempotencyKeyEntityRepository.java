@@ -0,0 +1,57 @@
+package fr.dla.app.repository;
+
+import fr.dla.app.domain.entities.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Spring Data  repository for the IdempotencyKey entity.
+ */
+@Repository
+public interface IdempotencyKeyEntityRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity idempotency where idempotency.createdDate < :maxCreatedDate")
+    int deleteByCreatedDateBefore(@Param("maxCreatedDate") Instant maxCreatedDate);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity idempotency "
+        + "where idempotency.idempotencyKey = :idempotencyKey and idempotency.createdDate < :maxCreatedDate")
+    int deleteExpired(@Param("idempotencyKey") String idempotencyKey, @Param("maxCreatedDate") Instant maxCreatedDate);
+
+    /**
+     * Delete the claim of a key still in progress since before the given date, its instance being presumed dead.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity idempotency where idempotency.idempotencyKey = :idempotencyKey "
+        + "and idempotency.orderId is null and idempotency.createdDate < :maxCreatedDate")
+    int deleteAbandoned(@Param("idempotencyKey") String idempotencyKey, @Param("maxCreatedDate") Instant maxCreatedDate);
+
+    /**
+     * Record the order of a claim, unless the claim was taken over.
+     */
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyKeyEntity idempotency set idempotency.orderId = :orderId "
+        + "where idempotency.idempotencyKey = :idempotencyKey and idempotency.createdDate = :createdDate and idempotency.orderId is null")
+    int recordOrder(@Param("idempotencyKey") String idempotencyKey, @Param("createdDate") Instant createdDate,
+                    @Param("orderId") Integer orderId);
+
+    /**
+     * Release a claim whose creation failed, unless the claim was taken over.
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyKeyEntity idempotency where idempotency.idempotencyKey = :idempotencyKey "
+        + "and idempotency.createdDate = :createdDate and idempotency.orderId is null")
+    int deleteClaim(@Param("idempotencyKey") String idempotencyKey, @Param("createdDate") Instant createdDate);
+}
@@ -1,10 +1,25 @@
 package fr.dla.app.repository;
 
 
+import fr.dla.app.domain.OrderStatusEnum;
 import fr.dla.app.domain.entities.OrderEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data  repository for the Order entity.
@@ -12,4 +27,120 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface OrderEntityRepository extends JpaRepository<OrderEntity, Integer> {
 
+    /**
+     * Routes of the orders created since the given date, the most frequent first.
+     */
+    @Query("select orderEntity.originLatitude as originLatitude, orderEntity.originLongitude as originLongitude, "
+        + "orderEntity.destinationLatitude as destinationLatitude, orderEntity.destinationLongitude as destinationLongitude, "
+        + "count(orderEntity) as orders "
+        + "from OrderEntity orderEntity "
+        + "where orderEntity.createdDate > :minCreatedDate and orderEntity.originLatitude is not null "
+        + "and orderEntity.originLongitude is not null and orderEntity.destinationLatitude is not null "
+        + "and orderEntity.destinationLongitude is not null "
+        + "group by orderEntity.originLatitude, orderEntity.originLongitude, orderEntity.destinationLatitude, orderEntity.destinationLongitude "
+        + "order by count(orderEntity) desc")
+    List<RouteFrequency> findMostFrequentRoutes(@Param("minCreatedDate") Instant minCreatedDate, Pageable pageable);
+
+    /**
+     * Orders in the given statuses of a page, without counting all the orders: the slice only knows whether there is a
+     * next one.
+     */
+    Slice<OrderEntity> findAllByStatusIn(Collection<OrderStatusEnum> statuses, Pageable pageable);
+
+    /**
+     * Orders in the given statuses after the given id (keyset pagination): the primary key index seeks the first row,
+     * whatever the depth.
+     */
+    Slice<OrderEntity> findAllByIdGreaterThanAndStatusIn(Integer id, Collection<OrderStatusEnum> statuses, Pageable pageable);
+
+    long countByStatus(OrderStatusEnum status);
+
+    /**
+     * Ids of the orders in the given status created before the given date, the oldest first.
+     */
+    @Query("select orderEntity.id from OrderEntity orderEntity "
+        + "where orderEntity.status = :status and orderEntity.createdDate < :maxCreatedDate order by orderEntity.id")
+    List<Integer> findIdsByStatusCreatedBefore(@Param("status") OrderStatusEnum status,
+                                               @Param("maxCreatedDate") Instant maxCreatedDate,
+                                               Pageable pageable);
+
+    /**
+     * Mark the pending orders created before the given date as failed.
+     *
+     * @return the number of orders failed
+     */
+    @Transactional
+    @Modifying
+    @Query("update OrderEntity orderEntity set orderEntity.status = fr.dla.app.domain.OrderStatusEnum.FAILED, "
+        + "orderEntity.failureReason = :failureReason, orderEntity.version = orderEntity.version + 1 "
+        + "where orderEntity.status = fr.dla.app.domain.OrderStatusEnum.PENDING and orderEntity.createdDate < :maxCreatedDate")
+    int failPendingCreatedBefore(@Param("maxCreatedDate") Instant maxCreatedDate, @Param("failureReason") String failureReason);
+
+    /**
+     * Take the order if it is still unassigned, in a single statement so that concurrent requests cannot both take it.
+     * The persistence context is flushed before and cleared after, so that the entities read next see the new status.
+     *
+     * @return 1 if the order was taken, 0 if it does not exist or is not unassigned
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderEntity orderEntity set orderEntity.status = fr.dla.app.domain.OrderStatusEnum.TAKEN, "
+        + "orderEntity.version = orderEntity.version + 1 "
+        + "where orderEntity.id = :id and orderEntity.status = fr.dla.app.domain.OrderStatusEnum.UNASSIGNED")
+    int takeIfUnassigned(@Param("id") int id);
+
+    @Query("select orderEntity.status from OrderEntity orderEntity where orderEntity.id = :id")
+    Optional<OrderStatusEnum> findStatusById(@Param("id") int id);
+
+    /**
+     * Lock the orders of the given ids still in the given status, in the order of their ids so that concurrent bulk takes
+     * cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<OrderEntity> findByIdInAndStatusOrderByIdAsc(Collection<Integer> ids, OrderStatusEnum status);
+
+    /**
+     * Take all the orders of the given ids still unassigned, in a single statement.
+     *
+     * @return the number of orders taken
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update OrderEntity orderEntity set orderEntity.status = fr.dla.app.domain.OrderStatusEnum.TAKEN, "
+        + "orderEntity.version = orderEntity.version + 1 "
+        + "where orderEntity.id in :ids and orderEntity.status = fr.dla.app.domain.OrderStatusEnum.UNASSIGNED")
+    int takeAllIfUnassigned(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Lock the first orders in the given status, skipping the ones locked by other transactions instead of waiting for
+     * them: SELECT ... FOR UPDATE SKIP LOCKED (lock timeout -2, LockOptions.SKIP_LOCKED) on the dialects supporting it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("select orderEntity from OrderEntity orderEntity where orderEntity.status = :status")
+    List<OrderEntity> findByStatusSkipLocked(@Param("status") OrderStatusEnum status, Pageable pageable);
+
+    @Query("select orderEntity.id from OrderEntity orderEntity where orderEntity.status = :status")
+    List<Integer> findIdsByStatus(@Param("status") OrderStatusEnum status, Pageable pageable);
+
+    @Query("select orderEntity.id as id, orderEntity.status as status from OrderEntity orderEntity where orderEntity.id in :ids")
+    List<OrderIdStatus> findStatusesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    interface RouteFrequency {
+        Double getOriginLatitude();
+
+        Double getOriginLongitude();
+
+        Double getDestinationLatitude();
+
+        Double getDestinationLongitude();
+
+        Long getOrders();
+    }
+
+    interface OrderIdStatus {
+        Integer getId();
+
+        OrderStatusEnum getStatus();
+    }
 }
@@ -0,0 +1,124 @@
+package fr.dla.app.service;
+
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.entities.IdempotencyKeyEntity;
+import fr.dla.app.repository.IdempotencyKeyEntityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keys shared by all the instances through the database. The first request of a key claims it by inserting its row,
+ * the primary key rejecting the others, which poll the row until the order id is recorded.
+ * <p>
+ * A claim is a lease of claim-lease, far longer than any creation: a claim still without order after it is presumed
+ * abandoned by a dead instance, deleted and claimed again, instead of answering 409 to every retry until the key expires.
+ * A retry overlapping a slow first attempt still within its lease waits wait-timeout, then gets a 409. A claim is
+ * identified by its key and its creation date, truncated to the second so that every database stores it exactly.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.idempotency", name = "store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final long POLL_INTERVAL_MILLIS = 50;
+
+    private final IdempotencyKeyEntityRepository idempotencyKeyEntityRepository;
+    private final OrderService orderService;
+    private final Duration timeToLive;
+    private final Duration claimLease;
+    private final long waitTimeoutNanos;
+
+    public DatabaseIdempotencyStore(IdempotencyKeyEntityRepository idempotencyKeyEntityRepository,
+                                    OrderService orderService,
+                                    ApplicationProperties applicationProperties) {
+        this.idempotencyKeyEntityRepository = idempotencyKeyEntityRepository;
+        this.orderService = orderService;
+        this.timeToLive = applicationProperties.getIdempotency().getTimeToLive();
+        this.claimLease = applicationProperties.getIdempotency().getClaimLease();
+        this.waitTimeoutNanos = applicationProperties.getIdempotency().getWaitTimeout().toNanos();
+    }
+
+    @Override
+    public Order execute(String key, String fingerprint, Supplier<Order> creation) {
+        long deadline = System.nanoTime() + waitTimeoutNanos;
+        while (true) {
+            IdempotencyKeyEntity claim = claim(key, fingerprint);
+            if (claim != null) {
+                return create(claim, creation);
+            }
+
+            IdempotencyKeyEntity firstAttempt = idempotencyKeyEntityRepository.findById(key).orElse(null);
+            if (firstAttempt != null) {
+                if (!firstAttempt.getFingerprint().equals(fingerprint)) {
+                    throw IdempotencyStore.keyReusedError();
+                }
+                if (firstAttempt.getCreatedDate().isBefore(Instant.now().minus(timeToLive))) {
+                    idempotencyKeyEntityRepository.deleteExpired(key, Instant.now().minus(timeToLive));
+                    continue;
+                }
+                if (firstAttempt.getOrderId() != null) {
+                    log.debug("Idempotency key {} already used, returning its order", key);
+                    return orderService.getOrder(firstAttempt.getOrderId());
+                }
+                if (firstAttempt.getCreatedDate().isBefore(Instant.now().minus(claimLease))
+                    && idempotencyKeyEntityRepository.deleteAbandoned(key, Instant.now().minus(claimLease)) > 0) {
+                    log.warn("Idempotency key {} claimed since {} without order, taking it over", key, firstAttempt.getCreatedDate());
+                    continue;
+                }
+            }
+
+            if (System.nanoTime() - deadline > 0) {
+                throw IdempotencyStore.inProgressError();
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw IdempotencyStore.inProgressError();
+            }
+        }
+    }
+
+    /**
+     * Delete the expired keys, on the scheduling pool.
+     */
+    @Scheduled(cron = "${application.idempotency.purge-cron:0 0 * * * ?}")
+    public void purgeExpiredKeys() {
+        int deletedKeys = idempotencyKeyEntityRepository.deleteByCreatedDateBefore(Instant.now().minus(timeToLive));
+        log.debug("Purged {} expired idempotency keys", deletedKeys);
+    }
+
+    private IdempotencyKeyEntity claim(String key, String fingerprint) {
+        try {
+            return idempotencyKeyEntityRepository.saveAndFlush(
+                new IdempotencyKeyEntity(key, fingerprint, Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+        } catch (DataIntegrityViolationException ex) {
+            return null;
+        }
+    }
+
+    private Order create(IdempotencyKeyEntity claim, Supplier<Order> creation) {
+        Order order;
+        try {
+            order = creation.get();
+        } catch (RuntimeException ex) {
+            idempotencyKeyEntityRepository.deleteClaim(claim.getIdempotencyKey(), claim.getCreatedDate());
+            throw ex;
+        }
+
+        if (idempotencyKeyEntityRepository.recordOrder(claim.getIdempotencyKey(), claim.getCreatedDate(), order.getId()) == 0) {
+            log.warn("Idempotency key {} taken over before order {} was recorded", claim.getIdempotencyKey(), order.getId());
+        }
+        return order;
+    }
+}
@@ -0,0 +1,71 @@
+package fr.dla.app.service;
+
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.entities.DistanceCacheEntity;
+import fr.dla.app.repository.DistanceCacheEntityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Distances shared by all the instances through the database, so a route resolved by one node is not requested
+ * again by the others.
+ */
+@Slf4j
+@Service
+@Transactional
+@ConditionalOnProperty(prefix = "application.google-maps-api.database-cache", name = "enabled", havingValue = "true")
+public class DistanceCacheService {
+
+    private final DistanceCacheEntityRepository distanceCacheEntityRepository;
+    private final Duration timeToLive;
+
+    public DistanceCacheService(DistanceCacheEntityRepository distanceCacheEntityRepository,
+                                ApplicationProperties applicationProperties) {
+        this.distanceCacheEntityRepository = distanceCacheEntityRepository;
+        this.timeToLive = applicationProperties.getGoogleMapsApi().getDatabaseCache().getTimeToLive();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Integer> findDistance(String routeKey) {
+        return distanceCacheEntityRepository.findByRouteKeyAndCreatedDateAfter(routeKey, Instant.now().minus(timeToLive))
+            .map(DistanceCacheEntity::getDistance);
+    }
+
+    /**
+     * Store a distance from the task executor, the lookup does not wait for the database.
+     * Runs without a surrounding transaction, so a key stored concurrently by another node is only logged.
+     */
+    @Async
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void saveDistance(String routeKey, int distance) {
+        DistanceCacheEntity distanceCacheEntity = distanceCacheEntityRepository.findByRouteKey(routeKey)
+            .orElseGet(() -> new DistanceCacheEntity(routeKey));
+        distanceCacheEntity.setDistance(distance);
+        distanceCacheEntity.setCreatedDate(Instant.now());
+
+        try {
+            distanceCacheEntityRepository.saveAndFlush(distanceCacheEntity);
+        } catch (DataIntegrityViolationException ex) {
+            log.debug("Distance of route {} already stored by another instance", routeKey);
+        }
+    }
+
+    /**
+     * Delete the expired distances, on the scheduling pool.
+     */
+    @Scheduled(cron = "${application.google-maps-api.database-cache.purge-cron:0 0 * * * ?}")
+    public void purgeExpiredDistances() {
+        int deletedDistances = distanceCacheEntityRepository.deleteByCreatedDateBefore(Instant.now().minus(timeToLive));
+        log.debug("Purged {} expired distances from the database cache", deletedDistances);
+    }
+}
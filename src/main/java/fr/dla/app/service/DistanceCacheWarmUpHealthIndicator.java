@@ -0,0 +1,31 @@
+package fr.dla.app.service;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the instance out of service on /management/health until the distance cache warm-up is done, so that the
+ * load balancer only sends traffic once the most frequent routes are resolved.
+ */
+@Component
+@ConditionalOnProperty(prefix = "application.google-maps-api.warm-up", name = "enabled", havingValue = "true")
+public class DistanceCacheWarmUpHealthIndicator extends AbstractHealthIndicator {
+
+    private final DistanceCacheWarmUpService distanceCacheWarmUpService;
+
+    public DistanceCacheWarmUpHealthIndicator(DistanceCacheWarmUpService distanceCacheWarmUpService) {
+        super("Distance cache warm-up health check failed");
+        this.distanceCacheWarmUpService = distanceCacheWarmUpService;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (distanceCacheWarmUpService.isDone()) {
+            builder.up();
+        } else {
+            builder.outOfService().withDetail("reason", "warming up the distance cache");
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package fr.dla.app.service;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.repository.OrderEntityRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the most frequent routes of the recent orders right after startup, so that the distance caches are filled
+ * before the instance receives traffic. {@link DistanceCacheWarmUpHealthIndicator} reports the instance out of service
+ * until it is done.
+ * <p>
+ * The lookups go through the whole Google maps client, paced at the configured rate and capped by a share of the daily
+ * quota. Routes already in the database cache do not reach Google.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.google-maps-api.warm-up", name = "enabled", havingValue = "true")
+public class DistanceCacheWarmUpService {
+
+    private static final int MAX_CONSECUTIVE_FAILURES = 5;
+
+    private final OrderEntityRepository orderEntityRepository;
+    private final GoogleMapsRouteClient googleMapsRouteClient;
+    private final ApplicationProperties.GoogleMapsApi.WarmUp warmUpProperties;
+    private final long dailyQuota;
+    private final long deadlineNanos;
+
+    private volatile boolean done;
+
+    public DistanceCacheWarmUpService(OrderEntityRepository orderEntityRepository,
+                                      GoogleMapsRouteClient googleMapsRouteClient,
+                                      ApplicationProperties applicationProperties) {
+        this.orderEntityRepository = orderEntityRepository;
+        this.googleMapsRouteClient = googleMapsRouteClient;
+        this.warmUpProperties = applicationProperties.getGoogleMapsApi().getWarmUp();
+        this.dailyQuota = applicationProperties.getGoogleMapsApi().getMetrics().getDailyQuota();
+        this.deadlineNanos = System.nanoTime() + warmUpProperties.getTimeout().toNanos();
+    }
+
+    /**
+     * Runs on its own thread once the application is started, the instance answers its health checks meanwhile.
+     */
+    @Async("warmUpExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            int maxLookups = getMaxLookups();
+            if (maxLookups == 0) {
+                return;
+            }
+
+            List<OrderEntityRepository.RouteFrequency> routes = orderEntityRepository.findMostFrequentRoutes(
+                Instant.now().minus(warmUpProperties.getHistory()), PageRequest.of(0, maxLookups));
+            log.info("Distance cache warm-up : resolving {} routes", routes.size());
+
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / warmUpProperties.getRate());
+            int resolved = 0;
+            int consecutiveFailures = 0;
+            for (OrderEntityRepository.RouteFrequency route : routes) {
+                if (isTimedOut()) {
+                    log.warn("Distance cache warm-up : timed out after {} routes", resolved);
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(
+                        GeoPoint.of(route.getOriginLatitude(), route.getOriginLongitude()),
+                        GeoPoint.of(route.getDestinationLatitude(), route.getDestinationLongitude()));
+                    resolved++;
+                    consecutiveFailures = 0;
+                } catch (RuntimeException ex) {
+                    log.debug("Distance cache warm-up : route not resolved. {}", ex.getMessage());
+                    if (++consecutiveFailures == MAX_CONSECUTIVE_FAILURES) {
+                        log.warn("Distance cache warm-up : stopped after {} consecutive failures", consecutiveFailures);
+                        return;
+                    }
+                }
+
+                TimeUnit.NANOSECONDS.sleep(intervalNanos - (System.nanoTime() - start));
+            }
+
+            log.info("Distance cache warm-up : {} routes resolved", resolved);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.warn("Distance cache warm-up : failed. {}", ex.getMessage());
+        } finally {
+            done = true;
+        }
+    }
+
+    /**
+     * @return true once the warm-up is over, successful or not, or once the timeout since startup has elapsed
+     */
+    public boolean isDone() {
+        return done || isTimedOut();
+    }
+
+    private boolean isTimedOut() {
+        return System.nanoTime() - deadlineNanos > 0;
+    }
+
+    int getMaxLookups() {
+        if (dailyQuota <= 0) {
+            return warmUpProperties.getMaxRoutes();
+        }
+        return (int) Math.min(warmUpProperties.getMaxRoutes(), (long) (dailyQuota * warmUpProperties.getQuotaShare()));
+    }
+}
@@ -0,0 +1,150 @@
+package fr.dla.app.service;
+
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.domain.OrderCoordinates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient.MAX_DESTINATIONS;
+import static fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient.MAX_ELEMENTS;
+import static fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient.MAX_ORIGINS;
+
+/**
+ * Orders resolved by a single Distance Matrix request of a bulk creation. Google bills every element of the
+ * origins x destinations matrix, so a request only packs orders sharing their origin (one row) or their destination
+ * (one column): every billed element is the distance of an order. Identical orders share an element.
+ */
+final class DistanceMatrixChunk {
+
+    private final List<GeoPoint> origins = new ArrayList<>();
+    private final List<GeoPoint> destinations = new ArrayList<>();
+    private final Map<GeoPoint, Integer> originIndexes = new HashMap<>();
+    private final Map<GeoPoint, Integer> destinationIndexes = new HashMap<>();
+    private final List<Lookup> lookups = new ArrayList<>();
+
+    /**
+     * Split the orders in requests billing no element no order needs. The orders sharing an origin with orders of other
+     * destinations are requested as rows, then the remaining ones sharing a destination as columns. An order sharing
+     * nothing is requested alone, as posting it would.
+     *
+     * @param orderCoordinates origin and destination of each order
+     * @return the requests to send, covering every order once
+     */
+    static List<DistanceMatrixChunk> plan(List<OrderCoordinates> orderCoordinates) {
+        Map<GeoPoint, List<Integer>> orderIndexesByOrigin = IntStream.range(0, orderCoordinates.size()).boxed()
+            .sorted(Comparator.<Integer>comparingLong(index -> orderCoordinates.get(index).getOrigin().toPackedLong())
+                .thenComparingLong(index -> orderCoordinates.get(index).getDestination().toPackedLong()))
+            .collect(Collectors.groupingBy(index -> orderCoordinates.get(index).getOrigin(), LinkedHashMap::new, Collectors.toList()));
+
+        List<DistanceMatrixChunk> chunks = new ArrayList<>();
+        List<Integer> ordersWithoutSharedOrigin = new ArrayList<>();
+        for (List<Integer> orderIndexes : orderIndexesByOrigin.values()) {
+            long destinationCount = orderIndexes.stream().map(index -> orderCoordinates.get(index).getDestination()).distinct().count();
+            if (destinationCount > 1) {
+                chunks.addAll(pack(orderCoordinates, orderIndexes));
+            } else {
+                ordersWithoutSharedOrigin.addAll(orderIndexes);
+            }
+        }
+
+        Map<GeoPoint, List<Integer>> orderIndexesByDestination = ordersWithoutSharedOrigin.stream()
+            .sorted(Comparator.<Integer>comparingLong(index -> orderCoordinates.get(index).getDestination().toPackedLong())
+                .thenComparingLong(index -> orderCoordinates.get(index).getOrigin().toPackedLong()))
+            .collect(Collectors.groupingBy(index -> orderCoordinates.get(index).getDestination(), LinkedHashMap::new, Collectors.toList()));
+        for (List<Integer> orderIndexes : orderIndexesByDestination.values()) {
+            chunks.addAll(pack(orderCoordinates, orderIndexes));
+        }
+        return chunks;
+    }
+
+    /**
+     * Pack orders sharing their origin or their destination in as few requests as the Google limits allow.
+     */
+    private static List<DistanceMatrixChunk> pack(List<OrderCoordinates> orderCoordinates, List<Integer> orderIndexes) {
+        List<DistanceMatrixChunk> chunks = new ArrayList<>();
+        DistanceMatrixChunk chunk = new DistanceMatrixChunk();
+        for (int orderIndex : orderIndexes) {
+            GeoPoint origin = orderCoordinates.get(orderIndex).getOrigin();
+            GeoPoint destination = orderCoordinates.get(orderIndex).getDestination();
+            if (!chunk.accepts(origin, destination)) {
+                chunks.add(chunk);
+                chunk = new DistanceMatrixChunk();
+            }
+            chunk.add(orderIndex, origin, destination);
+        }
+        chunks.add(chunk);
+        return chunks;
+    }
+
+    List<GeoPoint> getOrigins() {
+        return origins;
+    }
+
+    List<GeoPoint> getDestinations() {
+        return destinations;
+    }
+
+    List<Lookup> getLookups() {
+        return lookups;
+    }
+
+    /**
+     * Elements Google bills for the request.
+     */
+    int getBilledElements() {
+        return origins.size() * destinations.size();
+    }
+
+    private boolean accepts(GeoPoint origin, GeoPoint destination) {
+        int originCount = origins.size() + (originIndexes.containsKey(origin) ? 0 : 1);
+        int destinationCount = destinations.size() + (destinationIndexes.containsKey(destination) ? 0 : 1);
+        return originCount <= MAX_ORIGINS && destinationCount <= MAX_DESTINATIONS
+            && originCount * destinationCount <= MAX_ELEMENTS;
+    }
+
+    private void add(int orderIndex, GeoPoint origin, GeoPoint destination) {
+        int originIndex = originIndexes.computeIfAbsent(origin, key -> {
+            origins.add(origin);
+            return origins.size() - 1;
+        });
+        int destinationIndex = destinationIndexes.computeIfAbsent(destination, key -> {
+            destinations.add(destination);
+            return destinations.size() - 1;
+        });
+        lookups.add(new Lookup(orderIndex, originIndex, destinationIndex));
+    }
+
+    /**
+     * Position of an order of the request in the response matrix.
+     */
+    static final class Lookup {
+        private final int orderIndex;
+        private final int originIndex;
+        private final int destinationIndex;
+
+        private Lookup(int orderIndex, int originIndex, int destinationIndex) {
+            this.orderIndex = orderIndex;
+            this.originIndex = originIndex;
+            this.destinationIndex = destinationIndex;
+        }
+
+        int getOrderIndex() {
+            return orderIndex;
+        }
+
+        int getOriginIndex() {
+            return originIndex;
+        }
+
+        int getDestinationIndex() {
+            return destinationIndex;
+        }
+    }
+}
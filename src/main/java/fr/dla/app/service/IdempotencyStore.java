@@ -0,0 +1,39 @@
+package fr.dla.app.service;
+
+import fr.dla.app.domain.Order;
+import fr.dla.app.web.rest.errors.BadRequestException;
+import fr.dla.app.web.rest.errors.ConflictException;
+
+import java.util.function.Supplier;
+
+/**
+ * Remembers the order created for each Idempotency-Key, so that a client retrying a creation gets the original order
+ * back instead of a duplicate. The implementation is chosen with {@code application.idempotency.store}: {@code memory}
+ * for a single instance, {@code database} to share the keys between instances.
+ */
+public interface IdempotencyStore {
+
+    String ENTITY_NAME = "idempotencyKey";
+
+    /**
+     * Create the order of a key once. A request with a key being created waits for the first attempt and gets its
+     * order. A failed attempt is forgotten, so that the client can retry it.
+     *
+     * @param key         Idempotency-Key of the request
+     * @param fingerprint payload of the request, a key cannot be reused with another payload
+     * @param creation    creates the order, only called by the first request of the key
+     * @return the order created by the first request of the key
+     * @throws BadRequestException if the key was used with another payload
+     * @throws ConflictException   if the first attempt is still in progress after the wait timeout
+     */
+    Order execute(String key, String fingerprint, Supplier<Order> creation);
+
+    static BadRequestException keyReusedError() {
+        return new BadRequestException("Idempotency-Key already used with other coordinates", ENTITY_NAME, "idempotencyKeyReused");
+    }
+
+    static ConflictException inProgressError() {
+        return new ConflictException("A request with the same Idempotency-Key is still in progress, retry later",
+            ENTITY_NAME, "idempotencyKeyInProgress");
+    }
+}
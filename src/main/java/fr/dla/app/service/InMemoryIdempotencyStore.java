@@ -0,0 +1,92 @@
+package fr.dla.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Keys of this instance only, bounded in number and expired after the configured time to live. Concurrent requests
+ * of a key share the future of the first one. Only the order id is kept, a repeated request reads the order again,
+ * as the database store does: an order accepted asynchronously is returned with its current status.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    static final String CACHE_NAME = "idempotencyKeys";
+
+    private final Cache<String, Attempt> attempts;
+    private final OrderService orderService;
+    private final long waitTimeoutNanos;
+
+    public InMemoryIdempotencyStore(OrderService orderService, ApplicationProperties applicationProperties, MeterRegistry meterRegistry) {
+        this.orderService = orderService;
+        ApplicationProperties.Idempotency idempotencyProperties = applicationProperties.getIdempotency();
+        this.waitTimeoutNanos = idempotencyProperties.getWaitTimeout().toNanos();
+        this.attempts = Caffeine.newBuilder()
+            .maximumSize(idempotencyProperties.getMaximumSize())
+            .expireAfterWrite(idempotencyProperties.getTimeToLive())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, attempts, CACHE_NAME);
+    }
+
+    @Override
+    public Order execute(String key, String fingerprint, Supplier<Order> creation) {
+        Attempt attempt = new Attempt(fingerprint);
+        Attempt firstAttempt = attempts.asMap().putIfAbsent(key, attempt);
+
+        if (firstAttempt == null) {
+            try {
+                Order order = creation.get();
+                attempt.orderId.complete(order.getId());
+                return order;
+            } catch (RuntimeException ex) {
+                attempts.asMap().remove(key, attempt);
+                attempt.orderId.completeExceptionally(ex);
+                throw ex;
+            }
+        }
+
+        if (!firstAttempt.fingerprint.equals(fingerprint)) {
+            throw IdempotencyStore.keyReusedError();
+        }
+        log.debug("Idempotency key {} already used, returning its order", key);
+        return orderService.getOrder(await(firstAttempt.orderId));
+    }
+
+    private int await(CompletableFuture<Integer> orderId) {
+        try {
+            return orderId.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw IdempotencyStore.inProgressError();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw IdempotencyStore.inProgressError();
+        }
+    }
+
+    private static final class Attempt {
+        private final String fingerprint;
+        private final CompletableFuture<Integer> orderId = new CompletableFuture<>();
+
+        private Attempt(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
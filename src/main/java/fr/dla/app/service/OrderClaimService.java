@@ -0,0 +1,110 @@
+package fr.dla.app.service;
+
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.service.mapper.OrderMapper;
+import fr.dla.app.web.rest.errors.ConflictException;
+import fr.dla.app.web.rest.errors.NotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static fr.dla.app.config.Constants.ENTITY_DLAPP;
+
+/**
+ * Hands the next unassigned order to whoever asks first, so that concurrent drivers do not race for the same order.
+ * <p>
+ * On the databases supporting it (MySQL 8), the next order is locked with SELECT ... FOR UPDATE SKIP LOCKED: each
+ * claimer gets the first order no other transaction holds, without waiting nor colliding. Elsewhere (H2), the first
+ * unassigned orders are read without lock and taken one after the other with a conditional update, until one succeeds.
+ */
+@Slf4j
+@Service
+@Transactional
+public class OrderClaimService {
+
+    /**
+     * Orders tried by a claim round when SKIP LOCKED is not supported.
+     */
+    static final int CLAIM_CANDIDATES = 10;
+    static final int MAX_CLAIM_ROUNDS = 5;
+
+    private final OrderEntityRepository orderEntityRepository;
+    private final OrderMapper orderMapper;
+    private final boolean skipLocked;
+
+    @Autowired
+    public OrderClaimService(OrderEntityRepository orderEntityRepository, OrderMapper orderMapper,
+                             EntityManagerFactory entityManagerFactory) {
+        this(orderEntityRepository, orderMapper,
+            entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect().supportsSkipLocked());
+    }
+
+    OrderClaimService(OrderEntityRepository orderEntityRepository, OrderMapper orderMapper, boolean skipLocked) {
+        this.orderEntityRepository = orderEntityRepository;
+        this.orderMapper = orderMapper;
+        this.skipLocked = skipLocked;
+        log.info("Orders claimed with {}", skipLocked ? "SELECT ... FOR UPDATE SKIP LOCKED" : "conditional updates");
+    }
+
+    /**
+     * Take the next unassigned order.
+     *
+     * @param shortestFirst take the order with the shortest distance, else the oldest one
+     * @return the taken order
+     */
+    public Order claimNextOrder(final boolean shortestFirst) {
+        log.info("Claim the next order, shortest first = {}", shortestFirst);
+        Sort sort = shortestFirst ? Sort.by("distance", "id") : Sort.by("id");
+
+        OrderEntity orderEntity = skipLocked ? claimSkippingLocked(sort) : claimWithConditionalUpdates(sort);
+
+        log.info("Order {} updated to status = {}", orderEntity.getId(), OrderStatusEnum.TAKEN);
+        return orderMapper.toDto(orderEntity);
+    }
+
+    private OrderEntity claimSkippingLocked(Sort sort) {
+        List<OrderEntity> nextOrders = orderEntityRepository.findByStatusSkipLocked(OrderStatusEnum.UNASSIGNED, PageRequest.of(0, 1, sort));
+        if (nextOrders.isEmpty()) {
+            throw noOrderAvailable();
+        }
+
+        // the row stays locked until the commit, which flushes the new status
+        OrderEntity orderEntity = nextOrders.get(0);
+        orderEntity.setStatus(OrderStatusEnum.TAKEN);
+        return orderEntity;
+    }
+
+    private OrderEntity claimWithConditionalUpdates(Sort sort) {
+        for (int round = 0; round < MAX_CLAIM_ROUNDS; round++) {
+            List<Integer> candidateIds = orderEntityRepository.findIdsByStatus(OrderStatusEnum.UNASSIGNED,
+                PageRequest.of(0, CLAIM_CANDIDATES, sort));
+            if (candidateIds.isEmpty()) {
+                throw noOrderAvailable();
+            }
+
+            for (Integer candidateId : candidateIds) {
+                if (orderEntityRepository.takeIfUnassigned(candidateId) == 1) {
+                    return orderEntityRepository.findById(candidateId)
+                        .orElseThrow(() -> new IllegalStateException("Order " + candidateId + " taken then not found"));
+                }
+            }
+            log.debug("All the {} candidate orders were taken concurrently, round {}", candidateIds.size(), round + 1);
+        }
+
+        throw new ConflictException("Orders are claimed concurrently, retry later", ENTITY_DLAPP, "orderClaimContention");
+    }
+
+    private static NotFoundException noOrderAvailable() {
+        return new NotFoundException("No order available", ENTITY_DLAPP, "noOrderAvailable");
+    }
+}
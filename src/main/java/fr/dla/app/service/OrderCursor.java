@@ -0,0 +1,39 @@
+package fr.dla.app.service;
+
+import fr.dla.app.web.rest.errors.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static fr.dla.app.config.Constants.ENTITY_DLAPP;
+
+/**
+ * Opaque continuation token of the order listing: the id of the last order returned, the next page starting after it.
+ */
+public final class OrderCursor {
+
+    private static final String PREFIX = "id:";
+
+    private OrderCursor() {
+    }
+
+    public static String encode(int lastOrderId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + lastOrderId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the id of the last order returned
+     * @throws BadRequestException if the cursor was not produced by {@link #encode(int)}
+     */
+    public static int decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Integer.parseInt(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ex) {
+            // not Base64 or not a number, NumberFormatException being an IllegalArgumentException
+        }
+        throw new BadRequestException("Invalid cursor", ENTITY_DLAPP, "invalidCursor");
+    }
+}
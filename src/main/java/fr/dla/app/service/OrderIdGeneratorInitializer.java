@@ -0,0 +1,63 @@
+package fr.dla.app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Make the order ids reserved from the id_generator table continue after the existing orders, before the first insert.
+ * <p>
+ * Liquibase does not run where the orders created with auto increment ids live (dev and prod): there, Hibernate creates
+ * the id_generator table and would start reserving ids from 1, colliding with the existing primary keys. The next id is
+ * only ever raised, with a conditional update, so that concurrent starts of several nodes and blocks already reserved
+ * are safe.
+ */
+@Slf4j
+@Component
+public class OrderIdGeneratorInitializer {
+
+    static final String SEGMENT = "order_entity";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @param entityManagerFactory not used, but waited for: Hibernate creates the id_generator table when it starts
+     */
+    public OrderIdGeneratorInitializer(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        Long nextId = transactionTemplate.execute(status -> raiseNextId());
+        log.info("Order ids continue from {}", nextId);
+    }
+
+    private Long raiseNextId() {
+        Long nextId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from order_entity", Long.class);
+
+        Integer segments = jdbcTemplate.queryForObject("select count(*) from id_generator where sequence_name = ?",
+            Integer.class, SEGMENT);
+        if (segments == null || segments == 0) {
+            try {
+                jdbcTemplate.update("insert into id_generator (sequence_name, next_val) values (?, ?)", SEGMENT, nextId);
+                return nextId;
+            } catch (DuplicateKeyException ex) {
+                log.debug("Order id generator initialized by another node");
+            }
+        }
+
+        jdbcTemplate.update("update id_generator set next_val = ? where sequence_name = ? and next_val < ?",
+            nextId, SEGMENT, nextId);
+        return jdbcTemplate.queryForObject("select next_val from id_generator where sequence_name = ?", Long.class, SEGMENT);
+    }
+}
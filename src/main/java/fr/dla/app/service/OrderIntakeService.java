@@ -0,0 +1,278 @@
+package fr.dla.app.service;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.service.mapper.OrderMapper;
+import fr.dla.app.web.rest.errors.BadRequestException;
+import fr.dla.app.web.rest.errors.NotFoundException;
+import fr.dla.app.web.rest.errors.PreconditionFailedException;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.dla.app.config.Constants.ENTITY_DLAPP;
+
+/**
+ * Accepts orders before their distance is known: the order is saved as {@link OrderStatusEnum#PENDING}, which makes the
+ * order table the durable queue, and its id is handed to a pool of workers that resolve the distance and turn it into
+ * {@link OrderStatusEnum#UNASSIGNED}, or {@link OrderStatusEnum#FAILED} when Google cannot resolve it.
+ * <p>
+ * The in-memory queue of an instance is bounded, orders are rejected with a 503 once it is full. A periodic sweep
+ * queues again the pending orders left behind by a restart or a transient Google error, and fails the ones that stayed
+ * pending too long. The optimistic lock of the order keeps a single outcome when two instances resolve the same order.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "application.order-intake", name = "enabled", havingValue = "true")
+public class OrderIntakeService {
+
+    static final String QUEUE_DEPTH_METRIC_NAME = "order.intake.queue.depth";
+    static final String OLDEST_AGE_METRIC_NAME = "order.intake.queue.oldest.age";
+    static final String PENDING_METRIC_NAME = "order.intake.pending";
+    static final String PROCESSED_METRIC_NAME = "order.intake.processed";
+    static final String REJECTED_METRIC_NAME = "order.intake.rejected";
+
+    static final String INTAKE_FULL_ERROR_KEY = "orderIntakeFull";
+    static final String EXPIRED_FAILURE_REASON = "Order distance not resolved in time";
+
+    private static final String OUTCOME_TAG = "outcome";
+    private static final String RESOLVED = "resolved";
+    private static final String FAILED = "failed";
+    private static final String RETRY = "retry";
+    private static final String SKIPPED = "skipped";
+    private static final int FAILURE_REASON_MAX_LENGTH = 255;
+
+    private final OrderEntityRepository orderEntityRepository;
+    private final GoogleMapsRouteClient googleMapsRouteClient;
+    private final OrderMapper orderMapper;
+    private final ApplicationProperties.OrderIntake orderIntakeProperties;
+    private final int workers;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Set<Integer> queuedOrderIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pendingOrders = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+
+    private ExecutorService workerPool;
+
+    public OrderIntakeService(OrderEntityRepository orderEntityRepository,
+                              GoogleMapsRouteClient googleMapsRouteClient,
+                              OrderMapper orderMapper,
+                              ApplicationProperties applicationProperties,
+                              TaskExecutionProperties taskExecutionProperties,
+                              MeterRegistry meterRegistry) {
+        this.orderEntityRepository = orderEntityRepository;
+        this.googleMapsRouteClient = googleMapsRouteClient;
+        this.orderMapper = orderMapper;
+        this.orderIntakeProperties = applicationProperties.getOrderIntake();
+        this.workers = taskExecutionProperties.getPool().getCoreSize();
+        this.queue = new LinkedBlockingQueue<>(orderIntakeProperties.getQueueCapacity());
+        this.meterRegistry = meterRegistry;
+        Gauge.builder(QUEUE_DEPTH_METRIC_NAME, queue, BlockingQueue::size)
+            .description("Pending orders waiting for a worker on this instance")
+            .register(meterRegistry);
+        TimeGauge.builder(OLDEST_AGE_METRIC_NAME, this, TimeUnit.NANOSECONDS, OrderIntakeService::getOldestAgeNanos)
+            .description("Time the oldest order waiting for a worker on this instance has been waiting")
+            .register(meterRegistry);
+        Gauge.builder(PENDING_METRIC_NAME, pendingOrders, AtomicLong::get)
+            .description("Pending orders in database, as of the last sweep")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder(REJECTED_METRIC_NAME)
+            .description("Asynchronous orders rejected because the queue was full")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        workerPool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            workerPool.execute(this::work);
+        }
+        log.info("Order intake : {} workers started, queue capacity = {}", workers, orderIntakeProperties.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workerPool != null) {
+            workerPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Save a pending order and queue the resolution of its distance.
+     *
+     * @return the pending order
+     * @throws ServiceUnavailableException if the queue of the instance is full
+     */
+    public Order submit(GeoPoint origin, GeoPoint destination) {
+        if (queue.remainingCapacity() == 0) {
+            rejectedCounter.increment();
+            log.warn("Order intake : {} orders waiting, queue full", queue.size());
+            throw new ServiceUnavailableException("Too many orders waiting for their distance, retry later",
+                ENTITY_DLAPP, INTAKE_FULL_ERROR_KEY);
+        }
+
+        OrderEntity orderEntity = new OrderEntity(null, OrderStatusEnum.PENDING);
+        orderEntity.setOriginLatitude(origin.getLatitude());
+        orderEntity.setOriginLongitude(origin.getLongitude());
+        orderEntity.setDestinationLatitude(destination.getLatitude());
+        orderEntity.setDestinationLongitude(destination.getLongitude());
+        orderEntity.setCreatedDate(Instant.now());
+        OrderEntity orderEntitySaved = orderEntityRepository.save(orderEntity);
+        log.info("Order intake : order {} accepted", orderEntitySaved.getId());
+
+        // if the queue filled up meanwhile, the order stays pending until the sweep queues it
+        enqueue(orderEntitySaved.getId());
+        return orderMapper.toDto(orderEntitySaved);
+    }
+
+    /**
+     * Fail the orders pending for too long, and queue again the ones no worker picked up.
+     */
+    @Scheduled(fixedDelayString = "${application.order-intake.sweep-interval:PT30S}")
+    public void sweep() {
+        try {
+            Instant now = Instant.now();
+            int expired = orderEntityRepository.failPendingCreatedBefore(now.minus(orderIntakeProperties.getMaxAge()),
+                EXPIRED_FAILURE_REASON);
+            if (expired > 0) {
+                log.warn("Order intake : {} orders pending for more than {}, failed", expired, orderIntakeProperties.getMaxAge());
+            }
+            pendingOrders.set(orderEntityRepository.countByStatus(OrderStatusEnum.PENDING));
+
+            int capacity = queue.remainingCapacity();
+            if (capacity == 0) {
+                return;
+            }
+            List<Integer> orderIds = orderEntityRepository.findIdsByStatusCreatedBefore(OrderStatusEnum.PENDING,
+                now.minus(orderIntakeProperties.getRetryAfter()), PageRequest.of(0, capacity));
+            long queued = orderIds.stream().filter(this::enqueue).count();
+            if (queued > 0) {
+                log.info("Order intake : {} pending orders queued again", queued);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Order intake : sweep failed. {}", ex.getMessage());
+        }
+    }
+
+    private boolean enqueue(int orderId) {
+        if (!queuedOrderIds.add(orderId)) {
+            return false;
+        }
+        if (!queue.offer(new PendingOrder(orderId, System.nanoTime()))) {
+            queuedOrderIds.remove(orderId);
+            return false;
+        }
+        return true;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                PendingOrder pendingOrder = queue.take();
+                try {
+                    process(pendingOrder.orderId);
+                } finally {
+                    queuedOrderIds.remove(pendingOrder.orderId);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.warn("Order intake : order not processed. {}", ex.getMessage());
+            }
+        }
+    }
+
+    void process(int orderId) {
+        long start = System.nanoTime();
+        String outcome = resolve(orderId);
+        Timer.builder(PROCESSED_METRIC_NAME)
+            .description("Pending orders processed by the workers")
+            .tag(OUTCOME_TAG, outcome)
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private String resolve(int orderId) {
+        OrderEntity orderEntity = orderEntityRepository.findById(orderId).orElse(null);
+        if (orderEntity == null || orderEntity.getStatus() != OrderStatusEnum.PENDING) {
+            return SKIPPED;
+        }
+
+        try {
+            DistanceMatrixResponseEntity distanceMatrixResponseEntity = googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(
+                GeoPoint.of(orderEntity.getOriginLatitude(), orderEntity.getOriginLongitude()),
+                GeoPoint.of(orderEntity.getDestinationLatitude(), orderEntity.getDestinationLongitude()));
+            OrderService.handleDistanceMatrixResponseEntityResponse(distanceMatrixResponseEntity);
+            orderEntity.setDistance(distanceMatrixResponseEntity.getRows().get(0).getElements().get(0).getDistance().getValue());
+            orderEntity.setEstimatedDistance(distanceMatrixResponseEntity.isEstimated());
+            orderEntity.setStatus(OrderStatusEnum.UNASSIGNED);
+        } catch (BadRequestException | NotFoundException | PreconditionFailedException ex) {
+            log.info("Order intake : distance of order {} cannot be resolved. {}", orderId, ex.getMessage());
+            orderEntity.setStatus(OrderStatusEnum.FAILED);
+            orderEntity.setFailureReason(StringUtils.abbreviate(ex.getMessage(), FAILURE_REASON_MAX_LENGTH));
+        } catch (RuntimeException ex) {
+            log.warn("Order intake : distance of order {} not resolved, retried later. {}", orderId, ex.getMessage());
+            return RETRY;
+        }
+
+        try {
+            orderEntityRepository.save(orderEntity);
+        } catch (OptimisticLockingFailureException ex) {
+            log.debug("Order intake : order {} already processed", orderId);
+            return SKIPPED;
+        }
+        return orderEntity.getStatus() == OrderStatusEnum.UNASSIGNED ? RESOLVED : FAILED;
+    }
+
+    private double getOldestAgeNanos() {
+        PendingOrder oldest = queue.peek();
+        return oldest == null ? 0 : System.nanoTime() - oldest.queuedNanos;
+    }
+
+    private static final class PendingOrder {
+        private final int orderId;
+        private final long queuedNanos;
+
+        private PendingOrder(int orderId, long queuedNanos) {
+            this.orderId = orderId;
+            this.queuedNanos = queuedNanos;
+        }
+    }
+}
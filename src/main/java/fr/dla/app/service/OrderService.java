@@ -2,32 +2,57 @@ package fr.dla.app.service;
 
 import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
 import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
 import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
 import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.domain.BulkOrderResult;
+import fr.dla.app.domain.BulkTakeOrderResult;
+import fr.dla.app.domain.GeoPoint;
 import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderCoordinates;
+import fr.dla.app.domain.OrderSlice;
 import fr.dla.app.domain.OrderStatusEnum;
 import fr.dla.app.domain.PatchOrderResponse;
 import fr.dla.app.domain.ResponseStatusEnum;
+import fr.dla.app.domain.TakeOrderOutcomeEnum;
 import fr.dla.app.domain.entities.OrderEntity;
 import fr.dla.app.repository.OrderEntityRepository;
 import fr.dla.app.service.mapper.OrderMapper;
 import fr.dla.app.web.rest.errors.BadRequestException;
+import fr.dla.app.web.rest.errors.DlappException;
 import fr.dla.app.web.rest.errors.InternalServerErrorException;
 import fr.dla.app.web.rest.errors.NotFoundException;
 import fr.dla.app.web.rest.errors.PreconditionFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 
-import javax.persistence.EntityManager;
-import javax.persistence.LockModeType;
-import javax.persistence.PersistenceContext;
 import javax.validation.constraints.Min;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static fr.dla.app.config.Constants.ENTITY_DLAPP;
@@ -38,80 +63,301 @@ import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
 @Transactional
 public class OrderService {
 
+    /**
+     * Maximum number of orders of a bulk creation.
+     */
+    public static final int MAX_BULK_ORDERS = 500;
+
+    static final String TRANSACTION_METRIC_NAME = "order.create.transaction";
+
     private static final String BAD_REQUEST_ERROR_KEY = "badRequestError";
+    private static final Sort ORDERS_SORT = Sort.by("id");
+    /**
+     * Statuses of the orders listed to the drivers: pending and failed orders have no distance yet, or never will.
+     */
+    private static final Set<OrderStatusEnum> LISTED_STATUSES = Collections.unmodifiableSet(
+        EnumSet.of(OrderStatusEnum.UNASSIGNED, OrderStatusEnum.TAKEN));
 
     private final OrderEntityRepository orderEntityRepository;
     private final GoogleMapsRouteClient googleMapsRouteClient;
     private final OrderMapper orderMapper;
-
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final Executor taskExecutor;
+    private final Executor googleMapsApiRequestExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer createOrderTransactionTimer;
+    private final Timer createOrdersTransactionTimer;
 
     public OrderService(OrderEntityRepository orderEntityRepository,
                         GoogleMapsRouteClient googleMapsRouteClient,
-                        OrderMapper orderMapper) {
+                        OrderMapper orderMapper,
+                        @Qualifier("taskExecutor") Executor taskExecutor,
+                        @Qualifier("googleMapsApiRequestExecutor") Executor googleMapsApiRequestExecutor,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry) {
         this.orderEntityRepository = orderEntityRepository;
         this.googleMapsRouteClient = googleMapsRouteClient;
         this.orderMapper = orderMapper;
+        this.taskExecutor = taskExecutor;
+        this.googleMapsApiRequestExecutor = googleMapsApiRequestExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.createOrderTransactionTimer = transactionTimer("createOrder", meterRegistry);
+        this.createOrdersTransactionTimer = transactionTimer("createOrders", meterRegistry);
+    }
+
+    private static Timer transactionTimer(String operation, MeterRegistry meterRegistry) {
+        return Timer.builder(TRANSACTION_METRIC_NAME)
+            .description("Time a database connection is held to insert the created orders")
+            .tag("operation", operation)
+            .register(meterRegistry);
     }
 
     //region public method
-    public Order createOrder(List<String> origin, List<String> destination) {
+
+    /**
+     * Resolve the distance, then insert the order. The Google call runs outside any transaction, so that no database
+     * connection is held during it: only the insert takes one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Order createOrder(GeoPoint origin, GeoPoint destination) {
 
         DistanceMatrixResponseEntity distanceMatrixResponseEntity = googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(origin, destination);
 
-        handleDistanceMatrixResponseEntityResponse(distanceMatrixResponseEntity);
+        return saveOrder(origin, destination, distanceMatrixResponseEntity);
+    }
 
-        final Integer distanceResult = distanceMatrixResponseEntity.getRows().get(0).getElements().get(0).getDistance().getValue();
-        OrderEntity orderEntity = new OrderEntity(distanceResult, OrderStatusEnum.UNASSIGNED);
-        log.info("Creating order in database with order entity = {}", orderEntity);
-        OrderEntity orderEntitySaved = orderEntityRepository.save(orderEntity);
+    /**
+     * Same as {@link #createOrder(GeoPoint, GeoPoint)}, without blocking the caller during the Google call.
+     * The order is saved from the task executor, in its own transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Order> createOrderAsync(GeoPoint origin, GeoPoint destination) {
+        return googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinatesAsync(origin, destination)
+            .thenApplyAsync(response -> saveOrder(origin, destination, response), taskExecutor);
+    }
 
-        return orderMapper.toDto(orderEntitySaved);
+    /**
+     * Create several orders with Distance Matrix requests packing the orders sharing an origin or a destination, so that
+     * Google bills no element no order needs. The requests are sent in parallel from the Google maps API request executor,
+     * then the orders are inserted together. An order Google cannot resolve fails alone, with its own error.
+     *
+     * @param orderCoordinates origin and destination of each order
+     * @return the result of each order, in the order of the request
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BulkOrderResult> createOrders(List<OrderCoordinates> orderCoordinates) {
+        List<DistanceMatrixChunk> chunks = DistanceMatrixChunk.plan(orderCoordinates);
+        log.info("Create {} orders with {} Google maps API requests billing {} elements", orderCoordinates.size(), chunks.size(),
+            chunks.stream().mapToInt(DistanceMatrixChunk::getBilledElements).sum());
+
+        List<CompletableFuture<DistanceMatrixResponseEntity>> responses = chunks.stream()
+            .map(chunk -> CompletableFuture.supplyAsync(
+                () -> googleMapsRouteClient.getDistanceMatrix(chunk.getOrigins(), chunk.getDestinations()), googleMapsApiRequestExecutor))
+            .collect(Collectors.toList());
+
+        BulkOrderResult[] results = new BulkOrderResult[orderCoordinates.size()];
+        List<OrderEntity> orderEntities = new ArrayList<>();
+        List<Integer> orderIndexes = new ArrayList<>();
+
+        for (int i = 0; i < chunks.size(); i++) {
+            DistanceMatrixResponseEntity response;
+            try {
+                response = responses.get(i).join();
+                handleTopLevelStatus(response);
+            } catch (RuntimeException ex) {
+                Throwable error = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                log.warn("Google maps API request of {} orders failed. {}", chunks.get(i).getLookups().size(), error.getMessage());
+                for (DistanceMatrixChunk.Lookup lookup : chunks.get(i).getLookups()) {
+                    results[lookup.getOrderIndex()] = BulkOrderResult.failure(lookup.getOrderIndex(), error.getMessage());
+                }
+                continue;
+            }
+
+            for (DistanceMatrixChunk.Lookup lookup : chunks.get(i).getLookups()) {
+                try {
+                    Element element = elementAt(response, lookup.getOriginIndex(), lookup.getDestinationIndex());
+                    handleElementStatus(element);
+                    OrderCoordinates coordinates = orderCoordinates.get(lookup.getOrderIndex());
+                    orderEntities.add(newOrderEntity(coordinates.getOrigin(), coordinates.getDestination(),
+                        element.getDistance().getValue(), response.isEstimated()));
+                    orderIndexes.add(lookup.getOrderIndex());
+                } catch (DlappException ex) {
+                    results[lookup.getOrderIndex()] = BulkOrderResult.failure(lookup.getOrderIndex(), ex.getMessage());
+                }
+            }
+        }
+
+        log.info("Creating {} orders in database", orderEntities.size());
+        List<OrderEntity> orderEntitiesSaved = inTransaction(createOrdersTransactionTimer,
+            () -> orderEntityRepository.saveAll(orderEntities));
+        for (int i = 0; i < orderEntitiesSaved.size(); i++) {
+            results[orderIndexes.get(i)] = BulkOrderResult.success(orderIndexes.get(i), orderMapper.toDto(orderEntitiesSaved.get(i)));
+        }
+
+        return Arrays.asList(results);
+    }
+
+    @Transactional(readOnly = true)
+    public Order getOrder(final int orderId) {
+        log.info("Get an order with order id = {}", orderId);
+
+        return orderEntityRepository.findById(orderId)
+            .map(orderMapper::toDto)
+            .orElseThrow(() -> new NotFoundException("Order not found", ENTITY_DLAPP, "orderNotFound"));
     }
 
+    /**
+     * List the unassigned and taken orders by increasing id, at the given page. Kept for compatibility: prefer
+     * {@link #getOrdersAfter(String, int)}, whose cost does not grow with the depth of the page.
+     */
     @Transactional(readOnly = true)
-    public List<Order> getOrders(@Min(1) final int page, @Min(1) final int limit) {
+    public OrderSlice getOrders(@Min(1) final int page, @Min(1) final int limit) {
         log.info("Get orders with page = {} and limit = {}", page, limit);
 
-        Page<OrderEntity> orderEntities = orderEntityRepository.findAll(PageRequest.of(page - 1, limit));
+        return toOrderSlice(orderEntityRepository.findAllByStatusIn(LISTED_STATUSES, PageRequest.of(page - 1, limit, ORDERS_SORT)));
+    }
 
-        log.info("Fetched {} orders", orderEntities.getTotalElements());
+    /**
+     * List the unassigned and taken orders following the given cursor, by increasing id.
+     *
+     * @param cursor continuation token of the previous page
+     * @param limit  page size
+     * @return the orders, with the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public OrderSlice getOrdersAfter(final String cursor, @Min(1) final int limit) {
+        int lastOrderId = OrderCursor.decode(cursor);
+        log.info("Get orders after id = {} and limit = {}", lastOrderId, limit);
 
-        return orderEntities.getContent().stream()
-            .map(orderMapper::toDto)
-            .collect(Collectors.toList());
+        return toOrderSlice(orderEntityRepository.findAllByIdGreaterThanAndStatusIn(lastOrderId, LISTED_STATUSES,
+            PageRequest.of(0, limit, ORDERS_SORT)));
     }
 
     public PatchOrderResponse takeOrder(final int orderId, final String orderStatus) {
         log.info("Take an order with order id = {}", orderId);
 
+        checkTakenStatus(orderStatus);
+
+        if (orderEntityRepository.takeIfUnassigned(orderId) == 0) {
+            // only a failed take pays for a second query, to tell why the order could not be taken
+            OrderStatusEnum orderStatusFound = orderEntityRepository.findStatusById(orderId)
+                .orElseThrow(() -> new NotFoundException("Order not found", ENTITY_DLAPP, "orderNotFound"));
+
+            if (orderStatusFound == OrderStatusEnum.TAKEN) {
+                throw new PreconditionFailedException("Order already taken", ENTITY_DLAPP, "orderAlreadyTaken");
+            }
+
+            throw new PreconditionFailedException(String.format("Order is %s and cannot be taken", orderStatusFound),
+                ENTITY_DLAPP, "orderNotAvailable");
+        }
+
+        log.info("Order updated to status = {}", OrderStatusEnum.TAKEN);
+
+        return new PatchOrderResponse(ResponseStatusEnum.SUCCESS);
+    }
+
+    /**
+     * Take several orders at once. The unassigned orders are locked, then taken in a single statement: an order taken
+     * concurrently by another request is never reported as taken by this one.
+     *
+     * @param orderIds    ids of the orders to take, a repeated id being taken once
+     * @param orderStatus status to set, must be TAKEN
+     * @return the outcome of each order, in the order of the request
+     */
+    public List<BulkTakeOrderResult> takeOrders(final List<Integer> orderIds, final String orderStatus) {
+        checkTakenStatus(orderStatus);
+
+        Set<Integer> ids = new LinkedHashSet<>(orderIds);
+        log.info("Take {} orders", ids.size());
+
+        Set<Integer> takenIds = orderEntityRepository.findByIdInAndStatusOrderByIdAsc(ids, OrderStatusEnum.UNASSIGNED).stream()
+            .map(OrderEntity::getId)
+            .collect(Collectors.toSet());
+        if (!takenIds.isEmpty()) {
+            // the locked orders cannot change until the commit, so they are all taken
+            orderEntityRepository.takeAllIfUnassigned(takenIds);
+        }
+
+        List<Integer> otherIds = ids.stream().filter(id -> !takenIds.contains(id)).collect(Collectors.toList());
+        Map<Integer, OrderStatusEnum> otherStatuses = otherIds.isEmpty() ? Collections.emptyMap()
+            : orderEntityRepository.findStatusesByIdIn(otherIds).stream()
+            .collect(Collectors.toMap(OrderEntityRepository.OrderIdStatus::getId, OrderEntityRepository.OrderIdStatus::getStatus));
+
+        log.info("{} orders updated to status = {}", takenIds.size(), OrderStatusEnum.TAKEN);
+
+        return ids.stream()
+            .map(id -> new BulkTakeOrderResult(id, takenIds.contains(id) ? TakeOrderOutcomeEnum.TAKEN : notTakenOutcome(otherStatuses.get(id))))
+            .collect(Collectors.toList());
+    }
+    //endregion public method
+
+    //region private method
+    private OrderSlice toOrderSlice(Slice<OrderEntity> orderEntities) {
+        log.info("Fetched {} orders", orderEntities.getNumberOfElements());
+
+        List<OrderEntity> content = orderEntities.getContent();
+        String nextCursor = orderEntities.hasNext() ? OrderCursor.encode(content.get(content.size() - 1).getId()) : null;
+        return new OrderSlice(content.stream().map(orderMapper::toDto).collect(Collectors.toList()), nextCursor);
+    }
+
+    private static void checkTakenStatus(String orderStatus) {
         if (!StringUtils.equals(orderStatus, OrderStatusEnum.TAKEN.name())) {
             throw new BadRequestException(String.format("Status parameter is not equal to '%s'", OrderStatusEnum.TAKEN.name()),
                 ENTITY_DLAPP, BAD_REQUEST_ERROR_KEY);
         }
+    }
 
-        OrderEntity orderEntity = entityManager.find(OrderEntity.class, orderId, LockModeType.WRITE);
+    private static TakeOrderOutcomeEnum notTakenOutcome(OrderStatusEnum orderStatus) {
+        if (orderStatus == null) {
+            return TakeOrderOutcomeEnum.NOT_FOUND;
+        }
+        return orderStatus == OrderStatusEnum.TAKEN ? TakeOrderOutcomeEnum.ALREADY_TAKEN : TakeOrderOutcomeEnum.NOT_AVAILABLE;
+    }
+
+    private Order saveOrder(GeoPoint origin, GeoPoint destination, DistanceMatrixResponseEntity distanceMatrixResponseEntity) {
+        handleDistanceMatrixResponseEntityResponse(distanceMatrixResponseEntity);
 
-        if (orderEntity == null) {
-            throw new NotFoundException("Order not found", ENTITY_DLAPP, "orderNotFound");
+        final Integer distanceResult = distanceMatrixResponseEntity.getRows().get(0).getElements().get(0).getDistance().getValue();
+        OrderEntity orderEntity = newOrderEntity(origin, destination, distanceResult, distanceMatrixResponseEntity.isEstimated());
+        log.info("Creating order in database with order entity = {}", orderEntity);
+        OrderEntity orderEntitySaved = inTransaction(createOrderTransactionTimer, () -> orderEntityRepository.save(orderEntity));
+
+        return orderMapper.toDto(orderEntitySaved);
+    }
+
+    private <T> T inTransaction(Timer timer, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
 
-        if (orderEntity.getStatus() == OrderStatusEnum.TAKEN) {
-            throw new PreconditionFailedException("Order already taken", ENTITY_DLAPP, "orderAlreadyTaken");
+    private static OrderEntity newOrderEntity(GeoPoint origin, GeoPoint destination, Integer distance, boolean estimated) {
+        OrderEntity orderEntity = new OrderEntity(distance, OrderStatusEnum.UNASSIGNED);
+        orderEntity.setOriginLatitude(origin.getLatitude());
+        orderEntity.setOriginLongitude(origin.getLongitude());
+        orderEntity.setDestinationLatitude(destination.getLatitude());
+        orderEntity.setDestinationLongitude(destination.getLongitude());
+        orderEntity.setCreatedDate(Instant.now());
+        if (estimated) {
+            log.warn("Google maps API unavailable, creating order with an estimated distance = {}", distance);
+            orderEntity.setEstimatedDistance(true);
         }
+        return orderEntity;
+    }
 
-        orderEntity.setStatus(OrderStatusEnum.TAKEN);
-        entityManager.merge(orderEntity);
+    static void handleDistanceMatrixResponseEntityResponse(DistanceMatrixResponseEntity distanceMatrixResponseEntity) {
+        handleTopLevelStatus(distanceMatrixResponseEntity);
 
-        log.info("Order updated to status = {}", OrderStatusEnum.TAKEN);
+        if (CollectionUtils.isEmpty(distanceMatrixResponseEntity.getRows().get(0).getElements())) {
+            throw emptyElementsError();
+        }
 
-        return new PatchOrderResponse(ResponseStatusEnum.SUCCESS);
+        handleElementStatus(distanceMatrixResponseEntity.getRows().get(0).getElements().get(0));
     }
-    //endregion public method
 
-    //region private method
-    private static void handleDistanceMatrixResponseEntityResponse(DistanceMatrixResponseEntity distanceMatrixResponseEntity) {
+    private static void handleTopLevelStatus(DistanceMatrixResponseEntity distanceMatrixResponseEntity) {
         if (distanceMatrixResponseEntity == null) {
             throw new InternalServerErrorException("Google maps API return a null response", GOOGLE_API_ENTITY, "nullResponseError");
         }
@@ -139,14 +385,19 @@ public class OrderService {
             throw new InternalServerErrorException("Google maps API return empty rows result",
                 GOOGLE_API_ENTITY, "emptyRowsError");
         }
+    }
 
-        if (CollectionUtils.isEmpty(distanceMatrixResponseEntity.getRows().get(0).getElements())) {
-            throw new InternalServerErrorException("Google maps API return empty elements result",
-                GOOGLE_API_ENTITY, "emptyElementsError");
+    private static Element elementAt(DistanceMatrixResponseEntity distanceMatrixResponseEntity, int originIndex, int destinationIndex) {
+        List<Row> rows = distanceMatrixResponseEntity.getRows();
+        Row row = originIndex < rows.size() ? rows.get(originIndex) : null;
+        if (row == null || row.getElements() == null || row.getElements().size() <= destinationIndex) {
+            throw emptyElementsError();
         }
+        return row.getElements().get(destinationIndex);
+    }
 
-        GoogleApiElementLevelStatusEnum elementLevelResponseStatus = distanceMatrixResponseEntity.getRows().get(0)
-            .getElements().get(0).getStatus();
+    private static void handleElementStatus(Element element) {
+        GoogleApiElementLevelStatusEnum elementLevelResponseStatus = element.getStatus();
         switch (elementLevelResponseStatus) {
             case OK:
                 break;
@@ -162,9 +413,14 @@ public class OrderService {
                     elementLevelResponseStatus), GOOGLE_API_ENTITY, "unknownErrorResponse");
         }
 
-        if (distanceMatrixResponseEntity.getRows().get(0).getElements().get(0).getDistance() == null) {
+        if (element.getDistance() == null) {
             throw new InternalServerErrorException("Google maps API return null distance result", GOOGLE_API_ENTITY, "nullDistanceError");
         }
     }
+
+    private static InternalServerErrorException emptyElementsError() {
+        return new InternalServerErrorException("Google maps API return empty elements result",
+            GOOGLE_API_ENTITY, "emptyElementsError");
+    }
     //endregion private method
 }
@@ -1,17 +1,25 @@
 package fr.dla.app.web.rest;
 
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.BulkOrderResult;
+import fr.dla.app.domain.BulkTakeOrderResult;
 import fr.dla.app.domain.Order;
 import fr.dla.app.domain.OrderCoordinates;
+import fr.dla.app.domain.OrderSlice;
 import fr.dla.app.domain.OrderStatus;
+import fr.dla.app.domain.OrdersStatus;
 import fr.dla.app.domain.PatchOrderResponse;
+import fr.dla.app.service.IdempotencyStore;
+import fr.dla.app.service.OrderClaimService;
+import fr.dla.app.service.OrderIntakeService;
 import fr.dla.app.service.OrderService;
-import fr.dla.app.service.dto.OrderCoordinatesDTO;
-import fr.dla.app.service.mapper.OrderCoordinatesMapper;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -20,13 +28,20 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Slf4j
 @RestController
@@ -38,41 +53,119 @@ import java.util.List;
 @Validated
 public class OrderResource {
 
+    private static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final OrderService orderService;
-    private final OrderCoordinatesMapper orderCoordinatesMapper;
+    private final OrderClaimService orderClaimService;
+    private final ObjectProvider<OrderIntakeService> orderIntakeService;
+    private final IdempotencyStore idempotencyStore;
+    private final boolean asyncEnabled;
 
-    public OrderResource(OrderService orderService, OrderCoordinatesMapper orderCoordinatesMapper) {
+    public OrderResource(OrderService orderService,
+                         OrderClaimService orderClaimService,
+                         ObjectProvider<OrderIntakeService> orderIntakeService,
+                         IdempotencyStore idempotencyStore,
+                         ApplicationProperties applicationProperties) {
         this.orderService = orderService;
-        this.orderCoordinatesMapper = orderCoordinatesMapper;
+        this.orderClaimService = orderClaimService;
+        this.orderIntakeService = orderIntakeService;
+        this.idempotencyStore = idempotencyStore;
+        this.asyncEnabled = applicationProperties.getGoogleMapsApi().getAsync().isEnabled();
     }
 
     /**
      * Create an order
      *
+     * @param idempotencyKey   optional key of the creation, a retry with the same key returns the order of the first request
      * @param orderCoordinates origin and destination with a start and end latitude/longitude
-     * @return the created order
+     * @return the created order, already completed unless the asynchronous mode is enabled: the request thread is then
+     * released during the Google call, and the response written on its completion
      */
     @PostMapping()
     @ApiOperation("Create an order")
     @ApiResponses(value = {
         @ApiResponse(code = 400, message = "Bad request"),
         @ApiResponse(code = 404, message = "Coordinates not found"),
+        @ApiResponse(code = 409, message = "Request with the same idempotency key in progress"),
         @ApiResponse(code = 500, message = "Internal server error")
     })
-    public ResponseEntity<Order> createOrder(
+    public CompletableFuture<ResponseEntity<Order>> createOrder(
+        @ApiParam(value = "Key making retries of the creation return the same order")
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(max = 255) String idempotencyKey,
         @ApiParam(value = "Order origin and destination coordinates") @Valid @RequestBody OrderCoordinates orderCoordinates
     ) {
         log.info("POST request to create an order. orderCoordinates = {}", orderCoordinates);
-        OrderCoordinatesDTO orderCoordinatesDTO = orderCoordinatesMapper.toDto(orderCoordinates);
-        return ResponseEntity.ok(orderService.createOrder(orderCoordinatesDTO.getOrigin(), orderCoordinatesDTO.getDestination()));
+
+        // the idempotency store waits on the first attempt of the key, so the creation stays synchronous
+        if (asyncEnabled && idempotencyKey == null) {
+            return createOrderAsync(orderCoordinates);
+        }
+        return CompletableFuture.completedFuture(createOrderSync(idempotencyKey, orderCoordinates));
+    }
+
+    /**
+     * Accept an order, its distance is resolved in background when the order intake is enabled
+     *
+     * @param idempotencyKey   optional key of the creation, a retry with the same key returns the order of the first request
+     * @param orderCoordinates origin and destination with a start and end latitude/longitude
+     * @return 202 with the pending order and its location, or the created order when the order intake is disabled
+     */
+    @PostMapping(headers = "Prefer=respond-async")
+    @ApiOperation("Accept an order, resolved asynchronously")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 409, message = "Request with the same idempotency key in progress"),
+        @ApiResponse(code = 503, message = "Too many orders waiting"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public CompletableFuture<ResponseEntity<Order>> acceptOrder(
+        @ApiParam(value = "Key making retries of the creation return the same order")
+        @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) @Size(max = 255) String idempotencyKey,
+        @ApiParam(value = "Order origin and destination coordinates") @Valid @RequestBody OrderCoordinates orderCoordinates
+    ) {
+        OrderIntakeService intake = orderIntakeService.getIfAvailable();
+        if (intake == null) {
+            return createOrder(idempotencyKey, orderCoordinates);
+        }
+
+        log.info("POST request to accept an order. orderCoordinates = {}", orderCoordinates);
+        Supplier<Order> submission = () -> intake.submit(orderCoordinates.getOrigin(), orderCoordinates.getDestination());
+        Order order = idempotencyKey == null ? submission.get() : idempotent(idempotencyKey, orderCoordinates, submission);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(order.getId()).toUri();
+        return CompletableFuture.completedFuture(ResponseEntity.accepted()
+            .location(location)
+            .header(PREFERENCE_APPLIED_HEADER, RESPOND_ASYNC)
+            .body(order));
+    }
+
+    /**
+     * Create several orders at once
+     *
+     * @param orderCoordinates origin and destination of each order
+     * @return the result of each order, in the order of the request: the created order, or why it was not created
+     */
+    @PostMapping("/batch")
+    @ApiOperation("Create several orders")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<List<BulkOrderResult>> createOrders(
+        @ApiParam(value = "Origin and destination coordinates of each order")
+        @RequestBody @NotEmpty @Size(max = OrderService.MAX_BULK_ORDERS) List<@Valid OrderCoordinates> orderCoordinates
+    ) {
+        log.info("POST request to create {} orders", orderCoordinates.size());
+        return ResponseEntity.ok(orderService.createOrders(orderCoordinates));
     }
 
     /**
-     * List orders
+     * List the unassigned and taken orders: pending and failed orders are not listed
      *
      * @param page  Page number
      * @param limit Page size of orders to display
-     * @return Order list by page
+     * @return Order list by page, with a 'Link' header to the next page, continued with a cursor
      */
     @GetMapping()
     @ApiOperation("Get orders")
@@ -85,7 +178,45 @@ public class OrderResource {
         @ApiParam("The size of the requested page") @RequestParam @Min(1) int limit
     ) {
         log.info("GET request to get orders. page = {}, limit = {}", page, limit);
-        return ResponseEntity.ok(orderService.getOrders(page, limit));
+        return ordersResponse(orderService.getOrders(page, limit), limit);
+    }
+
+    /**
+     * List the unassigned and taken orders following a cursor, at the same cost whatever the depth of the page
+     *
+     * @param cursor Continuation token of the previous page, from its 'Link' header
+     * @param limit  Page size of orders to display
+     * @return Order list, with a 'Link' header to the next page
+     */
+    @GetMapping(params = "cursor")
+    @ApiOperation("Get orders following a cursor")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<List<Order>> getOrdersAfter(
+        @ApiParam("Continuation token of the previous page") @RequestParam String cursor,
+        @ApiParam("The size of the requested page") @RequestParam @Min(1) int limit
+    ) {
+        log.info("GET request to get orders. cursor = {}, limit = {}", cursor, limit);
+        return ordersResponse(orderService.getOrdersAfter(cursor, limit), limit);
+    }
+
+    /**
+     * Get an order, to follow an order accepted asynchronously
+     *
+     * @param id Order id
+     * @return the order, PENDING until its distance is resolved, then UNASSIGNED, or FAILED with the failure reason
+     */
+    @GetMapping("/{id}")
+    @ApiOperation("Get an order")
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = "Order not found"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<Order> getOrder(@ApiParam(value = "Order ID") @PathVariable(value = "id") int id) {
+        log.info("GET request to get an order. Order id = {}", id);
+        return ResponseEntity.ok(orderService.getOrder(id));
     }
 
     /**
@@ -100,7 +231,7 @@ public class OrderResource {
     @ApiResponses(value = {
         @ApiResponse(code = 400, message = "Bad request"),
         @ApiResponse(code = 404, message = "Order not found"),
-        @ApiResponse(code = 412, message = "Order already taken"),
+        @ApiResponse(code = 412, message = "Order already taken or not available"),
         @ApiResponse(code = 500, message = "Internal server error")
     })
     public ResponseEntity<PatchOrderResponse> takeOrder(
@@ -110,4 +241,71 @@ public class OrderResource {
         log.info("PATCH request to take an order. Order id = {}, order status = {}", id, orderStatus);
         return ResponseEntity.ok(orderService.takeOrder(id, orderStatus.getStatus()));
     }
+
+    /**
+     * Take several orders at once, status = TAKEN
+     *
+     * @param ordersStatus ids of the orders to take and the order status to update
+     * @return the outcome of each order, in the order of the request: taken, already taken, not available or not found
+     */
+    @PatchMapping("/batch")
+    @ApiOperation("Take several orders")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Bad request"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<List<BulkTakeOrderResult>> takeOrders(
+        @ApiParam(value = "Ids of the orders to take and order status") @Valid @RequestBody OrdersStatus ordersStatus
+    ) {
+        log.info("PATCH request to take {} orders, order status = {}", ordersStatus.getIds().size(), ordersStatus.getStatus());
+        return ResponseEntity.ok(orderService.takeOrders(ordersStatus.getIds(), ordersStatus.getStatus()));
+    }
+
+    /**
+     * Take the next unassigned order, instead of racing the other drivers for the orders of a list
+     *
+     * @param shortestFirst take the order with the shortest distance, else the oldest one
+     * @return the taken order
+     */
+    @PatchMapping("/next")
+    @ApiOperation("Take the next available order")
+    @ApiResponses(value = {
+        @ApiResponse(code = 404, message = "No order available"),
+        @ApiResponse(code = 409, message = "Orders claimed concurrently, retry"),
+        @ApiResponse(code = 500, message = "Internal server error")
+    })
+    public ResponseEntity<Order> claimNextOrder(
+        @ApiParam("Take the order with the shortest distance first") @RequestParam(defaultValue = "false") boolean shortestFirst
+    ) {
+        log.info("PATCH request to take the next order. shortest first = {}", shortestFirst);
+        return ResponseEntity.ok(orderClaimService.claimNextOrder(shortestFirst));
+    }
+
+    private static ResponseEntity<List<Order>> ordersResponse(OrderSlice orderSlice, int limit) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (orderSlice.getNextCursor() != null) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page")
+                .replaceQueryParam("cursor", orderSlice.getNextCursor())
+                .replaceQueryParam("limit", limit)
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(orderSlice.getOrders());
+    }
+
+    private ResponseEntity<Order> createOrderSync(String idempotencyKey, OrderCoordinates orderCoordinates) {
+        Supplier<Order> creation = () -> orderService.createOrder(orderCoordinates.getOrigin(), orderCoordinates.getDestination());
+        return ResponseEntity.ok(idempotencyKey == null ? creation.get() : idempotent(idempotencyKey, orderCoordinates, creation));
+    }
+
+    private CompletableFuture<ResponseEntity<Order>> createOrderAsync(OrderCoordinates orderCoordinates) {
+        return orderService.createOrderAsync(orderCoordinates.getOrigin(), orderCoordinates.getDestination())
+            .thenApply(ResponseEntity::ok);
+    }
+
+    private Order idempotent(String idempotencyKey, OrderCoordinates orderCoordinates, Supplier<Order> creation) {
+        String fingerprint = orderCoordinates.getOrigin() + ";" + orderCoordinates.getDestination();
+        return idempotencyStore.execute(idempotencyKey, fingerprint, creation);
+    }
 }
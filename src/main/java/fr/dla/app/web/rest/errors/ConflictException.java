@@ -0,0 +1,13 @@
+package fr.dla.app.web.rest.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.zalando.problem.Status;
+
+@ResponseStatus(code = HttpStatus.CONFLICT)
+public class ConflictException extends DlappException {
+
+    public ConflictException(String defaultMessage, String entityName, String errorKey) {
+        super(Status.CONFLICT, ErrorConstants.DEFAULT_TYPE, defaultMessage, entityName, errorKey);
+    }
+}
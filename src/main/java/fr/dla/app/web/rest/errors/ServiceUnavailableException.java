@@ -0,0 +1,13 @@
+package fr.dla.app.web.rest.errors;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.zalando.problem.Status;
+
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceUnavailableException extends DlappException {
+
+    public ServiceUnavailableException(String msg, String entityName, String errorKey) {
+        super(Status.SERVICE_UNAVAILABLE, ErrorConstants.DEFAULT_TYPE, msg, entityName, errorKey);
+    }
+}
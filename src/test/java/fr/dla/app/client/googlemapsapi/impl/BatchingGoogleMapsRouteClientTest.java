@@ -0,0 +1,156 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint DEPOT = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint FIRST_DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final GeoPoint SECOND_DESTINATION = GeoPoint.of(48.856613, 2.352222);
+    private static final GeoPoint OTHER_ORIGIN = GeoPoint.of(22.33932, 114.147315);
+    private static final GeoPoint ANOTHER_ORIGIN = GeoPoint.of(-0.611764, 73.093789);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private BatchingGoogleMapsRouteClient batchingClient;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties.GoogleMapsApi.Batching batchingProperties = new ApplicationProperties.GoogleMapsApi.Batching();
+        batchingProperties.setWindow(Duration.ofSeconds(2));
+        batchingProperties.setMaxElements(2);
+        batchingClient = new BatchingGoogleMapsRouteClient(delegate, batchingProperties, new SimpleMeterRegistry());
+        executorService = Executors.newFixedThreadPool(3);
+    }
+
+    @AfterEach
+    void clean() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void getDistance_withConcurrentLookupsFromSameOrigin_shouldSendOneRequest() throws Exception {
+        //inputs
+        DistanceMatrixResponseEntity matrix = DistanceMatrixResponseEntity.builder()
+            .rows(Collections.singletonList(new Row(Arrays.asList(element(100), element(200)))))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+        Mockito.when(delegate.getDistanceMatrix(anyList(), anyList())).thenReturn(matrix);
+
+        //test
+        Future<DistanceMatrixResponseEntity> firstResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(DEPOT, FIRST_DESTINATION));
+        Thread.sleep(100);
+        Future<DistanceMatrixResponseEntity> secondResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(DEPOT, SECOND_DESTINATION));
+
+        //checks
+        assertThat(distanceOf(firstResult.get(1, TimeUnit.SECONDS))).isEqualTo(100);
+        assertThat(distanceOf(secondResult.get(1, TimeUnit.SECONDS))).isEqualTo(200);
+        Mockito.verify(delegate).getDistanceMatrix(Collections.singletonList(DEPOT), Arrays.asList(FIRST_DESTINATION, SECOND_DESTINATION));
+    }
+
+    @Test
+    void getDistance_withTopLevelError_shouldReturnErrorStatusToEveryLookup() throws Exception {
+        //inputs
+        DistanceMatrixResponseEntity matrix = DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build();
+        Mockito.when(delegate.getDistanceMatrix(anyList(), anyList())).thenReturn(matrix);
+
+        //test
+        Future<DistanceMatrixResponseEntity> firstResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(DEPOT, FIRST_DESTINATION));
+        Thread.sleep(100);
+        Future<DistanceMatrixResponseEntity> secondResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(DEPOT, SECOND_DESTINATION));
+
+        //checks
+        assertThat(firstResult.get(1, TimeUnit.SECONDS).getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT);
+        assertThat(secondResult.get(1, TimeUnit.SECONDS).getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT);
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceMatrix(anyList(), anyList());
+    }
+
+    @Test
+    void getDistance_withUnrelatedLookups_shouldOnlyRequestTheElementsOfTheLookups() throws Exception {
+        //inputs
+        Mockito.when(delegate.getDistanceMatrix(anyList(), anyList())).thenAnswer(invocation -> matrix(
+            invocation.<List<GeoPoint>>getArgument(0).size(), invocation.<List<GeoPoint>>getArgument(1).size()));
+
+        //test
+        Future<DistanceMatrixResponseEntity> firstResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(DEPOT, FIRST_DESTINATION));
+        Thread.sleep(100);
+        Future<DistanceMatrixResponseEntity> unrelatedResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(OTHER_ORIGIN, SECOND_DESTINATION));
+        Thread.sleep(100);
+        Future<DistanceMatrixResponseEntity> sameDestinationResult =
+            executorService.submit(() -> batchingClient.getDistanceDetailsBetweenTwoCoordinates(ANOTHER_ORIGIN, FIRST_DESTINATION));
+
+        //checks
+        assertThat(distanceOf(firstResult.get(3, TimeUnit.SECONDS))).isEqualTo(100);
+        assertThat(distanceOf(sameDestinationResult.get(3, TimeUnit.SECONDS))).isEqualTo(200);
+        assertThat(distanceOf(unrelatedResult.get(3, TimeUnit.SECONDS))).isEqualTo(100);
+        ArgumentCaptor<List<GeoPoint>> origins = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<GeoPoint>> destinations = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(delegate, Mockito.times(2)).getDistanceMatrix(origins.capture(), destinations.capture());
+        int requestedElements = IntStream.range(0, 2)
+            .map(i -> origins.getAllValues().get(i).size() * destinations.getAllValues().get(i).size())
+            .sum();
+        assertThat(requestedElements).isEqualTo(3);
+        Mockito.verify(delegate).getDistanceMatrix(Arrays.asList(DEPOT, ANOTHER_ORIGIN), Collections.singletonList(FIRST_DESTINATION));
+        Mockito.verify(delegate).getDistanceMatrix(Collections.singletonList(OTHER_ORIGIN), Collections.singletonList(SECOND_DESTINATION));
+    }
+
+    /**
+     * A matrix whose element of origin i is at distance 100 * (i + 1).
+     */
+    private static DistanceMatrixResponseEntity matrix(int origins, int destinations) {
+        return DistanceMatrixResponseEntity.builder()
+            .rows(IntStream.range(0, origins)
+                .mapToObj(i -> new Row(Collections.nCopies(destinations, element(100 * (i + 1)))))
+                .collect(Collectors.toList()))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+    }
+
+    private static Element element(int distance) {
+        return Element.builder().distance(new Distance(null, distance)).status(GoogleApiElementLevelStatusEnum.OK).build();
+    }
+
+    private static Integer distanceOf(DistanceMatrixResponseEntity response) {
+        return response.getRows().get(0).getElements().get(0).getDistance().getValue();
+    }
+}
@@ -0,0 +1,118 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class BulkheadGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private BulkheadGoogleMapsRouteClient bulkheadClient;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.GoogleMapsApi.Bulkhead bulkheadProperties = new ApplicationProperties.GoogleMapsApi.Bulkhead();
+        bulkheadProperties.setMaxConcurrentCalls(1);
+        bulkheadProperties.setMaxWait(Duration.ofMillis(20));
+        bulkheadClient = new BulkheadGoogleMapsRouteClient(delegate, bulkheadProperties, meterRegistry);
+    }
+
+    @Test
+    void getDistance_withBulkheadFull_shouldThrowServiceUnavailableAfterMaxWait() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(new CompletableFuture<>());
+        bulkheadClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //test & checks
+        assertThatThrownBy(() -> bulkheadClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .isInstanceOf(ServiceUnavailableException.class)
+            .hasFieldOrPropertyWithValue("errorKey", BulkheadGoogleMapsRouteClient.BULKHEAD_FULL_ERROR_KEY);
+        Mockito.verify(delegate, Mockito.never()).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        assertThat(meterRegistry.get(BulkheadGoogleMapsRouteClient.ACTIVE_METRIC_NAME).gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get(BulkheadGoogleMapsRouteClient.REJECTED_METRIC_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistanceAsync_withBulkheadFull_shouldFailWithoutWaiting() {
+        //inputs
+        CompletableFuture<DistanceMatrixResponseEntity> pending = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(pending);
+        bulkheadClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> rejected = bulkheadClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //checks
+        assertThatThrownBy(rejected::join)
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(ServiceUnavailableException.class);
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void getDistanceAsync_whenCompleted_shouldReleasePermit() {
+        //inputs
+        CompletableFuture<DistanceMatrixResponseEntity> pending = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(pending);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(okResponse());
+        bulkheadClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //test
+        pending.complete(okResponse());
+        DistanceMatrixResponseEntity response = bulkheadClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(bulkheadClient.getActiveCalls()).isZero();
+    }
+
+    @Test
+    void getDistance_withError_shouldReleasePermit() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"))
+            .thenReturn(okResponse());
+
+        //test
+        assertThatThrownBy(() -> bulkheadClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .isInstanceOf(InternalServerErrorException.class);
+        DistanceMatrixResponseEntity response = bulkheadClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(bulkheadClient.getActiveCalls()).isZero();
+    }
+
+    private static DistanceMatrixResponseEntity okResponse() {
+        return DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+    }
+}
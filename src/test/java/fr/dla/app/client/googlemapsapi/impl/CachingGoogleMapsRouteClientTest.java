@@ -0,0 +1,127 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class CachingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final GeoPoint OTHER_DESTINATION = GeoPoint.of(48.8, 2.7);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private CachingGoogleMapsRouteClient cachingClient;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.GoogleMapsApi.Cache cacheProperties = new ApplicationProperties.GoogleMapsApi.Cache();
+        cacheProperties.setPrecision(4);
+        cachingClient = new CachingGoogleMapsRouteClient(delegate, cacheProperties, meterRegistry);
+    }
+
+    @Test
+    void getDistance_withCloseCoordinates_shouldCallGoogleOnce() {
+        //inputs
+        DistanceMatrixResponseEntity response = DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(response);
+
+        //test
+        DistanceMatrixResponseEntity firstResponse = cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        DistanceMatrixResponseEntity secondResponse = cachingClient.getDistanceDetailsBetweenTwoCoordinates(
+            GeoPoint.of(48.858249, 2.294638), GeoPoint.of(48.868481, 2.781911));
+
+        //checks
+        assertThat(firstResponse).isSameAs(response);
+        assertThat(secondResponse).isSameAs(response);
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinates(Mockito.any(), Mockito.any());
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistance_withErrorStatus_shouldNotCacheResponse() {
+        //inputs
+        DistanceMatrixResponseEntity response = DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(response);
+
+        //test
+        cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        Mockito.verify(delegate, Mockito.times(2)).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void getDistanceMatrix_withOneCachedRoute_shouldRequestOnlyTheMissingDestinationAndCacheIt() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(okResponse(10));
+        cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        Mockito.when(delegate.getDistanceMatrix(Collections.singletonList(ORIGIN), Collections.singletonList(OTHER_DESTINATION)))
+            .thenReturn(okResponse(20));
+
+        //test
+        DistanceMatrixResponseEntity response = cachingClient.getDistanceMatrix(
+            Collections.singletonList(ORIGIN), Arrays.asList(DESTINATION, OTHER_DESTINATION));
+        DistanceMatrixResponseEntity cachedResponse = cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, OTHER_DESTINATION);
+
+        //checks
+        assertThat(response.getRows().get(0).getElements())
+            .extracting(element -> element.getDistance().getValue())
+            .containsExactly(10, 20);
+        assertThat(cachedResponse.getRows().get(0).getElements().get(0).getDistance().getValue()).isEqualTo(20);
+        Mockito.verify(delegate, Mockito.never()).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, OTHER_DESTINATION);
+    }
+
+    @Test
+    void getDistanceMatrix_withEveryRouteCached_shouldNotCallGoogle() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(okResponse(10));
+        cachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //test
+        DistanceMatrixResponseEntity response = cachingClient.getDistanceMatrix(
+            Collections.singletonList(ORIGIN), Collections.singletonList(DESTINATION));
+
+        //checks
+        assertThat(response.getRows().get(0).getElements().get(0).getDistance().getValue()).isEqualTo(10);
+        Mockito.verify(delegate, Mockito.never()).getDistanceMatrix(Mockito.any(), Mockito.any());
+    }
+
+    private static DistanceMatrixResponseEntity okResponse(int distance) {
+        return DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .rows(Collections.singletonList(new Row(Collections.singletonList(Element.builder()
+                .distance(new Distance(null, distance))
+                .status(GoogleApiElementLevelStatusEnum.OK)
+                .build()))))
+            .build();
+    }
+}
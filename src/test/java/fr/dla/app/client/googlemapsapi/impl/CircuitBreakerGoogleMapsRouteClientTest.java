@@ -0,0 +1,137 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    private MeterRegistry meterRegistry;
+
+    private CircuitBreakerGoogleMapsRouteClient circuitBreakerClient;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.GoogleMapsApi.CircuitBreaker circuitBreakerProperties = new ApplicationProperties.GoogleMapsApi.CircuitBreaker();
+        circuitBreakerProperties.setWindowSize(4);
+        circuitBreakerProperties.setMinimumCalls(4);
+        circuitBreakerProperties.setFailureRateThreshold(50);
+        circuitBreakerProperties.setSlowCallRateThreshold(50);
+        circuitBreakerProperties.setSlowCallDuration(Duration.ofSeconds(2));
+        circuitBreakerProperties.setOpenDuration(Duration.ofSeconds(30));
+        circuitBreakerProperties.setHalfOpenCalls(2);
+        circuitBreakerProperties.setRoadFactor(1.3);
+        circuitBreakerClient = new CircuitBreakerGoogleMapsRouteClient(delegate, circuitBreakerProperties, nanoClock::get, meterRegistry);
+    }
+
+    @Test
+    void getDistance_withFailureRateAboveThreshold_shouldOpenAndEstimateDistance() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(okResponse(), okResponse())
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"));
+
+        //test
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        callIgnoringError();
+        callIgnoringError();
+        DistanceMatrixResponseEntity response = circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        Mockito.verify(delegate, Mockito.times(4)).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        assertThat(circuitBreakerClient.getState()).isEqualTo(CircuitBreakerGoogleMapsRouteClient.State.OPEN);
+        assertThat(response.isEstimated()).isTrue();
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(response.getRows().get(0).getElements().get(0).getDistance().getValue()).isCloseTo(46360, within(10));
+        assertThat(meterRegistry.get(CircuitBreakerGoogleMapsRouteClient.SHORT_CIRCUITED_METRIC_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(CircuitBreakerGoogleMapsRouteClient.TRANSITIONS_METRIC_NAME)
+            .tag("from", "closed").tag("to", "open").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistance_withSlowCallRateAboveThreshold_shouldOpen() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenAnswer(invocation -> {
+            nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(3));
+            return okResponse();
+        });
+
+        //test
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(circuitBreakerClient.getState()).isEqualTo(CircuitBreakerGoogleMapsRouteClient.State.OPEN);
+    }
+
+    @Test
+    void getDistance_withSuccessfulTrialCalls_shouldClose() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"))
+            .thenReturn(okResponse());
+        for (int i = 0; i < 4; i++) {
+            callIgnoringError();
+        }
+
+        //test
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        DistanceMatrixResponseEntity firstTrial = circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        CircuitBreakerGoogleMapsRouteClient.State stateAfterFirstTrial = circuitBreakerClient.getState();
+        circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(firstTrial.isEstimated()).isFalse();
+        assertThat(stateAfterFirstTrial).isEqualTo(CircuitBreakerGoogleMapsRouteClient.State.HALF_OPEN);
+        assertThat(circuitBreakerClient.getState()).isEqualTo(CircuitBreakerGoogleMapsRouteClient.State.CLOSED);
+        assertThat(meterRegistry.get(CircuitBreakerGoogleMapsRouteClient.TRANSITIONS_METRIC_NAME)
+            .tag("from", "half_open").tag("to", "closed").counter().count()).isEqualTo(1);
+    }
+
+    private void callIgnoringError() {
+        try {
+            circuitBreakerClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        } catch (InternalServerErrorException ex) {
+            // expected, recorded as a failure
+        }
+    }
+
+    private static DistanceMatrixResponseEntity okResponse() {
+        return DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+    }
+}
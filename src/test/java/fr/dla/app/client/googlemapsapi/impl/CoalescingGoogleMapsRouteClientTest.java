@@ -0,0 +1,140 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final int CALLERS = 8;
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private CoalescingGoogleMapsRouteClient coalescingClient;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        coalescingClient = new CoalescingGoogleMapsRouteClient(delegate, new ApplicationProperties.GoogleMapsApi.Coalescing(), meterRegistry);
+        executorService = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void clean() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void getDistance_withConcurrentIdenticalCalls_shouldCallGoogleOnce() throws Exception {
+        //inputs
+        DistanceMatrixResponseEntity response = DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+        CountDownLatch releaseGoogleCall = new CountDownLatch(1);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenAnswer(invocation -> {
+            releaseGoogleCall.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+
+        //test
+        List<Future<DistanceMatrixResponseEntity>> results = submitCallers();
+        awaitCoalescedCallers();
+        releaseGoogleCall.countDown();
+
+        //checks
+        for (Future<DistanceMatrixResponseEntity> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(response);
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void getDistance_withSharedCallError_shouldThrowErrorToEveryCaller() throws Exception {
+        //inputs
+        InternalServerErrorException error = new InternalServerErrorException("Google is down", "googleApi", "googleApiException");
+        CountDownLatch releaseGoogleCall = new CountDownLatch(1);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenAnswer(invocation -> {
+            releaseGoogleCall.await(5, TimeUnit.SECONDS);
+            throw error;
+        });
+
+        //test
+        List<Future<DistanceMatrixResponseEntity>> results = submitCallers();
+        awaitCoalescedCallers();
+        releaseGoogleCall.countDown();
+
+        //checks
+        for (Future<DistanceMatrixResponseEntity> result : results) {
+            Throwable thrown = catchThrowable(() -> result.get(5, TimeUnit.SECONDS));
+            assertThat(thrown).isInstanceOf(ExecutionException.class).hasCause(error);
+        }
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+    }
+
+    @Test
+    void getDistanceAsync_withDelegateThrowingBeforeCalling_shouldFailAndNotBlockNextLookups() {
+        //inputs
+        IllegalStateException error = new IllegalStateException("Request cannot be executed; I/O reactor status: STOPPED");
+        DistanceMatrixResponseEntity response = DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION))
+            .thenThrow(error)
+            .thenReturn(CompletableFuture.completedFuture(response));
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> failedLookup = coalescingClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        CompletableFuture<DistanceMatrixResponseEntity> nextLookup = coalescingClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(failedLookup).isCompletedExceptionally();
+        assertThat(catchThrowable(failedLookup::join)).hasCause(error);
+        assertThat(nextLookup.getNow(null)).isSameAs(response);
+        Mockito.verify(delegate, Mockito.times(2)).getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+    }
+
+    private List<Future<DistanceMatrixResponseEntity>> submitCallers() {
+        List<Future<DistanceMatrixResponseEntity>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executorService.submit(() -> coalescingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)));
+        }
+        return results;
+    }
+
+    private void awaitCoalescedCallers() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get(CoalescingGoogleMapsRouteClient.COALESCED_METRIC_NAME).counter().count() < CALLERS - 1
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.service.DistanceCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseCachingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.85824, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final String STORAGE_KEY = "5:4885824,229464;4886848,278191";
+    private static final GeoPoint OTHER_DESTINATION = GeoPoint.of(48.80000, 2.70000);
+    private static final String OTHER_STORAGE_KEY = "5:4885824,229464;4880000,270000";
+    private static final int DISTANCE = 45612;
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    @Mock
+    private DistanceCacheService distanceCacheService;
+
+    private MeterRegistry meterRegistry;
+
+    private DatabaseCachingGoogleMapsRouteClient databaseCachingClient;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.GoogleMapsApi.DatabaseCache databaseCacheProperties = new ApplicationProperties.GoogleMapsApi.DatabaseCache();
+        databaseCachingClient = new DatabaseCachingGoogleMapsRouteClient(delegate, databaseCacheProperties, distanceCacheService,
+            Runnable::run, meterRegistry);
+    }
+
+    @Test
+    void getDistance_withStoredDistance_shouldNotCallGoogle() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenReturn(Optional.of(DISTANCE));
+
+        //test
+        DistanceMatrixResponseEntity response = databaseCachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(response.getRows().get(0).getElements().get(0).getStatus()).isEqualTo(GoogleApiElementLevelStatusEnum.OK);
+        assertThat(response.getRows().get(0).getElements().get(0).getDistance().getValue()).isEqualTo(DISTANCE);
+        Mockito.verifyNoInteractions(delegate);
+        assertThat(meterRegistry.get(DatabaseCachingGoogleMapsRouteClient.DATABASE_CACHE_METRIC_NAME).tag("result", "hit")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistance_withoutStoredDistance_shouldCallGoogleAndStoreDistance() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenReturn(Optional.empty());
+        DistanceMatrixResponseEntity googleResponse = okResponse(DISTANCE);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(googleResponse);
+
+        //test
+        DistanceMatrixResponseEntity response = databaseCachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response).isSameAs(googleResponse);
+        Mockito.verify(distanceCacheService).saveDistance(STORAGE_KEY, DISTANCE);
+    }
+
+    @Test
+    void getDistanceAsync_withoutStoredDistance_shouldCallGoogleAndStoreDistance() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenReturn(Optional.empty());
+        DistanceMatrixResponseEntity googleResponse = okResponse(DISTANCE);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION))
+            .thenReturn(CompletableFuture.completedFuture(googleResponse));
+
+        //test
+        DistanceMatrixResponseEntity response = databaseCachingClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION).join();
+
+        //checks
+        assertThat(response).isSameAs(googleResponse);
+        Mockito.verify(distanceCacheService).saveDistance(STORAGE_KEY, DISTANCE);
+    }
+
+    @Test
+    void getDistance_withEstimatedDistance_shouldNotStoreDistance() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenReturn(Optional.empty());
+        DistanceMatrixResponseEntity estimatedResponse = okResponse(DISTANCE);
+        estimatedResponse.setEstimated(true);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(estimatedResponse);
+
+        //test
+        databaseCachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        Mockito.verify(distanceCacheService, Mockito.never()).saveDistance(Mockito.anyString(), Mockito.anyInt());
+    }
+
+    @Test
+    void getDistance_withDatabaseUnavailable_shouldCallGoogle() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        DistanceMatrixResponseEntity googleResponse = okResponse(DISTANCE);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(googleResponse);
+
+        //test
+        DistanceMatrixResponseEntity response = databaseCachingClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response).isSameAs(googleResponse);
+    }
+
+    @Test
+    void getDistanceMatrix_withOneStoredDistance_shouldRequestOnlyTheMissingDestinationAndStoreIt() {
+        //inputs
+        Mockito.when(distanceCacheService.findDistance(STORAGE_KEY)).thenReturn(Optional.of(DISTANCE));
+        Mockito.when(distanceCacheService.findDistance(OTHER_STORAGE_KEY)).thenReturn(Optional.empty());
+        Mockito.when(delegate.getDistanceMatrix(Collections.singletonList(ORIGIN), Collections.singletonList(OTHER_DESTINATION)))
+            .thenReturn(okResponse(DISTANCE + 1));
+
+        //test
+        DistanceMatrixResponseEntity response = databaseCachingClient.getDistanceMatrix(
+            Collections.singletonList(ORIGIN), Arrays.asList(DESTINATION, OTHER_DESTINATION));
+
+        //checks
+        assertThat(response.getRows().get(0).getElements())
+            .extracting(element -> element.getDistance().getValue())
+            .containsExactly(DISTANCE, DISTANCE + 1);
+        Mockito.verify(distanceCacheService).saveDistance(OTHER_STORAGE_KEY, DISTANCE + 1);
+        Mockito.verify(distanceCacheService, Mockito.never()).saveDistance(STORAGE_KEY, DISTANCE);
+    }
+
+    private static DistanceMatrixResponseEntity okResponse(int distance) {
+        return DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .rows(Collections.singletonList(new Row(Collections.singletonList(Element.builder()
+                .distance(new Distance("45.6 km", distance))
+                .status(GoogleApiElementLevelStatusEnum.OK)
+                .build()))))
+            .build();
+    }
+}
@@ -0,0 +1,61 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.domain.GeoPoint;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DistanceMatrixRequestTemplateTest {
+
+    private static final String ENDPOINT_URL = "https://maps.googleapis.com/maps/api/distancematrix/json";
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    private final DistanceMatrixRequestTemplate requestTemplate = new DistanceMatrixRequestTemplate(ENDPOINT_URL, "KEY+/=");
+
+    @Test
+    void uri_withOneOriginAndDestination_shouldBuildRequest() {
+        //test
+        URI uri = requestTemplate.uri(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(uri.toString()).isEqualTo(ENDPOINT_URL
+            + "?origins=48.858245,2.294642&destinations=48.86848,2.781909&key=KEY%2B%2F%3D");
+    }
+
+    @Test
+    void uri_withSeveralOrigins_shouldSeparateThemWithEncodedPipe() {
+        //test
+        URI uri = requestTemplate.uri(Arrays.asList(ORIGIN, DESTINATION), Arrays.asList(DESTINATION, ORIGIN));
+
+        //checks
+        assertThat(uri.getRawQuery()).startsWith("origins=48.858245,2.294642%7C48.86848,2.781909&destinations=");
+        assertThat(uri.getQuery()).startsWith("origins=48.858245,2.294642|48.86848,2.781909&destinations=");
+    }
+
+    @Test
+    void uri_withNegativeAndWholeCoordinates_shouldWriteThemWithoutTrailingZeros() {
+        //inputs
+        GeoPoint origin = GeoPoint.of(-33.8688, 151);
+        GeoPoint destination = GeoPoint.of(-0.0000001, -70.5);
+
+        //test
+        URI uri = requestTemplate.uri(origin, destination);
+
+        //checks
+        assertThat(uri.getRawQuery()).startsWith("origins=-33.8688,151&destinations=-0.0000001,-70.5&key=");
+    }
+
+    @Test
+    void uri_calledTwiceOnSameThread_shouldNotKeepPreviousCoordinates() {
+        //test
+        requestTemplate.uri(Arrays.asList(ORIGIN, DESTINATION, ORIGIN), Arrays.asList(DESTINATION, ORIGIN));
+        URI uri = requestTemplate.uri(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(uri.getRawQuery()).isEqualTo("origins=48.858245,2.294642&destinations=48.86848,2.781909&key=KEY%2B%2F%3D");
+    }
+}
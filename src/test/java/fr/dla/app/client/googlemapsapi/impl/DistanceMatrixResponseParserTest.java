@@ -0,0 +1,98 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DistanceMatrixResponseParserTest {
+
+    private static final String OK_RESPONSE = "{" +
+        "\"destination_addresses\":[\"Avenue Gustave Eiffel, 75007 Paris, France\"]," +
+        "\"origin_addresses\":[\"Boulevard de Parc, 77700 Coupvray, France\"]," +
+        "\"rows\":[{\"elements\":[{" +
+        "\"distance\":{\"text\":\"45.6 km\",\"value\":45612}," +
+        "\"duration\":{\"text\":\"48 mins\",\"value\":2856}," +
+        "\"status\":\"OK\"}]}]," +
+        "\"status\":\"OK\"}";
+
+    private final DistanceMatrixResponseParser parser = new DistanceMatrixResponseParser(new ObjectMapper().getFactory());
+
+    @Test
+    void parse_withOkResponse_shouldOnlyReadStatusesAndDistance() throws IOException {
+        //test
+        DistanceMatrixResponseEntity response = parser.parse(toStream(OK_RESPONSE));
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(response.getOrigin_addresses()).isNull();
+        assertThat(response.getDestination_addresses()).isNull();
+        assertThat(response.getRows()).hasSize(1);
+        assertThat(response.getRows().get(0).getElements()).hasSize(1);
+        Element element = response.getRows().get(0).getElements().get(0);
+        assertThat(element.getStatus()).isEqualTo(GoogleApiElementLevelStatusEnum.OK);
+        assertThat(element.getDistance().getValue()).isEqualTo(45612);
+        assertThat(element.getDistance().getText()).isNull();
+        assertThat(element.getDuration()).isNull();
+    }
+
+    @Test
+    void parse_withErrorResponse_shouldKeepStatusAndEmptyRows() throws IOException {
+        //inputs
+        String errorResponse = "{\"destination_addresses\":[],\"origin_addresses\":[],\"rows\":[]," +
+            "\"error_message\":\"The provided API key is invalid.\",\"status\":\"REQUEST_DENIED\"}";
+
+        //test
+        DistanceMatrixResponseEntity response = parser.parse(toStream(errorResponse));
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.REQUEST_DENIED);
+        assertThat(response.getRows()).isEmpty();
+    }
+
+    @Test
+    void parse_withElementWithoutDistance_shouldKeepElementStatus() throws IOException {
+        //inputs
+        String zeroResultsResponse = "{\"rows\":[{\"elements\":[{\"status\":\"ZERO_RESULTS\"}]}],\"status\":\"OK\"}";
+
+        //test
+        DistanceMatrixResponseEntity response = parser.parse(toStream(zeroResultsResponse));
+
+        //checks
+        Element element = response.getRows().get(0).getElements().get(0);
+        assertThat(element.getStatus()).isEqualTo(GoogleApiElementLevelStatusEnum.ZERO_RESULTS);
+        assertThat(element.getDistance()).isNull();
+    }
+
+    @Test
+    void parse_withUnknownStatus_shouldThrowJsonParseException() {
+        //inputs
+        String unknownStatusResponse = "{\"rows\":[],\"status\":\"NOT_A_STATUS\"}";
+
+        //test & checks
+        assertThatThrownBy(() -> parser.parse(toStream(unknownStatusResponse)))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("NOT_A_STATUS");
+    }
+
+    @Test
+    void parse_withEmptyBody_shouldReturnNull() throws IOException {
+        //test & checks
+        assertThat(parser.parse(toStream(""))).isNull();
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,175 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.simulator.DistanceMatrixSimulator;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import fr.dla.app.web.rest.errors.ProxyException;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the HTTP client against the local {@link DistanceMatrixSimulator}, for every status Google can answer.
+ */
+class GoogleMapsApiDistanceClientImplTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    private static DistanceMatrixSimulator simulator;
+    private static CloseableHttpAsyncClient asyncHttpClient;
+
+    private GoogleMapsApiDistanceClientImpl googleMapsApiDistanceClient;
+
+    @BeforeAll
+    static void startSimulator() throws IOException {
+        simulator = DistanceMatrixSimulator.start(0);
+        asyncHttpClient = HttpAsyncClients.createDefault();
+        asyncHttpClient.start();
+    }
+
+    @AfterAll
+    static void stopSimulator() throws IOException {
+        asyncHttpClient.close();
+        simulator.close();
+    }
+
+    @BeforeEach
+    void setup() {
+        googleMapsApiDistanceClient = new GoogleMapsApiDistanceClientImpl(new RestTemplate(new HttpComponentsClientHttpRequestFactory()),
+            asyncHttpClient, new ObjectMapper());
+        ReflectionTestUtils.setField(googleMapsApiDistanceClient, "endpointUrl", simulator.getUrl());
+        ReflectionTestUtils.setField(googleMapsApiDistanceClient, "apiKey", "SIMULATOR_KEY");
+        ReflectionTestUtils.setField(googleMapsApiDistanceClient, "compression", true);
+        ReflectionTestUtils.setField(googleMapsApiDistanceClient, "streamingParser", true);
+    }
+
+    @AfterEach
+    void clearFaults() {
+        simulator.clearFaults();
+    }
+
+    @Test
+    void getDistance_withValidCoordinates_shouldReturnSimulatedDistance() {
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        Element element = response.getRows().get(0).getElements().get(0);
+        assertThat(element.getStatus()).isEqualTo(GoogleApiElementLevelStatusEnum.OK);
+        assertThat(element.getDistance().getValue()).isEqualTo(DistanceMatrixSimulator.distanceMeters(48.858245, 2.294642, 48.868480, 2.781909));
+    }
+
+    @Test
+    void getDistanceAsync_withValidCoordinates_shouldReturnSimulatedDistance() {
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION).join();
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(response.getRows().get(0).getElements().get(0).getDistance().getValue())
+            .isEqualTo(DistanceMatrixSimulator.distanceMeters(48.858245, 2.294642, 48.868480, 2.781909));
+    }
+
+    @Test
+    void getDistanceMatrix_withSeveralOriginsAndDestinations_shouldReturnEveryElement() {
+        //inputs
+        List<GeoPoint> origins = Arrays.asList(ORIGIN, DESTINATION);
+        List<GeoPoint> destinations = Arrays.asList(DESTINATION, ORIGIN, GeoPoint.of(48.853, 2.3499));
+
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceMatrix(origins, destinations);
+
+        //checks
+        assertThat(response.getRows()).hasSize(2);
+        assertThat(response.getRows()).allSatisfy(row -> assertThat(row.getElements()).hasSize(3));
+        assertThat(response.getRows().get(1).getElements().get(0).getDistance().getValue()).isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GoogleApiTopLevelStatusEnum.class, mode = EnumSource.Mode.EXCLUDE, names = "OK")
+    void getDistance_withTopLevelError_shouldReturnStatus(GoogleApiTopLevelStatusEnum status) {
+        //inputs
+        simulator.topLevelFault(status, 1);
+
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(status);
+        assertThat(response.getRows()).isEmpty();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = GoogleApiElementLevelStatusEnum.class, mode = EnumSource.Mode.EXCLUDE, names = "OK")
+    void getDistance_withElementError_shouldReturnElementStatus(GoogleApiElementLevelStatusEnum status) {
+        //inputs
+        simulator.elementFault(status, 1);
+
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.OK);
+        assertThat(response.getRows().get(0).getElements().get(0).getStatus()).isEqualTo(status);
+        assertThat(response.getRows().get(0).getElements().get(0).getDistance()).isNull();
+    }
+
+    @Test
+    void getDistance_withTooManyElements_shouldReturnMaxElementsExceeded() {
+        //inputs
+        List<GeoPoint> points = Arrays.asList(ORIGIN, DESTINATION, ORIGIN, DESTINATION, ORIGIN, DESTINATION,
+            ORIGIN, DESTINATION, ORIGIN, DESTINATION, ORIGIN);
+
+        //test
+        DistanceMatrixResponseEntity response = googleMapsApiDistanceClient.getDistanceMatrix(points, points);
+
+        //checks
+        assertThat(response.getStatus()).isEqualTo(GoogleApiTopLevelStatusEnum.MAX_ELEMENTS_EXCEEDED);
+    }
+
+    @Test
+    void getDistance_withTooManyRequests_shouldThrowProxyException() {
+        //inputs
+        simulator.httpFault(429, 1);
+
+        //test & checks
+        assertThatThrownBy(() -> googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .isInstanceOf(ProxyException.class)
+            .hasFieldOrPropertyWithValue("errorKey", GoogleMapsApiDistanceClientImpl.TOO_MANY_REQUESTS_ERROR_KEY);
+    }
+
+    @Test
+    void getDistanceAsync_withServerError_shouldFailWithInternalServerError() {
+        //inputs
+        simulator.httpFault(503, 1);
+
+        //test & checks
+        assertThatThrownBy(() -> googleMapsApiDistanceClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION).join())
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(InternalServerErrorException.class);
+    }
+}
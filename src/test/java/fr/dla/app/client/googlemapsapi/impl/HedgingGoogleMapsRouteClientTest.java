@@ -0,0 +1,161 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class HedgingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledFuture<?> scheduledHedge;
+
+    private final ArgumentCaptor<Runnable> hedgeCaptor = ArgumentCaptor.forClass(Runnable.class);
+
+    private ApplicationProperties.GoogleMapsApi.Hedging hedgingProperties;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        hedgingProperties = new ApplicationProperties.GoogleMapsApi.Hedging();
+        hedgingProperties.setMaxRatio(1);
+    }
+
+    @Test
+    void getDistance_withFastResponse_shouldNotHedge() {
+        //inputs
+        HedgingGoogleMapsRouteClient client = newClient();
+        CompletableFuture<DistanceMatrixResponseEntity> primary = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(primary);
+        Mockito.doReturn(scheduledHedge).when(taskScheduler).schedule(hedgeCaptor.capture(), Mockito.any(Instant.class));
+        DistanceMatrixResponseEntity response = okResponse();
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> result = client.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        primary.complete(response);
+        hedgeCaptor.getValue().run();
+
+        //checks
+        assertThat(result.join()).isSameAs(response);
+        Mockito.verify(scheduledHedge).cancel(false);
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        assertThat(meterRegistry.get(HedgingGoogleMapsRouteClient.HEDGES_SENT_METRIC_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void getDistance_withSlowPrimaryRequest_shouldReturnHedgeResponseAndCancelPrimary() {
+        //inputs
+        HedgingGoogleMapsRouteClient client = newClient();
+        CompletableFuture<DistanceMatrixResponseEntity> primary = new CompletableFuture<>();
+        CompletableFuture<DistanceMatrixResponseEntity> hedge = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(primary, hedge);
+        Mockito.doReturn(scheduledHedge).when(taskScheduler).schedule(hedgeCaptor.capture(), Mockito.any(Instant.class));
+        DistanceMatrixResponseEntity response = okResponse();
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> result = client.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        hedgeCaptor.getValue().run();
+        hedge.complete(response);
+
+        //checks
+        assertThat(result.join()).isSameAs(response);
+        assertThat(primary.isCancelled()).isTrue();
+        assertThat(meterRegistry.get(HedgingGoogleMapsRouteClient.HEDGES_SENT_METRIC_NAME).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(HedgingGoogleMapsRouteClient.HEDGES_WON_METRIC_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistance_withPrimaryFailingWhileHedgeInFlight_shouldWaitForHedge() {
+        //inputs
+        HedgingGoogleMapsRouteClient client = newClient();
+        CompletableFuture<DistanceMatrixResponseEntity> primary = new CompletableFuture<>();
+        CompletableFuture<DistanceMatrixResponseEntity> hedge = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(primary, hedge);
+        Mockito.doReturn(scheduledHedge).when(taskScheduler).schedule(hedgeCaptor.capture(), Mockito.any(Instant.class));
+        DistanceMatrixResponseEntity response = okResponse();
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> result = client.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        hedgeCaptor.getValue().run();
+        primary.completeExceptionally(new InternalServerErrorException("Read timed out", GOOGLE_API_ENTITY, "googleApiException"));
+
+        //checks
+        assertThat(result.isDone()).isFalse();
+        hedge.complete(response);
+        assertThat(result.join()).isSameAs(response);
+    }
+
+    @Test
+    void getDistance_withExhaustedBudget_shouldNotHedge() {
+        //inputs
+        hedgingProperties.setMaxRatio(0.1);
+        HedgingGoogleMapsRouteClient client = newClient();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(new CompletableFuture<>());
+        Mockito.doReturn(scheduledHedge).when(taskScheduler).schedule(hedgeCaptor.capture(), Mockito.any(Instant.class));
+
+        //test
+        client.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        hedgeCaptor.getValue().run();
+
+        //checks
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+        assertThat(meterRegistry.get(HedgingGoogleMapsRouteClient.HEDGES_SENT_METRIC_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void getDelay_withEnoughSamples_shouldUsePercentileOfResponseTimes() {
+        //inputs
+        HedgingGoogleMapsRouteClient client = newClient();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION))
+            .thenReturn(CompletableFuture.completedFuture(okResponse()));
+
+        //test
+        long initialDelay = client.getDelayNanos();
+        for (int i = 0; i < HedgingGoogleMapsRouteClient.MIN_SAMPLES; i++) {
+            client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        }
+
+        //checks
+        assertThat(initialDelay).isEqualTo(hedgingProperties.getInitialDelay().toNanos());
+        assertThat(client.getDelayNanos()).isEqualTo(hedgingProperties.getMinDelay().toNanos());
+    }
+
+    private HedgingGoogleMapsRouteClient newClient() {
+        return new HedgingGoogleMapsRouteClient(delegate, hedgingProperties, taskScheduler, meterRegistry);
+    }
+
+    private static DistanceMatrixResponseEntity okResponse() {
+        return DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build();
+    }
+}
@@ -0,0 +1,212 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.ProxyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-10-17T06:30:00Z"));
+
+    private MeterRegistry meterRegistry;
+
+    private MetricsGoogleMapsRouteClient metricsClient;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties.GoogleMapsApi.Metrics metricsProperties = new ApplicationProperties.GoogleMapsApi.Metrics();
+        metricsProperties.setDailyQuota(1000);
+        metricsProperties.setResetHour(8);
+        metricsProperties.setResetZone("UTC");
+        metricsClient = new MetricsGoogleMapsRouteClient(delegate, metricsProperties, clock, meterRegistry);
+    }
+
+    @Test
+    void constructor_shouldRegisterEveryStatus() {
+        //checks
+        for (GoogleApiTopLevelStatusEnum status : GoogleApiTopLevelStatusEnum.values()) {
+            assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+                .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", status.name()).timer().count()).isZero();
+        }
+        for (GoogleApiElementLevelStatusEnum status : GoogleApiElementLevelStatusEnum.values()) {
+            assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.ELEMENTS_METRIC_NAME)
+                .tag("status", status.name()).counter().count()).isZero();
+        }
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.DAILY_QUOTA_METRIC_NAME).gauge().value()).isEqualTo(1000);
+    }
+
+    @Test
+    void getDistanceMatrix_withOkResponse_shouldCountBillableElements() {
+        //inputs
+        Mockito.when(delegate.getDistanceMatrix(Arrays.asList(ORIGIN, DESTINATION), Collections.singletonList(DESTINATION)))
+            .thenReturn(response(GoogleApiElementLevelStatusEnum.OK, GoogleApiElementLevelStatusEnum.ZERO_RESULTS));
+
+        //test
+        metricsClient.getDistanceMatrix(Arrays.asList(ORIGIN, DESTINATION), Collections.singletonList(DESTINATION));
+
+        //checks
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.MATRIX_TYPE).tag("status", "OK").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.ELEMENTS_METRIC_NAME)
+            .tag("status", "OK").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.ELEMENTS_METRIC_NAME)
+            .tag("status", "ZERO_RESULTS").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.BILLABLE_ELEMENTS_METRIC_NAME).counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.DAILY_USAGE_METRIC_NAME).gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void getDistance_withTopLevelError_shouldNotCountBillableElements() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build());
+
+        //test
+        metricsClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", "OVER_QUERY_LIMIT").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.BILLABLE_ELEMENTS_METRIC_NAME).counter().count()).isZero();
+    }
+
+    @Test
+    void getDistanceAsync_withTooManyRequests_shouldRecordTooManyRequestsStatus() {
+        //inputs
+        CompletableFuture<DistanceMatrixResponseEntity> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new ProxyException("429 Too Many Requests", GOOGLE_API_ENTITY,
+            GoogleMapsApiDistanceClientImpl.TOO_MANY_REQUESTS_ERROR_KEY));
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(failed);
+
+        //test
+        CompletableFuture<DistanceMatrixResponseEntity> result = metricsClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(result).isSameAs(failed);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", MetricsGoogleMapsRouteClient.TOO_MANY_REQUESTS_STATUS)
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistanceAsync_withCancelledRequest_shouldRecordCancelledStatusNotError() {
+        //inputs
+        CompletableFuture<DistanceMatrixResponseEntity> request = new CompletableFuture<>();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(request);
+
+        //test
+        metricsClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION).cancel(true);
+
+        //checks
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", MetricsGoogleMapsRouteClient.CANCELLED_STATUS)
+            .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", MetricsGoogleMapsRouteClient.ERROR_STATUS)
+            .timer().count()).isZero();
+    }
+
+    @Test
+    void getDistance_withException_shouldRecordErrorStatus() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenThrow(new ProxyException("403 Forbidden", GOOGLE_API_ENTITY, "googleApiException"));
+
+        //test & checks
+        assertThatThrownBy(() -> metricsClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .isInstanceOf(ProxyException.class);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.REQUESTS_METRIC_NAME)
+            .tag("type", MetricsGoogleMapsRouteClient.SINGLE_TYPE).tag("status", MetricsGoogleMapsRouteClient.ERROR_STATUS)
+            .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDailyUsage_afterResetHour_shouldRestartFromZero() {
+        //inputs
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(response(GoogleApiElementLevelStatusEnum.OK));
+        metricsClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        metricsClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        long usageBeforeReset = metricsClient.getDailyUsage();
+
+        //test
+        clock.instant = Instant.parse("2026-10-17T08:00:00Z");
+        long usageAfterReset = metricsClient.getDailyUsage();
+        metricsClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(usageBeforeReset).isEqualTo(2);
+        assertThat(usageAfterReset).isZero();
+        assertThat(metricsClient.getDailyUsage()).isEqualTo(1);
+        assertThat(meterRegistry.get(MetricsGoogleMapsRouteClient.BILLABLE_ELEMENTS_METRIC_NAME).counter().count()).isEqualTo(3);
+    }
+
+    private static DistanceMatrixResponseEntity response(GoogleApiElementLevelStatusEnum... rowStatuses) {
+        Row[] rows = new Row[rowStatuses.length];
+        for (int i = 0; i < rowStatuses.length; i++) {
+            rows[i] = new Row(Collections.singletonList(Element.builder()
+                .distance(rowStatuses[i] == GoogleApiElementLevelStatusEnum.OK ? new Distance("45.6 km", 45612) : null)
+                .status(rowStatuses[i])
+                .build()));
+        }
+        return DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).rows(Arrays.asList(rows)).build();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package fr.dla.app.client.googlemapsapi.impl;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.web.rest.errors.ProxyException;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitingGoogleMapsRouteClientTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Mock
+    private GoogleMapsRouteClient delegate;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private final AtomicLong nanoClock = new AtomicLong();
+
+    private ApplicationProperties.GoogleMapsApi.RateLimit rateLimitProperties;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        rateLimitProperties = new ApplicationProperties.GoogleMapsApi.RateLimit();
+        rateLimitProperties.setInitialRate(10);
+        rateLimitProperties.setMinRate(1);
+        rateLimitProperties.setMaxRate(20);
+        rateLimitProperties.setRampUpStep(2);
+        rateLimitProperties.setRampUpInterval(Duration.ofSeconds(1));
+        rateLimitProperties.setMaxWait(Duration.ofMillis(500));
+    }
+
+    @Test
+    void getDistance_withOverQueryLimitStatus_shouldHalveRate() {
+        //inputs
+        RateLimitingGoogleMapsRouteClient client = newClient();
+        DistanceMatrixResponseEntity response = DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(response);
+
+        //test
+        DistanceMatrixResponseEntity result = client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(result).isSameAs(response);
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.RATE_METRIC_NAME).gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.THROTTLED_METRIC_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void getDistance_withTooManyRequestsError_shouldHalveRateAndRethrow() {
+        //inputs
+        RateLimitingGoogleMapsRouteClient client = newClient();
+        ProxyException tooManyRequests = new ProxyException("429 Too Many Requests", GOOGLE_API_ENTITY,
+            GoogleMapsApiDistanceClientImpl.TOO_MANY_REQUESTS_ERROR_KEY);
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenThrow(tooManyRequests);
+
+        //test & checks
+        assertThatThrownBy(() -> client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).isSameAs(tooManyRequests);
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.RATE_METRIC_NAME).gauge().value()).isEqualTo(5);
+    }
+
+    @Test
+    void getDistance_withThrottlingOfInFlightRequests_shouldBackOffOnce() {
+        //inputs
+        RateLimitingGoogleMapsRouteClient client = newClient();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(DistanceMatrixResponseEntity.builder()
+            .status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build());
+
+        //test
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        nanoClock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.RATE_METRIC_NAME).gauge().value()).isEqualTo(5);
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.THROTTLED_METRIC_NAME).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void getDistance_withSuccessAfterBackOff_shouldRampUpOneStepPerInterval() {
+        //inputs
+        RateLimitingGoogleMapsRouteClient client = newClient();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OVER_QUERY_LIMIT).build())
+            .thenReturn(DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build());
+
+        //test
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.RATE_METRIC_NAME).gauge().value()).isEqualTo(7);
+    }
+
+    @Test
+    void getDistance_withWaitAboveMaximum_shouldThrowServiceUnavailable() {
+        //inputs
+        rateLimitProperties.setInitialRate(1);
+        RateLimitingGoogleMapsRouteClient client = newClient();
+        Mockito.when(delegate.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(DistanceMatrixResponseEntity.builder().status(GoogleApiTopLevelStatusEnum.OK).build());
+
+        //test
+        client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+
+        //checks
+        assertThatThrownBy(() -> client.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .isInstanceOf(ServiceUnavailableException.class);
+        Mockito.verify(delegate, Mockito.times(1)).getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION);
+        assertThat(meterRegistry.get(RateLimitingGoogleMapsRouteClient.REJECTED_METRIC_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_withEmptyBucket_shouldQueueCallersAtPermittedRate() {
+        //inputs
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter(rateLimitProperties, nanoClock::get);
+
+        //test
+        long firstWait = rateLimiter.reserve();
+        long secondWait = rateLimiter.reserve();
+        long thirdWait = rateLimiter.reserve();
+
+        //checks
+        assertThat(firstWait).isZero();
+        assertThat(secondWait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(thirdWait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    private RateLimitingGoogleMapsRouteClient newClient() {
+        return new RateLimitingGoogleMapsRouteClient(delegate, new AdaptiveRateLimiter(rateLimitProperties, nanoClock::get),
+            taskScheduler, meterRegistry);
+    }
+}
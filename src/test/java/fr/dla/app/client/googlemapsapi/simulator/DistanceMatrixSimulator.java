@@ -0,0 +1,381 @@
+package fr.dla.app.client.googlemapsapi.simulator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Google maps Distance Matrix API, to test and load test the application without Google quota.
+ * <p>
+ * Distances are computed from the coordinates (great-circle distance multiplied by {@link #ROAD_FACTOR}), so the same
+ * request always gets the same answer. Response times follow a {@link LatencyDistribution}, and faults are injected
+ * with a probability: any top-level status, any element status or any HTTP error status.
+ * <p>
+ * Start it with {@code ./gradlew googleMapsApiSimulator -PsimulatorArgs="--port=8089 --latency=lognormal:40,0.5"}
+ * then point {@code application.google-maps-api.url} to {@code http://localhost:8089/maps/api/distancematrix/json}.
+ * Faults can be changed while it runs:
+ * <pre>
+ * curl -X POST 'http://localhost:8089/simulator/faults?top-level=OVER_QUERY_LIMIT:0.05&amp;element=ZERO_RESULTS:0.01&amp;http=503:0.01'
+ * curl -X POST 'http://localhost:8089/simulator/faults?latency=fixed:2000'
+ * curl -X DELETE 'http://localhost:8089/simulator/faults'
+ * </pre>
+ */
+public final class DistanceMatrixSimulator implements AutoCloseable {
+
+    public static final String DISTANCE_MATRIX_PATH = "/maps/api/distancematrix/json";
+    public static final String FAULTS_PATH = "/simulator/faults";
+    public static final double ROAD_FACTOR = 1.3;
+
+    private static final int MAX_DIMENSION = 25;
+    private static final int MAX_ELEMENTS = 100;
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double AVERAGE_SPEED_METERS_PER_SECOND = 13.9;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Random random;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final List<Fault<GoogleApiTopLevelStatusEnum>> topLevelFaults = new CopyOnWriteArrayList<>();
+    private final List<Fault<GoogleApiElementLevelStatusEnum>> elementFaults = new CopyOnWriteArrayList<>();
+    private final List<Fault<Integer>> httpFaults = new CopyOnWriteArrayList<>();
+    private volatile LatencyDistribution latency = LatencyDistribution.none();
+
+    private DistanceMatrixSimulator(int port, long seed) throws IOException {
+        this.random = new Random(seed);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "distance-matrix-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.server.createContext(DISTANCE_MATRIX_PATH, this::handleDistanceMatrix);
+        this.server.createContext(FAULTS_PATH, this::handleFaults);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * @param port port to listen to, 0 for any free port
+     */
+    public static DistanceMatrixSimulator start(int port) throws IOException {
+        return start(port, 0L);
+    }
+
+    public static DistanceMatrixSimulator start(int port, long seed) throws IOException {
+        return new DistanceMatrixSimulator(port, seed);
+    }
+
+    public String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + DISTANCE_MATRIX_PATH;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public DistanceMatrixSimulator latency(LatencyDistribution latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    public DistanceMatrixSimulator topLevelFault(GoogleApiTopLevelStatusEnum status, double probability) {
+        topLevelFaults.add(new Fault<>(status, probability));
+        return this;
+    }
+
+    public DistanceMatrixSimulator elementFault(GoogleApiElementLevelStatusEnum status, double probability) {
+        elementFaults.add(new Fault<>(status, probability));
+        return this;
+    }
+
+    public DistanceMatrixSimulator httpFault(int statusCode, double probability) {
+        httpFaults.add(new Fault<>(statusCode, probability));
+        return this;
+    }
+
+    public void clearFaults() {
+        topLevelFaults.clear();
+        elementFaults.clear();
+        httpFaults.clear();
+        latency = LatencyDistribution.none();
+    }
+
+    /**
+     * Road distance returned for an origin/destination pair, in meters.
+     */
+    public static int distanceMeters(double originLatitude, double originLongitude, double destinationLatitude, double destinationLongitude) {
+        double latitudeDelta = Math.toRadians(destinationLatitude - originLatitude);
+        double longitudeDelta = Math.toRadians(destinationLongitude - originLongitude);
+        double haversine = Math.pow(Math.sin(latitudeDelta / 2), 2)
+            + Math.cos(Math.toRadians(originLatitude)) * Math.cos(Math.toRadians(destinationLatitude))
+            * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return (int) Math.round(2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(haversine))) * ROAD_FACTOR);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handleDistanceMatrix(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            sleep(latency.sampleMillis(random));
+
+            Integer httpFault = pick(httpFaults);
+            if (httpFault != null) {
+                send(exchange, httpFault, "{\"error_message\":\"Simulated HTTP error\"}");
+                return;
+            }
+
+            send(exchange, 200, buildResponse(parseQuery(exchange.getRequestURI().getRawQuery())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String buildResponse(Map<String, String> parameters) {
+        GoogleApiTopLevelStatusEnum topLevelFault = pick(topLevelFaults);
+        if (topLevelFault != null) {
+            return errorResponse(topLevelFault, "Simulated " + topLevelFault);
+        }
+        if (parameters.get("key") == null || parameters.get("key").isEmpty()) {
+            return errorResponse(GoogleApiTopLevelStatusEnum.REQUEST_DENIED, "You must use an API key to authenticate each request.");
+        }
+
+        List<double[]> origins;
+        List<double[]> destinations;
+        try {
+            origins = parseCoordinates(parameters.get("origins"));
+            destinations = parseCoordinates(parameters.get("destinations"));
+        } catch (IllegalArgumentException ex) {
+            return errorResponse(GoogleApiTopLevelStatusEnum.INVALID_REQUEST, ex.getMessage());
+        }
+        if (origins.size() > MAX_DIMENSION || destinations.size() > MAX_DIMENSION) {
+            return errorResponse(GoogleApiTopLevelStatusEnum.INVALID_REQUEST, "Too many origins or destinations.");
+        }
+        if (origins.size() * destinations.size() > MAX_ELEMENTS) {
+            return errorResponse(GoogleApiTopLevelStatusEnum.MAX_ELEMENTS_EXCEEDED, "Too many elements.");
+        }
+
+        StringBuilder json = new StringBuilder(256 + 128 * origins.size() * destinations.size());
+        json.append("{\"destination_addresses\":");
+        appendAddresses(json, destinations);
+        json.append(",\"origin_addresses\":");
+        appendAddresses(json, origins);
+        json.append(",\"rows\":[");
+        for (int originIndex = 0; originIndex < origins.size(); originIndex++) {
+            double[] origin = origins.get(originIndex);
+            json.append(originIndex == 0 ? "" : ",").append("{\"elements\":[");
+            for (int destinationIndex = 0; destinationIndex < destinations.size(); destinationIndex++) {
+                double[] destination = destinations.get(destinationIndex);
+                json.append(destinationIndex == 0 ? "" : ",");
+                GoogleApiElementLevelStatusEnum elementFault = pick(elementFaults);
+                if (elementFault != null) {
+                    json.append("{\"status\":\"").append(elementFault).append("\"}");
+                    continue;
+                }
+                int meters = distanceMeters(origin[0], origin[1], destination[0], destination[1]);
+                long seconds = Math.round(meters / AVERAGE_SPEED_METERS_PER_SECOND);
+                json.append("{\"distance\":{\"text\":\"").append(String.format(Locale.ROOT, "%.1f km", meters / 1000.0))
+                    .append("\",\"value\":").append(meters)
+                    .append("},\"duration\":{\"text\":\"").append(Math.max(1, seconds / 60)).append(" mins")
+                    .append("\",\"value\":").append(seconds)
+                    .append("},\"status\":\"OK\"}");
+            }
+            json.append("]}");
+        }
+        return json.append("],\"status\":\"OK\"}").toString();
+    }
+
+    private void handleFaults(HttpExchange exchange) throws IOException {
+        try {
+            if ("DELETE".equalsIgnoreCase(exchange.getRequestMethod())) {
+                clearFaults();
+                send(exchange, 204, null);
+                return;
+            }
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                send(exchange, 405, null);
+                return;
+            }
+            try {
+                configure(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (IllegalArgumentException ex) {
+                send(exchange, 400, "{\"error_message\":\"" + ex.getMessage() + "\"}");
+                return;
+            }
+            send(exchange, 204, null);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void configure(Map<String, String> options) {
+        options.forEach((name, value) -> {
+            switch (name) {
+                case "latency":
+                    latency(LatencyDistribution.parse(value));
+                    break;
+                case "top-level":
+                    forEachFault(value, (status, probability) -> topLevelFault(GoogleApiTopLevelStatusEnum.valueOf(status), probability));
+                    break;
+                case "element":
+                    forEachFault(value, (status, probability) -> elementFault(GoogleApiElementLevelStatusEnum.valueOf(status), probability));
+                    break;
+                case "http":
+                    forEachFault(value, (status, probability) -> httpFault(Integer.parseInt(status), probability));
+                    break;
+                case "port":
+                case "seed":
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + name);
+            }
+        });
+    }
+
+    private static void forEachFault(String faults, java.util.function.BiConsumer<String, Double> consumer) {
+        for (String fault : faults.split(",")) {
+            String[] statusAndProbability = fault.split(":");
+            if (statusAndProbability.length != 2) {
+                throw new IllegalArgumentException("Expected STATUS:probability, got " + fault);
+            }
+            consumer.accept(statusAndProbability[0].trim(), Double.parseDouble(statusAndProbability[1].trim()));
+        }
+    }
+
+    private <T> T pick(List<Fault<T>> faults) {
+        for (Fault<T> fault : faults) {
+            if (fault.probability >= 1 || random.nextDouble() < fault.probability) {
+                return fault.value;
+            }
+        }
+        return null;
+    }
+
+    private static String errorResponse(GoogleApiTopLevelStatusEnum status, String message) {
+        return "{\"destination_addresses\":[],\"error_message\":\"" + message
+            + "\",\"origin_addresses\":[],\"rows\":[],\"status\":\"" + status + "\"}";
+    }
+
+    private static void appendAddresses(StringBuilder json, List<double[]> coordinates) {
+        json.append('[');
+        for (int index = 0; index < coordinates.size(); index++) {
+            json.append(index == 0 ? "\"" : ",\"")
+                .append(String.format(Locale.ROOT, "%.6f,%.6f", coordinates.get(index)[0], coordinates.get(index)[1]))
+                .append('"');
+        }
+        json.append(']');
+    }
+
+    private static List<double[]> parseCoordinates(String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing origins or destinations.");
+        }
+        List<double[]> coordinates = new ArrayList<>();
+        for (String point : value.split("\\|")) {
+            String[] latitudeAndLongitude = point.split(",");
+            if (latitudeAndLongitude.length != 2) {
+                throw new IllegalArgumentException("Invalid coordinates " + point);
+            }
+            try {
+                double latitude = Double.parseDouble(latitudeAndLongitude[0].trim());
+                double longitude = Double.parseDouble(latitudeAndLongitude[1].trim());
+                if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                    throw new IllegalArgumentException("Invalid coordinates " + point);
+                }
+                coordinates.add(new double[]{latitude, longitude});
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid coordinates " + point);
+            }
+        }
+        return coordinates;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            String[] nameAndValue = parameter.split("=", 2);
+            parameters.put(URLDecoder.decode(nameAndValue[0], StandardCharsets.UTF_8.name()),
+                nameAndValue.length > 1 ? URLDecoder.decode(nameAndValue[1], StandardCharsets.UTF_8.name()) : "");
+        }
+        return parameters;
+    }
+
+    private static void send(HttpExchange exchange, int statusCode, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(statusCode, content.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(content);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a simulator from the command line, options use the fault endpoint syntax:
+     * {@code --port=8089 --seed=42 --latency=lognormal:40,0.5 --top-level=OVER_QUERY_LIMIT:0.01 --element=ZERO_RESULTS:0.01 --http=500:0.01}
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] nameAndValue = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(nameAndValue[0], nameAndValue.length > 1 ? nameAndValue[1] : "");
+        }
+
+        DistanceMatrixSimulator simulator = start(Integer.parseInt(options.getOrDefault("port", "8089")),
+            Long.parseLong(options.getOrDefault("seed", "0")));
+        simulator.configure(options);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        System.out.println("Distance Matrix simulator listening on " + simulator.getUrl());
+    }
+
+    private static final class Fault<T> {
+        private final T value;
+        private final double probability;
+
+        private Fault(T value, double probability) {
+            this.value = value;
+            this.probability = probability;
+        }
+    }
+}
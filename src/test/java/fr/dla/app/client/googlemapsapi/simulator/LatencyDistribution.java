@@ -0,0 +1,61 @@
+package fr.dla.app.client.googlemapsapi.simulator;
+
+import java.util.Random;
+
+/**
+ * Response time of the simulated Google maps API, in milliseconds.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    long sampleMillis(Random random);
+
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+    }
+
+    /**
+     * Long tailed response times, close to what a remote API shows: most responses around the median, a few far above.
+     *
+     * @param medianMillis median response time
+     * @param sigma        standard deviation of the logarithm, 0.5 puts the p99 at about 3 times the median
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+    }
+
+    /**
+     * Parse a distribution from the command line: {@code none}, {@code fixed:50}, {@code uniform:20-80}
+     * or {@code lognormal:40,0.5}.
+     */
+    static LatencyDistribution parse(String specification) {
+        String[] typeAndParameters = specification.trim().split(":", 2);
+        String type = typeAndParameters[0].toLowerCase();
+        try {
+            switch (type) {
+                case "none":
+                    return none();
+                case "fixed":
+                    return fixed(Long.parseLong(typeAndParameters[1].trim()));
+                case "uniform":
+                    String[] bounds = typeAndParameters[1].split("-");
+                    return uniform(Long.parseLong(bounds[0].trim()), Long.parseLong(bounds[1].trim()));
+                case "lognormal":
+                    String[] parameters = typeAndParameters[1].split(",");
+                    return logNormal(Double.parseDouble(parameters[0].trim()), Double.parseDouble(parameters[1].trim()));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution " + type);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid latency distribution " + specification, ex);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package fr.dla.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ApplicationConfigurationTest {
+
+    private static final int MAX_CONNECTIONS = 40;
+    private static final int MAX_CONNECTIONS_PER_ROUTE = 15;
+
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
+    private ApplicationConfiguration applicationConfiguration;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties.GoogleMapsApi.Http http = applicationProperties.getGoogleMapsApi().getHttp();
+        http.setMaxConnections(MAX_CONNECTIONS);
+        http.setMaxConnectionsPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        http.setValidateAfterInactivity(Duration.ofMillis(1500));
+        http.setConnectTimeout(Duration.ofMillis(700));
+        http.setReadTimeout(Duration.ofSeconds(3));
+        http.setConnectionRequestTimeout(Duration.ofMillis(250));
+        applicationConfiguration = new ApplicationConfiguration(applicationProperties);
+        connectionManager = applicationConfiguration.googleMapsApiConnectionManager();
+    }
+
+    @AfterEach
+    void clean() {
+        connectionManager.shutdown();
+    }
+
+    @Test
+    void googleMapsApiConnectionManager_withHttpProperties_shouldLimitThePool() {
+        //checks
+        assertThat(connectionManager.getMaxTotal()).isEqualTo(MAX_CONNECTIONS);
+        assertThat(connectionManager.getDefaultMaxPerRoute()).isEqualTo(MAX_CONNECTIONS_PER_ROUTE);
+        assertThat(connectionManager.getValidateAfterInactivity()).isEqualTo(1500);
+    }
+
+    @Test
+    void googleMapsApiHttpClient_withHttpProperties_shouldApplyTheTimeouts() throws IOException {
+        //test
+        try (CloseableHttpClient httpClient = applicationConfiguration.googleMapsApiHttpClient(connectionManager)) {
+            RequestConfig requestConfig = ((Configurable) httpClient).getConfig();
+
+            //checks
+            assertThat(requestConfig.getConnectTimeout()).isEqualTo(700);
+            assertThat(requestConfig.getSocketTimeout()).isEqualTo(3000);
+            assertThat(requestConfig.getConnectionRequestTimeout()).isEqualTo(250);
+        }
+    }
+
+    @Test
+    void googleMapsApiConnectionPoolMetrics_shouldRegisterThePoolGauges() {
+        //inputs
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        //test
+        applicationConfiguration.googleMapsApiConnectionPoolMetrics(connectionManager).bindTo(meterRegistry);
+
+        //checks
+        assertThat(meterRegistry.get("google.maps.api.http.pool.leased").gauge().value()).isZero();
+        assertThat(meterRegistry.get("google.maps.api.http.pool.pending").gauge().value()).isZero();
+        assertThat(meterRegistry.get("google.maps.api.http.pool.available").gauge().value()).isZero();
+        assertThat(meterRegistry.get("google.maps.api.http.pool.max").gauge().value()).isEqualTo(MAX_CONNECTIONS);
+    }
+}
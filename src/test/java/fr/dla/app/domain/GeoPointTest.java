@@ -0,0 +1,76 @@
+package fr.dla.app.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GeoPointTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void of_withValidCoordinates_shouldKeepSevenDecimalPlaces() {
+        //test
+        GeoPoint point = GeoPoint.of(-33.86882, 151.2092955);
+
+        //checks
+        assertThat(point.getLatitudeE7()).isEqualTo(-338688200);
+        assertThat(point.getLongitudeE7()).isEqualTo(1512092955);
+        assertThat(point.getLatitude()).isEqualTo(-33.86882);
+        assertThat(point.getLongitude()).isEqualTo(151.2092955);
+        assertThat(point).hasToString("-33.86882,151.2092955");
+    }
+
+    @Test
+    void of_withOutOfRangeCoordinates_shouldThrowIllegalArgument() {
+        //test & checks
+        assertThatThrownBy(() -> GeoPoint.of(90.1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GeoPoint.of(0, -180.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> GeoPoint.of(Double.NaN, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fromPackedLong_withPackedPoint_shouldReturnEqualPoint() {
+        //inputs
+        GeoPoint point = GeoPoint.of(-0.611764, -73.093789);
+
+        //test
+        GeoPoint unpacked = GeoPoint.fromPackedLong(point.toPackedLong());
+
+        //checks
+        assertThat(unpacked).isEqualTo(point);
+        assertThat(unpacked.hashCode()).isEqualTo(point.hashCode());
+        assertThat(unpacked.getLongitude()).isEqualTo(-73.093789);
+    }
+
+    @Test
+    void deserialize_withStringsOrNumbers_shouldReadSamePoint() throws Exception {
+        //test
+        GeoPoint fromStrings = objectMapper.readValue("[\"48.858245\", \" 2.294642\"]", GeoPoint.class);
+        GeoPoint fromNumbers = objectMapper.readValue("[48.858245, 2.294642]", GeoPoint.class);
+
+        //checks
+        assertThat(fromStrings).isEqualTo(GeoPoint.of(48.858245, 2.294642));
+        assertThat(fromNumbers).isEqualTo(fromStrings);
+        assertThat(objectMapper.writeValueAsString(fromNumbers)).isEqualTo("[48.858245,2.294642]");
+    }
+
+    @Test
+    void deserialize_withBadShape_shouldFailWithExplicitMessage() {
+        //test & checks
+        assertThatThrownBy(() -> objectMapper.readValue("[48.858245]", GeoPoint.class))
+            .isInstanceOf(MismatchedInputException.class)
+            .hasMessageContaining("coordinates must be a [latitude, longitude] array");
+        assertThatThrownBy(() -> objectMapper.readValue("[48.858245, 2.294642, 3]", GeoPoint.class))
+            .hasMessageContaining("coordinates must be a [latitude, longitude] array");
+        assertThatThrownBy(() -> objectMapper.readValue("\"48.858245,2.294642\"", GeoPoint.class))
+            .hasMessageContaining("coordinates must be a [latitude, longitude] array");
+        assertThatThrownBy(() -> objectMapper.readValue("[\"START_LATITUDE\", 2.294642]", GeoPoint.class))
+            .hasMessageContaining("coordinate must be a number");
+        assertThatThrownBy(() -> objectMapper.readValue("[48.858245, 200]", GeoPoint.class))
+            .hasMessageContaining("Longitude must be between -180 and 180");
+    }
+}
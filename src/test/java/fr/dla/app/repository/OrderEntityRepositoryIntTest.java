@@ -0,0 +1,71 @@
+package fr.dla.app.repository;
+
+import fr.dla.app.DlappApp;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {DlappApp.class})
+class OrderEntityRepositoryIntTest {
+
+    private static final int ORDER_COUNT = 100;
+    private static final int BATCH_SIZE = 25;
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void clean() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    @Transactional
+    void saveAll_withManyOrders_shouldFlushBatchedInserts() {
+        //inputs
+        List<OrderEntity> orderEntities = IntStream.range(0, ORDER_COUNT)
+            .mapToObj(i -> new OrderEntity(i, OrderStatusEnum.UNASSIGNED))
+            .collect(Collectors.toList());
+
+        //test
+        List<OrderEntity> orderEntitiesSaved = orderEntityRepository.saveAll(orderEntities);
+        entityManager.flush();
+
+        //checks
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ORDER_COUNT);
+        // one statement per batch, plus the reservation of the id blocks, instead of one statement per order
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(ORDER_COUNT / BATCH_SIZE + 4);
+        assertThat(orderEntitiesSaved).extracting(OrderEntity::getId).isSorted().doesNotHaveDuplicates();
+    }
+}
@@ -0,0 +1,200 @@
+package fr.dla.app.service;
+
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.IdempotencyKeyEntity;
+import fr.dla.app.repository.IdempotencyKeyEntityRepository;
+import fr.dla.app.web.rest.errors.ConflictException;
+import fr.dla.app.web.rest.errors.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseIdempotencyStoreTest {
+
+    private static final String KEY = "retry-key";
+    private static final String FINGERPRINT = "48.858245,2.294642;48.86848,2.781909";
+    private static final int ORDER_ID = 1;
+
+    @Mock
+    private IdempotencyKeyEntityRepository idempotencyKeyEntityRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    private DatabaseIdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setup() {
+        idempotencyStore = new DatabaseIdempotencyStore(idempotencyKeyEntityRepository, orderService, new ApplicationProperties());
+    }
+
+    @Test
+    void execute_withNewKey_shouldClaimItAndRecordTheOrder() {
+        //inputs
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        Order order = new Order(ORDER_ID, 10, OrderStatusEnum.UNASSIGNED);
+
+        //test
+        Order orderResponse = idempotencyStore.execute(KEY, FINGERPRINT, () -> order);
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+        ArgumentCaptor<IdempotencyKeyEntity> captor = ArgumentCaptor.forClass(IdempotencyKeyEntity.class);
+        Mockito.verify(idempotencyKeyEntityRepository).saveAndFlush(captor.capture());
+        assertThat(captor.getValue().getIdempotencyKey()).isEqualTo(KEY);
+        Mockito.verify(idempotencyKeyEntityRepository).recordOrder(KEY, captor.getValue().getCreatedDate(), ORDER_ID);
+    }
+
+    @Test
+    void execute_withKeyClaimedByAnotherInstance_shouldReturnItsOrder() {
+        //inputs
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        IdempotencyKeyEntity claimed = new IdempotencyKeyEntity(KEY, FINGERPRINT, Instant.now());
+        claimed.setOrderId(ORDER_ID);
+        Mockito.when(idempotencyKeyEntityRepository.findById(KEY)).thenReturn(Optional.of(claimed));
+        Order order = new Order(ORDER_ID, 10, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderService.getOrder(ORDER_ID)).thenReturn(order);
+
+        //test
+        Order orderResponse = idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            throw new IllegalStateException("must not create the order again");
+        });
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+    }
+
+    @Test
+    void execute_withFailedCreation_shouldReleaseTheKey() {
+        //inputs
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        //test
+        assertThatThrownBy(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            throw new NotFoundException("Google maps API return a not found error", "googleApi", "notFoundError");
+        })).isInstanceOf(NotFoundException.class);
+
+        //checks
+        Mockito.verify(idempotencyKeyEntityRepository).deleteClaim(eq(KEY), any(Instant.class));
+    }
+
+    @Test
+    void execute_withClaimAbandonedByAnotherInstance_shouldTakeItOverAndCreateTheOrder() {
+        //inputs
+        IdempotencyKeyEntity abandoned = new IdempotencyKeyEntity(KEY, FINGERPRINT, Instant.now().minus(Duration.ofMinutes(10)));
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(idempotencyKeyEntityRepository.findById(KEY)).thenReturn(Optional.of(abandoned));
+        Mockito.when(idempotencyKeyEntityRepository.deleteAbandoned(eq(KEY), any(Instant.class))).thenReturn(1);
+        Mockito.when(idempotencyKeyEntityRepository.recordOrder(eq(KEY), any(Instant.class), eq(ORDER_ID))).thenReturn(1);
+        Order order = new Order(ORDER_ID, 10, OrderStatusEnum.UNASSIGNED);
+
+        //test
+        Order orderResponse = idempotencyStore.execute(KEY, FINGERPRINT, () -> order);
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+        Mockito.verify(idempotencyKeyEntityRepository, Mockito.times(2)).saveAndFlush(any(IdempotencyKeyEntity.class));
+        Mockito.verify(orderService, Mockito.never()).getOrder(anyInt());
+    }
+
+    @Test
+    void execute_withClaimInProgressWithinItsLease_shouldNotTakeItOver() {
+        //inputs
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdempotency().setWaitTimeout(Duration.ofMillis(100));
+        idempotencyStore = new DatabaseIdempotencyStore(idempotencyKeyEntityRepository, orderService, applicationProperties);
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        Mockito.when(idempotencyKeyEntityRepository.findById(KEY))
+            .thenReturn(Optional.of(new IdempotencyKeyEntity(KEY, FINGERPRINT, Instant.now().plusSeconds(60))));
+
+        //test & checks
+        assertThatThrownBy(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            throw new IllegalStateException("must not create the order");
+        })).isInstanceOf(ConflictException.class);
+        Mockito.verify(idempotencyKeyEntityRepository, Mockito.never()).deleteAbandoned(any(), any());
+    }
+
+    @Test
+    void execute_withRetryOverlappingSlowFirstAttempt_shouldAnswerConflictAndCreateTheOrderOnce() throws Exception {
+        //inputs
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdempotency().setWaitTimeout(Duration.ofMillis(200));
+        idempotencyStore = new DatabaseIdempotencyStore(idempotencyKeyEntityRepository, orderService, applicationProperties);
+        // the first attempt has been running for 30 seconds, longer than the default wait timeout
+        IdempotencyKeyEntity slowClaim = new IdempotencyKeyEntity(KEY, FINGERPRINT, Instant.now().minusSeconds(30));
+        Mockito.when(idempotencyKeyEntityRepository.saveAndFlush(any(IdempotencyKeyEntity.class)))
+            .thenReturn(slowClaim)
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        Mockito.when(idempotencyKeyEntityRepository.findById(KEY)).thenReturn(Optional.of(slowClaim));
+        Mockito.when(idempotencyKeyEntityRepository.recordOrder(KEY, slowClaim.getCreatedDate(), ORDER_ID)).thenReturn(1);
+        Order order = new Order(ORDER_ID, 10, OrderStatusEnum.UNASSIGNED);
+        CountDownLatch firstAttemptStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstAttempt = new CountDownLatch(1);
+        AtomicInteger creations = new AtomicInteger();
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+        try {
+            //test
+            Future<Order> firstAttempt = executorService.submit(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+                creations.incrementAndGet();
+                firstAttemptStarted.countDown();
+                await(releaseFirstAttempt);
+                return order;
+            }));
+            assertThat(firstAttemptStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            Throwable retryError = catchThrowable(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+                creations.incrementAndGet();
+                return new Order(ORDER_ID + 1, 10, OrderStatusEnum.UNASSIGNED);
+            }));
+            releaseFirstAttempt.countDown();
+
+            //checks
+            assertThat(retryError).isInstanceOf(ConflictException.class);
+            assertThat(firstAttempt.get(5, TimeUnit.SECONDS)).isSameAs(order);
+            assertThat(creations.get()).isEqualTo(1);
+            Mockito.verify(idempotencyKeyEntityRepository, Mockito.never()).deleteAbandoned(any(), any());
+            Mockito.verify(idempotencyKeyEntityRepository).recordOrder(KEY, slowClaim.getCreatedDate(), ORDER_ID);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package fr.dla.app.service;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class DistanceCacheWarmUpServiceTest {
+
+    @Mock
+    private OrderEntityRepository orderEntityRepository;
+
+    @Mock
+    private GoogleMapsRouteClient googleMapsRouteClient;
+
+    private ApplicationProperties applicationProperties;
+
+    @BeforeEach
+    void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getGoogleMapsApi().getWarmUp().setRate(1000);
+        applicationProperties.getGoogleMapsApi().getWarmUp().setMaxRoutes(500);
+    }
+
+    @Test
+    void warmUp_withRecentOrders_shouldResolveMostFrequentRoutes() {
+        //inputs
+        Mockito.when(orderEntityRepository.findMostFrequentRoutes(any(Instant.class), eq(PageRequest.of(0, 500))))
+            .thenReturn(Arrays.asList(route(48.858245, 2.294642, 48.86848, 2.781909), route(0.0001, 2.3, 48.853, 2.3499)));
+        DistanceCacheWarmUpService warmUpService = new DistanceCacheWarmUpService(orderEntityRepository, googleMapsRouteClient,
+            applicationProperties);
+        DistanceCacheWarmUpHealthIndicator healthIndicator = new DistanceCacheWarmUpHealthIndicator(warmUpService);
+        String statusBeforeWarmUp = healthIndicator.health().getStatus().getCode();
+
+        //test
+        warmUpService.warmUp();
+
+        //checks
+        assertThat(statusBeforeWarmUp).isEqualTo("OUT_OF_SERVICE");
+        assertThat(healthIndicator.health().getStatus().getCode()).isEqualTo("UP");
+        Mockito.verify(googleMapsRouteClient).getDistanceDetailsBetweenTwoCoordinates(
+            GeoPoint.of(48.858245, 2.294642), GeoPoint.of(48.86848, 2.781909));
+        Mockito.verify(googleMapsRouteClient).getDistanceDetailsBetweenTwoCoordinates(
+            GeoPoint.of(0.0001, 2.3), GeoPoint.of(48.853, 2.3499));
+    }
+
+    @Test
+    void warmUp_withDailyQuota_shouldCapLookupsToQuotaShare() {
+        //inputs
+        applicationProperties.getGoogleMapsApi().getMetrics().setDailyQuota(10_000);
+        applicationProperties.getGoogleMapsApi().getWarmUp().setQuotaShare(0.01);
+        Mockito.when(orderEntityRepository.findMostFrequentRoutes(any(Instant.class), eq(PageRequest.of(0, 100))))
+            .thenReturn(Collections.emptyList());
+        DistanceCacheWarmUpService warmUpService = new DistanceCacheWarmUpService(orderEntityRepository, googleMapsRouteClient,
+            applicationProperties);
+
+        //test
+        warmUpService.warmUp();
+
+        //checks
+        assertThat(warmUpService.isDone()).isTrue();
+        Mockito.verifyNoInteractions(googleMapsRouteClient);
+    }
+
+    @Test
+    void warmUp_withGoogleFailing_shouldStopAndReportDone() {
+        //inputs
+        Mockito.when(orderEntityRepository.findMostFrequentRoutes(any(Instant.class), any()))
+            .thenReturn(Collections.nCopies(20, route(48.858245, 2.294642, 48.86848, 2.781909)));
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(any(), any()))
+            .thenThrow(new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException"));
+        DistanceCacheWarmUpService warmUpService = new DistanceCacheWarmUpService(orderEntityRepository, googleMapsRouteClient,
+            applicationProperties);
+
+        //test
+        warmUpService.warmUp();
+
+        //checks
+        assertThat(warmUpService.isDone()).isTrue();
+        Mockito.verify(googleMapsRouteClient, Mockito.times(5)).getDistanceDetailsBetweenTwoCoordinates(any(), any());
+    }
+
+    private static OrderEntityRepository.RouteFrequency route(double originLatitude, double originLongitude,
+                                                              double destinationLatitude, double destinationLongitude) {
+        return new OrderEntityRepository.RouteFrequency() {
+            @Override
+            public Double getOriginLatitude() {
+                return originLatitude;
+            }
+
+            @Override
+            public Double getOriginLongitude() {
+                return originLongitude;
+            }
+
+            @Override
+            public Double getDestinationLatitude() {
+                return destinationLatitude;
+            }
+
+            @Override
+            public Double getDestinationLongitude() {
+                return destinationLongitude;
+            }
+
+            @Override
+            public Long getOrders() {
+                return 1L;
+            }
+        };
+    }
+}
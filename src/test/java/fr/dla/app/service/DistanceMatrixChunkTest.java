@@ -0,0 +1,97 @@
+package fr.dla.app.service;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.domain.OrderCoordinates;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DistanceMatrixChunkTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+
+    @Test
+    void plan_withSharedOrigin_shouldBillOneElementPerDistinctOrder() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = IntStream.range(0, 30)
+            .mapToObj(i -> orderCoordinates(ORIGIN, GeoPoint.of(48.0 + i / 100.0, 2.0)))
+            .collect(Collectors.toList());
+
+        //test
+        List<DistanceMatrixChunk> chunks = DistanceMatrixChunk.plan(orderCoordinates);
+
+        //checks
+        assertThat(chunks).hasSize(2);
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.getOrigins()).containsExactly(ORIGIN));
+        assertThat(chunks.get(0).getDestinations()).hasSize(GoogleMapsRouteClient.MAX_DESTINATIONS);
+        assertThat(chunks.stream().mapToInt(DistanceMatrixChunk::getBilledElements).sum()).isEqualTo(30);
+        assertLookupsCoverEveryOrderOnce(chunks, 30);
+    }
+
+    @Test
+    void plan_withSharedDestination_shouldPackOrdersInOneColumn() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = IntStream.range(0, 10)
+            .mapToObj(i -> orderCoordinates(GeoPoint.of(48.0 + i / 100.0, 2.0), DESTINATION))
+            .collect(Collectors.toList());
+
+        //test
+        List<DistanceMatrixChunk> chunks = DistanceMatrixChunk.plan(orderCoordinates);
+
+        //checks
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).getDestinations()).containsExactly(DESTINATION);
+        assertThat(chunks.get(0).getBilledElements()).isEqualTo(10);
+        assertLookupsCoverEveryOrderOnce(chunks, 10);
+    }
+
+    @Test
+    void plan_withDisjointOrders_shouldBillOneElementPerOrder() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = IntStream.range(0, 10)
+            .mapToObj(i -> orderCoordinates(GeoPoint.of(48.0 + i / 100.0, 2.0), GeoPoint.of(45.0 + i / 100.0, 4.0)))
+            .collect(Collectors.toList());
+
+        //test
+        List<DistanceMatrixChunk> chunks = DistanceMatrixChunk.plan(orderCoordinates);
+
+        //checks
+        assertThat(chunks).hasSize(10).allSatisfy(chunk -> assertThat(chunk.getBilledElements()).isEqualTo(1));
+        assertLookupsCoverEveryOrderOnce(chunks, 10);
+    }
+
+    @Test
+    void plan_withIdenticalOrders_shouldShareTheirElement() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = Arrays.asList(
+            orderCoordinates(ORIGIN, DESTINATION),
+            orderCoordinates(ORIGIN, DESTINATION));
+
+        //test
+        List<DistanceMatrixChunk> chunks = DistanceMatrixChunk.plan(orderCoordinates);
+
+        //checks
+        assertThat(chunks).hasSize(1);
+        assertThat(chunks.get(0).getBilledElements()).isEqualTo(1);
+        assertLookupsCoverEveryOrderOnce(chunks, 2);
+    }
+
+    private static void assertLookupsCoverEveryOrderOnce(List<DistanceMatrixChunk> chunks, int orders) {
+        assertThat(chunks.stream().flatMap(chunk -> chunk.getLookups().stream()).map(DistanceMatrixChunk.Lookup::getOrderIndex))
+            .containsExactlyInAnyOrderElementsOf(IntStream.range(0, orders).boxed().collect(Collectors.toList()));
+    }
+
+    private static OrderCoordinates orderCoordinates(GeoPoint origin, GeoPoint destination) {
+        OrderCoordinates orderCoordinates = new OrderCoordinates();
+        orderCoordinates.setOrigin(origin);
+        orderCoordinates.setDestination(destination);
+        return orderCoordinates;
+    }
+}
@@ -0,0 +1,143 @@
+package fr.dla.app.service;
+
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.web.rest.errors.BadRequestException;
+import fr.dla.app.web.rest.errors.ConflictException;
+import fr.dla.app.web.rest.errors.InternalServerErrorException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryIdempotencyStoreTest {
+
+    private static final String KEY = "retry-key";
+    private static final String FINGERPRINT = "48.858245,2.294642;48.86848,2.781909";
+
+    @Mock
+    private OrderService orderService;
+
+    private InMemoryIdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getIdempotency().setWaitTimeout(Duration.ofMillis(200));
+        idempotencyStore = new InMemoryIdempotencyStore(orderService, applicationProperties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void execute_withRepeatedKey_shouldReadTheFirstOrderAgainWithoutCreatingAgain() {
+        //inputs
+        AtomicInteger creations = new AtomicInteger();
+        Order currentOrder = new Order(1, 10, OrderStatusEnum.TAKEN);
+        Mockito.when(orderService.getOrder(1)).thenReturn(currentOrder);
+
+        //test
+        Order firstOrder = idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(creations.incrementAndGet()));
+        Order retriedOrder = idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(creations.incrementAndGet()));
+
+        //checks
+        assertThat(firstOrder.getStatus()).isEqualTo(OrderStatusEnum.UNASSIGNED);
+        assertThat(retriedOrder).isSameAs(currentOrder);
+        assertThat(creations).hasValue(1);
+    }
+
+    @Test
+    void execute_withConcurrentDuplicate_shouldWaitForFirstAttempt() throws Exception {
+        //inputs
+        Order currentOrder = new Order(1, 10, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderService.getOrder(1)).thenReturn(currentOrder);
+        CountDownLatch creationStarted = new CountDownLatch(1);
+        CountDownLatch releaseCreation = new CountDownLatch(1);
+        CompletableFuture<Order> firstAttempt = CompletableFuture.supplyAsync(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            creationStarted.countDown();
+            await(releaseCreation);
+            return newOrder(1);
+        }));
+        assertThat(creationStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+        //test
+        CompletableFuture<Order> duplicate = CompletableFuture.supplyAsync(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(2)));
+        releaseCreation.countDown();
+
+        //checks
+        assertThat(firstAttempt.get(1, TimeUnit.SECONDS).getId()).isEqualTo(1);
+        assertThat(duplicate.get(1, TimeUnit.SECONDS)).isSameAs(currentOrder);
+    }
+
+    @Test
+    void execute_withFirstAttemptStillInProgress_shouldThrowConflictAfterWaitTimeout() throws Exception {
+        //inputs
+        CountDownLatch creationStarted = new CountDownLatch(1);
+        CountDownLatch releaseCreation = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            creationStarted.countDown();
+            await(releaseCreation);
+            return newOrder(1);
+        }));
+        assertThat(creationStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+        //test & checks
+        try {
+            assertThatThrownBy(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(2)))
+                .isInstanceOf(ConflictException.class)
+                .hasFieldOrPropertyWithValue("errorKey", "idempotencyKeyInProgress");
+        } finally {
+            releaseCreation.countDown();
+        }
+    }
+
+    @Test
+    void execute_withKeyReusedWithOtherPayload_shouldThrowBadRequest() {
+        //inputs
+        idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(1));
+
+        //test & checks
+        assertThatThrownBy(() -> idempotencyStore.execute(KEY, "0,0;1,1", () -> newOrder(2)))
+            .isInstanceOf(BadRequestException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "idempotencyKeyReused");
+    }
+
+    @Test
+    void execute_withFailedFirstAttempt_shouldLetTheRetryCreateTheOrder() {
+        //inputs
+        assertThatThrownBy(() -> idempotencyStore.execute(KEY, FINGERPRINT, () -> {
+            throw new InternalServerErrorException("I/O error", GOOGLE_API_ENTITY, "googleApiException");
+        })).isInstanceOf(InternalServerErrorException.class);
+
+        //test
+        Order order = idempotencyStore.execute(KEY, FINGERPRINT, () -> newOrder(2));
+
+        //checks
+        assertThat(order.getId()).isEqualTo(2);
+    }
+
+    private static Order newOrder(int id) {
+        return new Order(id, 10, OrderStatusEnum.UNASSIGNED);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package fr.dla.app.service;
+
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.service.mapper.OrderMapper;
+import fr.dla.app.web.rest.errors.ConflictException;
+import fr.dla.app.web.rest.errors.NotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class OrderClaimServiceTest {
+
+    private static final int ORDER_ID = 1;
+    private static final int ORDER_DISTANCE = 10;
+
+    @Mock
+    private OrderEntityRepository orderEntityRepository;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    @Test
+    void claimNextOrder_withSkipLocked_shouldTakeTheShortestUnlockedOrder() {
+        //inputs
+        OrderClaimService orderClaimService = new OrderClaimService(orderEntityRepository, orderMapper, true);
+        OrderEntity orderEntity = new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderEntityRepository.findByStatusSkipLocked(eq(OrderStatusEnum.UNASSIGNED), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(orderEntity));
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.TAKEN);
+        Mockito.when(orderMapper.toDto(orderEntity)).thenReturn(order);
+
+        //test
+        Order orderResponse = orderClaimService.claimNextOrder(true);
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+        assertThat(orderEntity.getStatus()).isEqualTo(OrderStatusEnum.TAKEN);
+        ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
+        Mockito.verify(orderEntityRepository).findByStatusSkipLocked(eq(OrderStatusEnum.UNASSIGNED), pageableCaptor.capture());
+        assertThat(pageableCaptor.getValue().getPageSize()).isEqualTo(1);
+        assertThat(pageableCaptor.getValue().getSort()).isEqualTo(Sort.by("distance", "id"));
+        Mockito.verify(orderEntityRepository, Mockito.never()).takeIfUnassigned(anyInt());
+    }
+
+    @Test
+    void claimNextOrder_withSkipLockedAndNoOrder_shouldThrowNotFoundError() {
+        //inputs
+        OrderClaimService orderClaimService = new OrderClaimService(orderEntityRepository, orderMapper, true);
+        Mockito.when(orderEntityRepository.findByStatusSkipLocked(eq(OrderStatusEnum.UNASSIGNED), any(Pageable.class)))
+            .thenReturn(Collections.emptyList());
+
+        //test & checks
+        assertThatThrownBy(() -> orderClaimService.claimNextOrder(false))
+            .isInstanceOf(NotFoundException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "noOrderAvailable");
+    }
+
+    @Test
+    void claimNextOrder_withoutSkipLocked_shouldTakeTheNextCandidateNotTakenConcurrently() {
+        //inputs
+        OrderClaimService orderClaimService = new OrderClaimService(orderEntityRepository, orderMapper, false);
+        Mockito.when(orderEntityRepository.findIdsByStatus(eq(OrderStatusEnum.UNASSIGNED), any(Pageable.class)))
+            .thenReturn(Arrays.asList(ORDER_ID, ORDER_ID + 1));
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID)).thenReturn(0);
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID + 1)).thenReturn(1);
+        OrderEntity orderEntity = new OrderEntity(ORDER_ID + 1, ORDER_DISTANCE, OrderStatusEnum.TAKEN);
+        Mockito.when(orderEntityRepository.findById(ORDER_ID + 1)).thenReturn(Optional.of(orderEntity));
+        Order order = new Order(ORDER_ID + 1, ORDER_DISTANCE, OrderStatusEnum.TAKEN);
+        Mockito.when(orderMapper.toDto(orderEntity)).thenReturn(order);
+
+        //test
+        Order orderResponse = orderClaimService.claimNextOrder(false);
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+        Mockito.verify(orderEntityRepository, Mockito.never()).findByStatusSkipLocked(any(), any());
+    }
+
+    @Test
+    void claimNextOrder_withoutSkipLockedAndCandidatesAlwaysTaken_shouldThrowConflictError() {
+        //inputs
+        OrderClaimService orderClaimService = new OrderClaimService(orderEntityRepository, orderMapper, false);
+        Mockito.when(orderEntityRepository.findIdsByStatus(eq(OrderStatusEnum.UNASSIGNED), any(Pageable.class)))
+            .thenReturn(Collections.singletonList(ORDER_ID));
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID)).thenReturn(0);
+
+        //test & checks
+        assertThatThrownBy(() -> orderClaimService.claimNextOrder(false))
+            .isInstanceOf(ConflictException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "orderClaimContention");
+        Mockito.verify(orderEntityRepository, Mockito.times(OrderClaimService.MAX_CLAIM_ROUNDS)).takeIfUnassigned(ORDER_ID);
+    }
+}
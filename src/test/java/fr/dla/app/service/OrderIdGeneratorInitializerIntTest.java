@@ -0,0 +1,63 @@
+package fr.dla.app.service;
+
+import fr.dla.app.DlappApp;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts on a database holding orders with auto increment ids, Liquibase disabled as in dev and prod: Hibernate creates
+ * the id_generator table, which must not hand out the ids already used.
+ */
+@SpringBootTest(classes = {DlappApp.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:autoIncrementOrders;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+    "spring.datasource.initialization-mode=always",
+    "spring.datasource.schema=classpath:config/sql/auto-increment-orders.sql",
+    "spring.liquibase.enabled=false"
+})
+class OrderIdGeneratorInitializerIntTest {
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+
+    @Autowired
+    private OrderIdGeneratorInitializer orderIdGeneratorInitializer;
+
+    @Test
+    void save_withExistingAutoIncrementOrders_shouldContinueAfterTheirIds() {
+        //inputs
+        long ordersBefore = orderEntityRepository.count();
+
+        //test
+        List<OrderEntity> saved = orderEntityRepository.saveAll(IntStream.range(0, 60)
+            .mapToObj(i -> new OrderEntity(i, OrderStatusEnum.UNASSIGNED))
+            .collect(Collectors.toList()));
+
+        //checks
+        assertThat(saved).extracting(OrderEntity::getId).allSatisfy(id -> assertThat(id).isGreaterThan(120));
+        assertThat(orderEntityRepository.count()).isEqualTo(ordersBefore + 60);
+    }
+
+    @Test
+    void initialize_onRestart_shouldNotLowerTheReservedIds() {
+        //inputs
+        int lastId = orderEntityRepository.save(new OrderEntity(10, OrderStatusEnum.UNASSIGNED)).getId();
+
+        //test
+        orderIdGeneratorInitializer.initialize();
+
+        //checks
+        assertThat(orderEntityRepository.save(new OrderEntity(20, OrderStatusEnum.UNASSIGNED)).getId()).isGreaterThan(lastId);
+    }
+}
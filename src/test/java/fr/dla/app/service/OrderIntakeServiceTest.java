@@ -0,0 +1,203 @@
+package fr.dla.app.service;
+
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.service.mapper.OrderMapper;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.task.TaskExecutionProperties;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static fr.dla.app.config.Constants.GOOGLE_API_ENTITY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeServiceTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final int ORDER_ID = 1;
+    private static final int ORDER_DISTANCE = 10;
+
+    @Mock
+    private OrderEntityRepository orderEntityRepository;
+
+    @Mock
+    private GoogleMapsRouteClient googleMapsRouteClient;
+
+    @Mock
+    private OrderMapper orderMapper;
+
+    private MeterRegistry meterRegistry;
+
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getOrderIntake().setQueueCapacity(2);
+        orderIntakeService = new OrderIntakeService(orderEntityRepository, googleMapsRouteClient, orderMapper,
+            applicationProperties, new TaskExecutionProperties(), meterRegistry);
+    }
+
+    @Test
+    void submit_withQueueFull_shouldSavePendingOrdersThenReject() {
+        //inputs
+        Mockito.when(orderEntityRepository.save(any(OrderEntity.class))).thenReturn(
+            new OrderEntity(ORDER_ID, null, OrderStatusEnum.PENDING),
+            new OrderEntity(ORDER_ID + 1, null, OrderStatusEnum.PENDING));
+        Order order = new Order(ORDER_ID, null, OrderStatusEnum.PENDING);
+        Mockito.when(orderMapper.toDto(any(OrderEntity.class))).thenReturn(order);
+
+        //test
+        Order orderResponse = orderIntakeService.submit(ORIGIN, DESTINATION);
+        orderIntakeService.submit(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(orderResponse).isSameAs(order);
+        ArgumentCaptor<OrderEntity> captor = ArgumentCaptor.forClass(OrderEntity.class);
+        Mockito.verify(orderEntityRepository, Mockito.times(2)).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(OrderStatusEnum.PENDING);
+        assertThat(captor.getValue().getDistance()).isNull();
+        assertThat(captor.getValue().getOriginLatitude()).isEqualTo(48.858245);
+        assertThat(meterRegistry.get(OrderIntakeService.QUEUE_DEPTH_METRIC_NAME).gauge().value()).isEqualTo(2);
+        assertThatThrownBy(() -> orderIntakeService.submit(ORIGIN, DESTINATION))
+            .isInstanceOf(ServiceUnavailableException.class)
+            .hasFieldOrPropertyWithValue("errorKey", OrderIntakeService.INTAKE_FULL_ERROR_KEY);
+        assertThat(meterRegistry.get(OrderIntakeService.REJECTED_METRIC_NAME).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void process_withResolvedDistance_shouldSaveUnassignedOrder() {
+        //inputs
+        Mockito.when(orderEntityRepository.findById(ORDER_ID)).thenReturn(Optional.of(pendingOrderEntity()));
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(response(GoogleApiElementLevelStatusEnum.OK));
+
+        //test
+        orderIntakeService.process(ORDER_ID);
+
+        //checks
+        ArgumentCaptor<OrderEntity> captor = ArgumentCaptor.forClass(OrderEntity.class);
+        Mockito.verify(orderEntityRepository).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(OrderStatusEnum.UNASSIGNED);
+        assertThat(captor.getValue().getDistance()).isEqualTo(ORDER_DISTANCE);
+        assertThat(meterRegistry.get(OrderIntakeService.PROCESSED_METRIC_NAME).tag("outcome", "resolved").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void process_withRouteNotFound_shouldSaveFailedOrder() {
+        //inputs
+        Mockito.when(orderEntityRepository.findById(ORDER_ID)).thenReturn(Optional.of(pendingOrderEntity()));
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenReturn(response(GoogleApiElementLevelStatusEnum.NOT_FOUND));
+
+        //test
+        orderIntakeService.process(ORDER_ID);
+
+        //checks
+        ArgumentCaptor<OrderEntity> captor = ArgumentCaptor.forClass(OrderEntity.class);
+        Mockito.verify(orderEntityRepository).save(captor.capture());
+        assertThat(captor.getValue().getStatus()).isEqualTo(OrderStatusEnum.FAILED);
+        assertThat(captor.getValue().getFailureReason()).isEqualTo("Google maps API return a not found error");
+    }
+
+    @Test
+    void process_withGoogleUnavailable_shouldKeepOrderPending() {
+        //inputs
+        Mockito.when(orderEntityRepository.findById(ORDER_ID)).thenReturn(Optional.of(pendingOrderEntity()));
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION))
+            .thenThrow(new ServiceUnavailableException("Circuit open", GOOGLE_API_ENTITY, "googleApiUnavailable"));
+
+        //test
+        orderIntakeService.process(ORDER_ID);
+
+        //checks
+        Mockito.verify(orderEntityRepository, Mockito.never()).save(any(OrderEntity.class));
+        assertThat(meterRegistry.get(OrderIntakeService.PROCESSED_METRIC_NAME).tag("outcome", "retry").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void process_withOrderNoLongerPending_shouldSkipIt() {
+        //inputs
+        Mockito.when(orderEntityRepository.findById(ORDER_ID))
+            .thenReturn(Optional.of(new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)));
+
+        //test
+        orderIntakeService.process(ORDER_ID);
+
+        //checks
+        Mockito.verifyNoInteractions(googleMapsRouteClient);
+        Mockito.verify(orderEntityRepository, Mockito.never()).save(any(OrderEntity.class));
+    }
+
+    @Test
+    void sweep_withStalePendingOrders_shouldFailExpiredAndQueueOthersOnce() {
+        //inputs
+        Mockito.when(orderEntityRepository.failPendingCreatedBefore(any(Instant.class), eq(OrderIntakeService.EXPIRED_FAILURE_REASON)))
+            .thenReturn(3);
+        Mockito.when(orderEntityRepository.countByStatus(OrderStatusEnum.PENDING)).thenReturn(2L);
+        Mockito.when(orderEntityRepository.findIdsByStatusCreatedBefore(eq(OrderStatusEnum.PENDING), any(Instant.class), any(Pageable.class)))
+            .thenReturn(Arrays.asList(1, 2))
+            .thenReturn(Collections.singletonList(2));
+
+        //test
+        orderIntakeService.sweep();
+        orderIntakeService.sweep();
+
+        //checks
+        Mockito.verify(orderEntityRepository, Mockito.times(2))
+            .failPendingCreatedBefore(any(Instant.class), eq(OrderIntakeService.EXPIRED_FAILURE_REASON));
+        assertThat(meterRegistry.get(OrderIntakeService.QUEUE_DEPTH_METRIC_NAME).gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get(OrderIntakeService.PENDING_METRIC_NAME).gauge().value()).isEqualTo(2);
+    }
+
+    private static OrderEntity pendingOrderEntity() {
+        OrderEntity orderEntity = new OrderEntity(ORDER_ID, null, OrderStatusEnum.PENDING);
+        orderEntity.setOriginLatitude(ORIGIN.getLatitude());
+        orderEntity.setOriginLongitude(ORIGIN.getLongitude());
+        orderEntity.setDestinationLatitude(DESTINATION.getLatitude());
+        orderEntity.setDestinationLongitude(DESTINATION.getLongitude());
+        return orderEntity;
+    }
+
+    private static DistanceMatrixResponseEntity response(GoogleApiElementLevelStatusEnum elementStatus) {
+        return DistanceMatrixResponseEntity.builder()
+            .rows(Collections.singletonList(Row.builder()
+                .elements(Collections.singletonList(Element.builder()
+                    .distance(new Distance(null, ORDER_DISTANCE))
+                    .status(elementStatus)
+                    .build())).build()))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+    }
+}
@@ -0,0 +1,247 @@
+package fr.dla.app.service;
+
+import fr.dla.app.DlappApp;
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.client.googlemapsapi.model.Distance;
+import fr.dla.app.client.googlemapsapi.model.DistanceMatrixResponseEntity;
+import fr.dla.app.client.googlemapsapi.model.Element;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
+import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.domain.BulkTakeOrderResult;
+import fr.dla.app.domain.GeoPoint;
+import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.TakeOrderOutcomeEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.web.rest.errors.ConflictException;
+import fr.dla.app.web.rest.errors.NotFoundException;
+import fr.dla.app.web.rest.errors.PreconditionFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(classes = {DlappApp.class})
+class OrderServiceIntTest {
+
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final int ORDER_DISTANCE = 51231;
+    private static final int RACING_THREADS = 16;
+    private static final int RACES = 20;
+
+    @MockBean(name = "googleMapsRouteClient")
+    private GoogleMapsRouteClient googleMapsRouteClient;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderClaimService orderClaimService;
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void clean() {
+        orderEntityRepository.deleteAll();
+    }
+
+    @Test
+    void createOrder_duringGoogleCall_shouldHoldNoTransactionNorConnection() {
+        //inputs
+        AtomicBoolean transactionActiveDuringCall = new AtomicBoolean(true);
+        AtomicBoolean connectionBoundDuringCall = new AtomicBoolean(true);
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenAnswer(invocation -> {
+            transactionActiveDuringCall.set(TransactionSynchronizationManager.isActualTransactionActive());
+            // a transaction or an open entity manager binds its connection to the thread
+            connectionBoundDuringCall.set(!TransactionSynchronizationManager.getResourceMap().isEmpty());
+            return DistanceMatrixResponseEntity.builder()
+                .rows(Collections.singletonList(Row.builder()
+                    .elements(Collections.singletonList(Element.builder()
+                        .distance(new Distance(null, ORDER_DISTANCE))
+                        .status(GoogleApiElementLevelStatusEnum.OK)
+                        .build())).build()))
+                .status(GoogleApiTopLevelStatusEnum.OK).build();
+        });
+        Timer transactionTimer = meterRegistry.get(OrderService.TRANSACTION_METRIC_NAME).tag("operation", "createOrder").timer();
+        long transactionsBefore = transactionTimer.count();
+
+        //test
+        Order order = orderService.createOrder(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(transactionActiveDuringCall).isFalse();
+        assertThat(connectionBoundDuringCall).isFalse();
+        assertThat(orderEntityRepository.findById(order.getId())).isPresent();
+        assertThat(transactionTimer.count()).isEqualTo(transactionsBefore + 1);
+    }
+
+    @Test
+    void takeOrder_withConcurrentRequests_shouldLetExactlyOneWin() throws Exception {
+        //inputs
+        ExecutorService racers = Executors.newFixedThreadPool(RACING_THREADS);
+        long takes = 0;
+        long elapsedNanos = 0;
+
+        try {
+            for (int race = 0; race < RACES; race++) {
+                int orderId = orderEntityRepository.save(new OrderEntity(ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)).getId();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> attempts = new ArrayList<>();
+                for (int racer = 0; racer < RACING_THREADS; racer++) {
+                    attempts.add(racers.submit(takeOrderAttempt(orderId, start)));
+                }
+
+                //test
+                long startNanos = System.nanoTime();
+                start.countDown();
+                int winners = 0;
+                for (Future<Boolean> attempt : attempts) {
+                    winners += attempt.get(10, TimeUnit.SECONDS) ? 1 : 0;
+                }
+                elapsedNanos += System.nanoTime() - startNanos;
+                takes += RACING_THREADS;
+
+                //checks
+                assertThat(winners).isEqualTo(1);
+                assertThat(orderEntityRepository.findStatusById(orderId)).contains(OrderStatusEnum.TAKEN);
+            }
+        } finally {
+            racers.shutdownNow();
+        }
+
+        log.info("{} concurrent take requests answered in {} ms, {} requests/s", takes,
+            TimeUnit.NANOSECONDS.toMillis(elapsedNanos), takes * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1));
+    }
+
+    @Test
+    void takeOrders_racingWithOtherTakes_shouldTakeEachOrderOnce() throws Exception {
+        //inputs
+        List<Integer> orderIds = IntStream.range(0, 8)
+            .mapToObj(i -> orderEntityRepository.save(new OrderEntity(ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)).getId())
+            .collect(Collectors.toList());
+        Map<Integer, Integer> winsByOrder = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService racers = Executors.newFixedThreadPool(RACING_THREADS);
+
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int racer = 0; racer < RACING_THREADS; racer++) {
+                int orderId = orderIds.get(racer % orderIds.size());
+                List<Integer> bulkIds = new ArrayList<>(orderIds);
+                Collections.rotate(bulkIds, racer);
+                boolean bulk = racer % 2 == 0;
+                attempts.add(racers.submit(() -> {
+                    start.await();
+                    if (bulk) {
+                        orderService.takeOrders(bulkIds, OrderStatusEnum.TAKEN.name()).stream()
+                            .filter(result -> result.getOutcome() == TakeOrderOutcomeEnum.TAKEN)
+                            .map(BulkTakeOrderResult::getId)
+                            .forEach(id -> winsByOrder.merge(id, 1, Integer::sum));
+                    } else if (takeOrderAttempt(orderId, start).call()) {
+                        winsByOrder.merge(orderId, 1, Integer::sum);
+                    }
+                    return null;
+                }));
+            }
+
+            //test
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            racers.shutdownNow();
+        }
+
+        //checks
+        assertThat(winsByOrder).containsOnlyKeys(orderIds.toArray(new Integer[0]));
+        assertThat(winsByOrder.values()).containsOnly(1);
+    }
+
+    @Test
+    void claimNextOrder_withConcurrentClaimers_shouldHandEachOrderOnce() throws Exception {
+        //inputs
+        int orders = RACING_THREADS / 2;
+        IntStream.range(0, orders).forEach(i -> orderEntityRepository.save(new OrderEntity(ORDER_DISTANCE + i, OrderStatusEnum.UNASSIGNED)));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService claimers = Executors.newFixedThreadPool(RACING_THREADS);
+        List<Integer> claimedIds = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int claimer = 0; claimer < RACING_THREADS; claimer++) {
+                attempts.add(claimers.submit(() -> {
+                    start.await();
+                    // a claimer keeps claiming until the orders run out, as a driver app would retry on 409
+                    while (true) {
+                        try {
+                            claimedIds.add(orderClaimService.claimNextOrder(true).getId());
+                        } catch (ConflictException ex) {
+                            log.debug("Claim contention, retrying");
+                        } catch (NotFoundException ex) {
+                            return null;
+                        }
+                    }
+                }));
+            }
+
+            //test
+            start.countDown();
+            for (Future<?> attempt : attempts) {
+                attempt.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            claimers.shutdownNow();
+        }
+
+        //checks
+        assertThat(claimedIds).hasSize(orders).doesNotHaveDuplicates();
+        assertThat(orderEntityRepository.countByStatus(OrderStatusEnum.UNASSIGNED)).isZero();
+    }
+
+    /**
+     * @return true if the order was taken, false if another request took it first
+     */
+    private Callable<Boolean> takeOrderAttempt(int orderId, CountDownLatch start) {
+        return () -> {
+            start.await();
+            try {
+                orderService.takeOrder(orderId, OrderStatusEnum.TAKEN.name());
+                return true;
+            } catch (PreconditionFailedException ex) {
+                return false;
+            }
+        };
+    }
+}
@@ -7,44 +7,62 @@ import fr.dla.app.client.googlemapsapi.model.Element;
 import fr.dla.app.client.googlemapsapi.model.GoogleApiElementLevelStatusEnum;
 import fr.dla.app.client.googlemapsapi.model.GoogleApiTopLevelStatusEnum;
 import fr.dla.app.client.googlemapsapi.model.Row;
+import fr.dla.app.domain.BulkOrderResult;
+import fr.dla.app.domain.BulkTakeOrderResult;
+import fr.dla.app.domain.GeoPoint;
 import fr.dla.app.domain.Order;
+import fr.dla.app.domain.OrderCoordinates;
+import fr.dla.app.domain.OrderSlice;
 import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.PatchOrderResponse;
+import fr.dla.app.domain.ResponseStatusEnum;
+import fr.dla.app.domain.TakeOrderOutcomeEnum;
 import fr.dla.app.domain.entities.OrderEntity;
 import fr.dla.app.repository.OrderEntityRepository;
 import fr.dla.app.service.mapper.OrderMapper;
 import fr.dla.app.web.rest.errors.BadRequestException;
 import fr.dla.app.web.rest.errors.InternalServerErrorException;
 import fr.dla.app.web.rest.errors.NotFoundException;
+import fr.dla.app.web.rest.errors.PreconditionFailedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 
 @ExtendWith(MockitoExtension.class)
 class OrderServiceTest {
 
-    private static final String START_LATITUDE = "START_LATITUDE";
-    private static final String END_LATITUDE = "END_LATITUDE";
-    private static final String START_LONGITUDE = "START_LONGITUDE";
-    private static final String END_LONGITUDE = "END_LONGITUDE";
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
+    private static final GeoPoint OTHER_DESTINATION = GeoPoint.of(48.856613, 2.352222);
     private static final int ORDER_ID = 1;
     private static final int ORDER_DISTANCE = 10;
 
-    @InjectMocks
-    private OrderService orderService;
-
     @Mock
     private OrderEntityRepository orderEntityRepository;
 
@@ -54,12 +72,23 @@ class OrderServiceTest {
     @Mock
     private OrderMapper orderMapper;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        orderService = new OrderService(orderEntityRepository, googleMapsRouteClient, orderMapper, Runnable::run, Runnable::run,
+            new TransactionTemplate(transactionManager), meterRegistry);
+    }
+
     @Test
     void createOrder_withGoodParameters_shouldCreateOrder() {
         //inputs
-        List<String> origin = Arrays.asList(START_LATITUDE, START_LONGITUDE);
-        List<String> destination = Arrays.asList(END_LATITUDE, END_LONGITUDE);
-
         DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
             .rows(
                 Collections.singletonList(
@@ -71,24 +100,57 @@ class OrderServiceTest {
                                     .status(GoogleApiElementLevelStatusEnum.OK)
                                     .build())).build()))
             .status(GoogleApiTopLevelStatusEnum.OK).build();
-        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(origin, destination)).thenReturn(distanceMatrixResponseEntity);
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(distanceMatrixResponseEntity);
         OrderEntity orderEntitySaved = new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
         Mockito.when(orderEntityRepository.save(any(OrderEntity.class))).thenReturn(orderEntitySaved);
         Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
         Mockito.when(orderMapper.toDto(orderEntitySaved)).thenReturn(order);
 
         //test
-        Order orderResponse = orderService.createOrder(origin, destination);
+        Order orderResponse = orderService.createOrder(ORIGIN, DESTINATION);
 
         assertThat(orderResponse).isEqualToComparingFieldByField(order);
+        Mockito.verify(transactionManager).commit(any());
+        assertThat(meterRegistry.get(OrderService.TRANSACTION_METRIC_NAME).tag("operation", "createOrder").timer().count())
+            .isEqualTo(1);
     }
 
     @Test
-    void createOrder_withGoogleNotFoundError_shouldReturnNotFoundError() {
+    void createOrderAsync_withGoodParameters_shouldSaveOrderOnGoogleResponse() {
         //inputs
-        List<String> origin = Arrays.asList(START_LATITUDE, START_LONGITUDE);
-        List<String> destination = Arrays.asList(END_LATITUDE, END_LONGITUDE);
+        DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
+            .rows(
+                Collections.singletonList(
+                    Row.builder()
+                        .elements(
+                            Collections.singletonList(
+                                Element.builder()
+                                    .distance(new Distance(null, ORDER_DISTANCE))
+                                    .status(GoogleApiElementLevelStatusEnum.OK)
+                                    .build())).build()))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+        CompletableFuture<DistanceMatrixResponseEntity> googleResponse = new CompletableFuture<>();
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION)).thenReturn(googleResponse);
+        OrderEntity orderEntitySaved = new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderEntityRepository.save(any(OrderEntity.class))).thenReturn(orderEntitySaved);
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderMapper.toDto(orderEntitySaved)).thenReturn(order);
 
+        //test
+        CompletableFuture<Order> orderResponse = orderService.createOrderAsync(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(orderResponse).isNotDone();
+        Mockito.verifyNoInteractions(orderEntityRepository);
+        googleResponse.complete(distanceMatrixResponseEntity);
+        assertThat(orderResponse.join()).isSameAs(order);
+        Mockito.verify(transactionManager).commit(any());
+        Mockito.verify(googleMapsRouteClient, Mockito.never()).getDistanceDetailsBetweenTwoCoordinates(any(), any());
+    }
+
+    @Test
+    void createOrderAsync_withGoogleNotFoundError_shouldCompleteExceptionallyWithoutSaving() {
+        //inputs
         DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
             .rows(
                 Collections.singletonList(
@@ -100,11 +162,67 @@ class OrderServiceTest {
                                     .status(GoogleApiElementLevelStatusEnum.NOT_FOUND)
                                     .build())).build()))
             .status(GoogleApiTopLevelStatusEnum.OK).build();
-        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(origin, destination)).thenReturn(distanceMatrixResponseEntity);
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinatesAsync(ORIGIN, DESTINATION))
+            .thenReturn(CompletableFuture.completedFuture(distanceMatrixResponseEntity));
+
+        //test
+        CompletableFuture<Order> orderResponse = orderService.createOrderAsync(ORIGIN, DESTINATION);
+
+        //checks
+        assertThatThrownBy(orderResponse::join)
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(NotFoundException.class);
+        Mockito.verifyNoInteractions(orderEntityRepository, transactionManager);
+    }
+
+    @Test
+    void createOrder_withEstimatedDistance_shouldFlagOrderEntity() {
+        //inputs
+        DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
+            .rows(
+                Collections.singletonList(
+                    Row.builder()
+                        .elements(
+                            Collections.singletonList(
+                                Element.builder()
+                                    .distance(new Distance(null, ORDER_DISTANCE))
+                                    .status(GoogleApiElementLevelStatusEnum.OK)
+                                    .build())).build()))
+            .status(GoogleApiTopLevelStatusEnum.OK)
+            .estimated(true).build();
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(distanceMatrixResponseEntity);
+        ArgumentCaptor<OrderEntity> orderEntityCaptor = ArgumentCaptor.forClass(OrderEntity.class);
+        Mockito.when(orderEntityRepository.save(orderEntityCaptor.capture())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //test
+        orderService.createOrder(ORIGIN, DESTINATION);
+
+        //checks
+        assertThat(orderEntityCaptor.getValue().isEstimatedDistance()).isTrue();
+        assertThat(orderEntityCaptor.getValue().getDistance()).isEqualTo(ORDER_DISTANCE);
+        assertThat(orderEntityCaptor.getValue().getOriginLatitude()).isEqualTo(48.858245);
+        assertThat(orderEntityCaptor.getValue().getDestinationLongitude()).isEqualTo(2.781909);
+    }
+
+    @Test
+    void createOrder_withGoogleNotFoundError_shouldReturnNotFoundError() {
+        //inputs
+        DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
+            .rows(
+                Collections.singletonList(
+                    Row.builder()
+                        .elements(
+                            Collections.singletonList(
+                                Element.builder()
+                                    .distance(null)
+                                    .status(GoogleApiElementLevelStatusEnum.NOT_FOUND)
+                                    .build())).build()))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(distanceMatrixResponseEntity);
 
         //test
         try {
-            orderService.createOrder(origin, destination);
+            orderService.createOrder(ORIGIN, DESTINATION);
         } catch (NotFoundException ex) {
             assertThat(ex.getErrorKey()).isEqualTo("notFoundError");
         }
@@ -113,9 +231,6 @@ class OrderServiceTest {
     @Test
     void createOrder_withGoogleThrowInvalidRequest_shouldReturnBadRequestError() {
         //inputs
-        List<String> origin = Arrays.asList(START_LATITUDE, START_LONGITUDE);
-        List<String> destination = Arrays.asList(END_LATITUDE, END_LONGITUDE);
-
         DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
             .rows(
                 Collections.singletonList(
@@ -127,11 +242,11 @@ class OrderServiceTest {
                                     .status(GoogleApiElementLevelStatusEnum.NOT_FOUND)
                                     .build())).build()))
             .status(GoogleApiTopLevelStatusEnum.INVALID_REQUEST).build();
-        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(origin, destination)).thenReturn(distanceMatrixResponseEntity);
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(distanceMatrixResponseEntity);
 
         //test
         try {
-            orderService.createOrder(origin, destination);
+            orderService.createOrder(ORIGIN, DESTINATION);
         } catch (BadRequestException ex) {
             assertThat(ex.getErrorKey()).isEqualTo("badRequestError");
         }
@@ -140,34 +255,232 @@ class OrderServiceTest {
     @Test
     void createOrder_withGoogleNullResponse_shouldReturnInternalServerError() {
         //inputs
-        List<String> origin = Arrays.asList(START_LATITUDE, START_LONGITUDE);
-        List<String> destination = Arrays.asList(END_LATITUDE, END_LONGITUDE);
-
-        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(origin, destination)).thenReturn(null);
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(ORIGIN, DESTINATION)).thenReturn(null);
 
         //test
         try {
-            orderService.createOrder(origin, destination);
+            orderService.createOrder(ORIGIN, DESTINATION);
         } catch (InternalServerErrorException ex) {
             assertThat(ex.getErrorKey()).isEqualTo("nullResponseError");
         }
     }
 
     @Test
-    void getOrders_withGoodParameters_shouldReturnOrderList() {
+    void createOrders_withSharedOrigin_shouldCallGoogleOnceAndFailOnlyUnresolvedOrders() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = Arrays.asList(
+            orderCoordinates(ORIGIN, DESTINATION),
+            orderCoordinates(ORIGIN, OTHER_DESTINATION),
+            orderCoordinates(ORIGIN, DESTINATION));
+        DistanceMatrixResponseEntity distanceMatrixResponseEntity = DistanceMatrixResponseEntity.builder()
+            .rows(Collections.singletonList(Row.builder()
+                .elements(Arrays.asList(
+                    Element.builder().status(GoogleApiElementLevelStatusEnum.NOT_FOUND).build(),
+                    Element.builder()
+                        .distance(new Distance(null, ORDER_DISTANCE))
+                        .status(GoogleApiElementLevelStatusEnum.OK)
+                        .build())).build()))
+            .status(GoogleApiTopLevelStatusEnum.OK).build();
+        Mockito.when(googleMapsRouteClient.getDistanceMatrix(Collections.singletonList(ORIGIN), Arrays.asList(OTHER_DESTINATION, DESTINATION)))
+            .thenReturn(distanceMatrixResponseEntity);
+        Mockito.when(orderEntityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderMapper.toDto(any(OrderEntity.class))).thenReturn(order);
+
+        //test
+        List<BulkOrderResult> results = orderService.createOrders(orderCoordinates);
+
+        //checks
+        Mockito.verify(googleMapsRouteClient, Mockito.times(1)).getDistanceMatrix(anyList(), anyList());
+        assertThat(results).extracting(BulkOrderResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).extracting(BulkOrderResult::getStatus)
+            .containsExactly(ResponseStatusEnum.SUCCESS, ResponseStatusEnum.FAILURE, ResponseStatusEnum.SUCCESS);
+        assertThat(results.get(0).getOrder()).isSameAs(order);
+        assertThat(results.get(1).getError()).isEqualTo("Google maps API return a not found error");
+        ArgumentCaptor<List<OrderEntity>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(orderEntityRepository).saveAll(captor.capture());
+        assertThat(captor.getValue()).hasSize(2)
+            .allSatisfy(orderEntity -> assertThat(orderEntity.getDistance()).isEqualTo(ORDER_DISTANCE));
+    }
+
+    @Test
+    void createOrders_withGoogleErrorOnOneRequest_shouldFailOnlyOrdersOfThatRequest() {
+        //inputs
+        List<OrderCoordinates> orderCoordinates = IntStream.range(0, GoogleMapsRouteClient.MAX_DESTINATIONS + 1)
+            .mapToObj(i -> orderCoordinates(ORIGIN, GeoPoint.of(48.0 + i / 100.0, 2.0)))
+            .collect(Collectors.toList());
+        Mockito.when(googleMapsRouteClient.getDistanceMatrix(anyList(), anyList())).thenAnswer(invocation -> {
+            List<GeoPoint> destinations = invocation.getArgument(1);
+            if (destinations.size() == GoogleMapsRouteClient.MAX_DESTINATIONS) {
+                throw new InternalServerErrorException("I/O error", "googleApi", "googleApiException");
+            }
+            return DistanceMatrixResponseEntity.builder()
+                .rows(Collections.singletonList(Row.builder()
+                    .elements(Collections.singletonList(Element.builder()
+                        .distance(new Distance(null, ORDER_DISTANCE))
+                        .status(GoogleApiElementLevelStatusEnum.OK)
+                        .build())).build()))
+                .status(GoogleApiTopLevelStatusEnum.OK).build();
+        });
+        Mockito.when(orderEntityRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        //test
+        List<BulkOrderResult> results = orderService.createOrders(orderCoordinates);
+
+        //checks
+        Mockito.verify(googleMapsRouteClient, Mockito.times(2)).getDistanceMatrix(anyList(), anyList());
+        assertThat(results.subList(0, GoogleMapsRouteClient.MAX_DESTINATIONS))
+            .allSatisfy(result -> assertThat(result.getError()).isEqualTo("I/O error"));
+        assertThat(results.get(GoogleMapsRouteClient.MAX_DESTINATIONS).getStatus()).isEqualTo(ResponseStatusEnum.SUCCESS);
+    }
+
+    @Test
+    void getOrders_withGoodParameters_shouldReturnOrderListWithoutCounting() {
         //inputs
         List<OrderEntity> orderEntityList = Arrays.asList(
             new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED),
-            new OrderEntity(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)
+            new OrderEntity(ORDER_ID + 1, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)
         );
-        Mockito.when(orderEntityRepository.findAll(any(Pageable.class)))
-            .thenReturn(new PageImpl<>(orderEntityList, PageRequest.of(0, 2), 2));
+        Mockito.when(orderEntityRepository.findAllByStatusIn(EnumSet.of(OrderStatusEnum.UNASSIGNED, OrderStatusEnum.TAKEN),
+            PageRequest.of(0, 2, Sort.by("id"))))
+            .thenReturn(new SliceImpl<>(orderEntityList, PageRequest.of(0, 2), true));
         Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
         Mockito.when(orderMapper.toDto(any(OrderEntity.class))).thenReturn(order);
 
         //test
-        List<Order> orderResponse = orderService.getOrders(1, 2);
+        OrderSlice orderResponse = orderService.getOrders(1, 2);
+
+        //checks
+        assertThat(orderResponse.getOrders().size()).isEqualTo(2);
+        assertThat(orderResponse.getNextCursor()).isEqualTo(OrderCursor.encode(ORDER_ID + 1));
+        Mockito.verify(orderEntityRepository, Mockito.never()).count();
+    }
+
+    @Test
+    void getOrdersAfter_withLastPage_shouldSeekAfterTheCursorAndReturnNoNextCursor() {
+        //inputs
+        List<OrderEntity> orderEntityList = Collections.singletonList(new OrderEntity(ORDER_ID + 2, ORDER_DISTANCE, OrderStatusEnum.TAKEN));
+        Mockito.when(orderEntityRepository.findAllByIdGreaterThanAndStatusIn(ORDER_ID + 1,
+            EnumSet.of(OrderStatusEnum.UNASSIGNED, OrderStatusEnum.TAKEN), PageRequest.of(0, 2, Sort.by("id"))))
+            .thenReturn(new SliceImpl<>(orderEntityList, PageRequest.of(0, 2), false));
+        Mockito.when(orderMapper.toDto(any(OrderEntity.class))).thenReturn(new Order(ORDER_ID + 2, ORDER_DISTANCE, OrderStatusEnum.TAKEN));
+
+        //test
+        OrderSlice orderResponse = orderService.getOrdersAfter(OrderCursor.encode(ORDER_ID + 1), 2);
+
+        //checks
+        assertThat(orderResponse.getOrders()).extracting(Order::getId).containsExactly(ORDER_ID + 2);
+        assertThat(orderResponse.getNextCursor()).isNull();
+    }
+
+    @Test
+    void getOrdersAfter_withInvalidCursor_shouldThrowBadRequestError() {
+        //test & checks
+        assertThatThrownBy(() -> orderService.getOrdersAfter("not-a-cursor", 2))
+            .isInstanceOf(BadRequestException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "invalidCursor");
+        Mockito.verifyNoInteractions(orderEntityRepository);
+    }
+
+    @Test
+    void takeOrder_withUnassignedOrder_shouldTakeItInOneStatement() {
+        //inputs
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID)).thenReturn(1);
+
+        //test
+        PatchOrderResponse patchOrderResponse = orderService.takeOrder(ORDER_ID, OrderStatusEnum.TAKEN.name());
+
+        //checks
+        assertThat(patchOrderResponse.getStatus()).isEqualTo(ResponseStatusEnum.SUCCESS);
+        Mockito.verify(orderEntityRepository, Mockito.never()).findStatusById(ORDER_ID);
+    }
+
+    @Test
+    void takeOrder_withUnknownOrder_shouldThrowNotFoundError() {
+        //inputs
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID)).thenReturn(0);
+        Mockito.when(orderEntityRepository.findStatusById(ORDER_ID)).thenReturn(Optional.empty());
+
+        //test & checks
+        assertThatThrownBy(() -> orderService.takeOrder(ORDER_ID, OrderStatusEnum.TAKEN.name()))
+            .isInstanceOf(NotFoundException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "orderNotFound");
+    }
+
+    @Test
+    void takeOrder_withAlreadyTakenOrder_shouldThrowPreconditionFailedError() {
+        //inputs
+        Mockito.when(orderEntityRepository.takeIfUnassigned(ORDER_ID)).thenReturn(0);
+        Mockito.when(orderEntityRepository.findStatusById(ORDER_ID)).thenReturn(Optional.of(OrderStatusEnum.TAKEN));
+
+        //test & checks
+        assertThatThrownBy(() -> orderService.takeOrder(ORDER_ID, OrderStatusEnum.TAKEN.name()))
+            .isInstanceOf(PreconditionFailedException.class)
+            .hasFieldOrPropertyWithValue("errorKey", "orderAlreadyTaken");
+    }
+
+    @Test
+    void takeOrders_withMixedOrders_shouldReturnOutcomeOfEachOrder() {
+        //inputs
+        Mockito.when(orderEntityRepository.findByIdInAndStatusOrderByIdAsc(any(), Mockito.eq(OrderStatusEnum.UNASSIGNED)))
+            .thenReturn(Collections.singletonList(new OrderEntity(1, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED)));
+        Mockito.when(orderEntityRepository.takeAllIfUnassigned(Collections.singleton(1))).thenReturn(1);
+        Mockito.when(orderEntityRepository.findStatusesByIdIn(Arrays.asList(2, 3, 4))).thenReturn(Arrays.asList(
+            orderIdStatus(2, OrderStatusEnum.TAKEN),
+            orderIdStatus(3, OrderStatusEnum.PENDING)
+        ));
+
+        //test
+        List<BulkTakeOrderResult> results = orderService.takeOrders(Arrays.asList(1, 2, 3, 4, 1), OrderStatusEnum.TAKEN.name());
+
+        //checks
+        assertThat(results).extracting(BulkTakeOrderResult::getId).containsExactly(1, 2, 3, 4);
+        assertThat(results).extracting(BulkTakeOrderResult::getOutcome).containsExactly(
+            TakeOrderOutcomeEnum.TAKEN, TakeOrderOutcomeEnum.ALREADY_TAKEN, TakeOrderOutcomeEnum.NOT_AVAILABLE, TakeOrderOutcomeEnum.NOT_FOUND);
+    }
+
+    @Test
+    void takeOrders_withNoUnassignedOrder_shouldNotRunTheUpdate() {
+        //inputs
+        Mockito.when(orderEntityRepository.findByIdInAndStatusOrderByIdAsc(any(), Mockito.eq(OrderStatusEnum.UNASSIGNED)))
+            .thenReturn(Collections.emptyList());
+        Mockito.when(orderEntityRepository.findStatusesByIdIn(Collections.singletonList(ORDER_ID)))
+            .thenReturn(Collections.singletonList(orderIdStatus(ORDER_ID, OrderStatusEnum.TAKEN)));
+
+        //test
+        List<BulkTakeOrderResult> results = orderService.takeOrders(Collections.singletonList(ORDER_ID), OrderStatusEnum.TAKEN.name());
+
+        //checks
+        assertThat(results).extracting(BulkTakeOrderResult::getOutcome).containsExactly(TakeOrderOutcomeEnum.ALREADY_TAKEN);
+        Mockito.verify(orderEntityRepository, Mockito.never()).takeAllIfUnassigned(any());
+    }
+
+    @Test
+    void takeOrders_withBadStatus_shouldThrowBadRequestError() {
+        //test & checks
+        assertThatThrownBy(() -> orderService.takeOrders(Collections.singletonList(ORDER_ID), OrderStatusEnum.UNASSIGNED.name()))
+            .isInstanceOf(BadRequestException.class);
+        Mockito.verifyNoInteractions(orderEntityRepository);
+    }
+
+    private static OrderCoordinates orderCoordinates(GeoPoint origin, GeoPoint destination) {
+        OrderCoordinates orderCoordinates = new OrderCoordinates();
+        orderCoordinates.setOrigin(origin);
+        orderCoordinates.setDestination(destination);
+        return orderCoordinates;
+    }
+
+    private static OrderEntityRepository.OrderIdStatus orderIdStatus(int id, OrderStatusEnum status) {
+        return new OrderEntityRepository.OrderIdStatus() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
 
-        assertThat(orderResponse.size()).isEqualTo(2);
+            @Override
+            public OrderStatusEnum getStatus() {
+                return status;
+            }
+        };
     }
 }
@@ -1,11 +1,14 @@
 package fr.dla.app.web.rest;
 
 import fr.dla.app.DlappApp;
+import fr.dla.app.domain.GeoPoint;
 import fr.dla.app.domain.OrderCoordinates;
 import fr.dla.app.domain.OrderStatus;
 import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.OrdersStatus;
 import fr.dla.app.domain.PatchOrderResponse;
 import fr.dla.app.domain.ResponseStatusEnum;
+import fr.dla.app.domain.TakeOrderOutcomeEnum;
 import fr.dla.app.domain.entities.OrderEntity;
 import fr.dla.app.repository.OrderEntityRepository;
 import fr.dla.app.web.rest.errors.DlappExceptionHandler;
@@ -19,10 +22,12 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -39,6 +44,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -60,6 +66,14 @@ class OrderIntTest {
             this.latitude = latitude;
             this.longitude = longitude;
         }
+
+        GeoPoint toGeoPoint() {
+            return GeoPoint.of(Double.parseDouble(latitude), Double.parseDouble(longitude));
+        }
+
+        String toJson() {
+            return "[\"" + latitude + "\", \"" + longitude + "\"]";
+        }
     }
 
     private OrderCoordinates orderCoordinates = new OrderCoordinates();
@@ -94,8 +108,8 @@ class OrderIntTest {
     /*@Test
     @Transactional
     void createOrder_withFullValidParameters_shouldReturnCreatedOrder() throws Exception {
-        orderCoordinates.setOrigin(Arrays.asList(PARIS_EIFFEL_TOWER.latitude, PARIS_EIFFEL_TOWER.longitude));
-        orderCoordinates.setDestination(Arrays.asList(DISNEYLAND_PARIS.latitude, DISNEYLAND_PARIS.longitude));
+        orderCoordinates.setOrigin(PARIS_EIFFEL_TOWER.toGeoPoint());
+        orderCoordinates.setDestination(DISNEYLAND_PARIS.toGeoPoint());
 
         int databaseSizeBeforeCreate = orderEntityRepository.findAll().size();
 
@@ -122,8 +136,8 @@ class OrderIntTest {
     /*@Test
     @Transactional
     void createOrder_withBetweenTwoUnreachableCoordinates_shouldReturnZeroResultsError() throws Exception {
-        orderCoordinates.setOrigin(Arrays.asList(LALAMOVE_HONG_KONG_OFFICE.latitude, LALAMOVE_HONG_KONG_OFFICE.longitude));
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, MALDIVES_ISLAND.longitude));
+        orderCoordinates.setOrigin(LALAMOVE_HONG_KONG_OFFICE.toGeoPoint());
+        orderCoordinates.setDestination(MALDIVES_ISLAND.toGeoPoint());
 
         int databaseSizeBeforeCreate = orderEntityRepository.findAll().size();
 
@@ -141,68 +155,62 @@ class OrderIntTest {
 
     @Test
     void createOrder_withDestinationBadSize_shouldReturnBadRequest() throws Exception {
-        orderCoordinates.setOrigin(Arrays.asList(LALAMOVE_HONG_KONG_OFFICE.latitude, LALAMOVE_HONG_KONG_OFFICE.longitude));
-        orderCoordinates.setDestination(Collections.singletonList(MALDIVES_ISLAND.latitude));
-
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .content(coordinatesJson(LALAMOVE_HONG_KONG_OFFICE.toJson(), "[\"" + MALDIVES_ISLAND.latitude + "\"]")))
             .andExpect(status().isBadRequest())
-            .andExpect(jsonPath("$.error").value(containsString("Field error in object 'orderCoordinates' on field 'destination'")));
+            .andExpect(jsonPath("$.error").value(containsString("coordinates must be a [latitude, longitude] array")));
     }
 
     @Test
     void createOrder_withDestinationBlank_shouldReturnBadRequest() throws Exception {
-        orderCoordinates.setOrigin(Arrays.asList(LALAMOVE_HONG_KONG_OFFICE.latitude, LALAMOVE_HONG_KONG_OFFICE.longitude));
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, " "));
-
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .content(coordinatesJson(LALAMOVE_HONG_KONG_OFFICE.toJson(), "[\"" + MALDIVES_ISLAND.latitude + "\", \" \"]")))
             .andExpect(status().isBadRequest())
-            .andExpect(jsonPath("$.error").value(containsString("[destination[1]]]; default message [must not be blank]")));
+            .andExpect(jsonPath("$.error").value(containsString("coordinate must be a number")));
     }
 
     @Test
     void createOrder_withOriginBlank_shouldReturnBadRequest() throws Exception {
-        orderCoordinates.setOrigin(Arrays.asList(" ", LALAMOVE_HONG_KONG_OFFICE.longitude));
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, MALDIVES_ISLAND.longitude));
-
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .content(coordinatesJson("[\" \", \"" + LALAMOVE_HONG_KONG_OFFICE.longitude + "\"]", MALDIVES_ISLAND.toJson())))
             .andExpect(status().isBadRequest())
-            .andExpect(jsonPath("$.error").value(containsString("[origin[0]]]; default message [must not be blank]")));
+            .andExpect(jsonPath("$.error").value(containsString("coordinate must be a number")));
     }
 
     @Test
     void createOrder_withOriginBadSize_shouldReturnBadRequest() throws Exception {
-        orderCoordinates.setOrigin(Collections.singletonList(LALAMOVE_HONG_KONG_OFFICE.latitude));
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, MALDIVES_ISLAND.longitude));
-
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .content(coordinatesJson("[\"" + LALAMOVE_HONG_KONG_OFFICE.latitude + "\"]", MALDIVES_ISLAND.toJson())))
             .andExpect(status().isBadRequest())
-            .andExpect(jsonPath("$.error").value(containsString("Field error in object 'orderCoordinates' on field 'origin'")));
+            .andExpect(jsonPath("$.error").value(containsString("coordinates must be a [latitude, longitude] array")));
     }
 
     @Test
     void createOrder_withOriginEmpty_shouldReturnBadRequest() throws Exception {
-        orderCoordinates.setOrigin(new ArrayList<>());
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, MALDIVES_ISLAND.longitude));
+        mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(coordinatesJson("[]", MALDIVES_ISLAND.toJson())))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("coordinates must be a [latitude, longitude] array")));
+    }
 
+    @Test
+    void createOrder_withOriginOutOfRange_shouldReturnBadRequest() throws Exception {
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
-            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .content(coordinatesJson("[91.5, 2.294642]", MALDIVES_ISLAND.toJson())))
             .andExpect(status().isBadRequest())
-            .andExpect(jsonPath("$.error").value(containsString("Field error in object 'orderCoordinates' on field 'origin'")));
+            .andExpect(jsonPath("$.error").value(containsString("Latitude must be between -90 and 90")));
     }
 
     @Test
     void createOrder_withOriginNull_shouldReturnBadRequest() throws Exception {
         orderCoordinates.setOrigin(null);
-        orderCoordinates.setDestination(Arrays.asList(MALDIVES_ISLAND.latitude, MALDIVES_ISLAND.longitude));
+        orderCoordinates.setDestination(MALDIVES_ISLAND.toGeoPoint());
 
         mockMvc.perform(post("/orders")
             .contentType(MediaType.APPLICATION_JSON)
@@ -219,8 +227,8 @@ class OrderIntTest {
             .content(TestUtil.convertObjectToJsonBytes(null)))
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.error").value("Required request body is missing: public " +
-                "org.springframework.http.ResponseEntity<fr.dla.app.domain.Order> fr.dla.app.web.rest.OrderResource." +
-                "createOrder(fr.dla.app.domain.OrderCoordinates)"));
+                "java.util.concurrent.CompletableFuture<org.springframework.http.ResponseEntity<fr.dla.app.domain.Order>> " +
+                "fr.dla.app.web.rest.OrderResource.createOrder(java.lang.String,fr.dla.app.domain.OrderCoordinates)"));
     }
 
     @Test
@@ -230,8 +238,8 @@ class OrderIntTest {
             .content(TestUtil.convertObjectToJsonBytes(null)))
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.error").value("Required request body is missing: public " +
-                "org.springframework.http.ResponseEntity<fr.dla.app.domain.Order> fr.dla.app.web.rest.OrderResource" +
-                ".createOrder(fr.dla.app.domain.OrderCoordinates)"));
+                "java.util.concurrent.CompletableFuture<org.springframework.http.ResponseEntity<fr.dla.app.domain.Order>> " +
+                "fr.dla.app.web.rest.OrderResource.createOrder(java.lang.String,fr.dla.app.domain.OrderCoordinates)"));
     }
 
     @Test
@@ -260,6 +268,47 @@ class OrderIntTest {
             .andExpect(status().isNotFound());
     }
 
+    @Test
+    void createOrders_withEmptyList_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/orders/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[]"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("createOrders.orderCoordinates: must not be empty")));
+    }
+
+    @Test
+    void createOrders_withOriginNull_shouldReturnBadRequest() throws Exception {
+        orderCoordinates.setOrigin(null);
+        orderCoordinates.setDestination(MALDIVES_ISLAND.toGeoPoint());
+
+        mockMvc.perform(post("/orders/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(Collections.singletonList(orderCoordinates))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("origin: must not be null")));
+    }
+
+    @Test
+    void getOrder_withPendingOrder_shouldReturnItsStatus() throws Exception {
+        OrderEntity orderEntity = orderEntityRepository.save(new OrderEntity(null, OrderStatusEnum.PENDING));
+
+        mockMvc.perform(get(String.format("/orders/%d", orderEntity.getId()))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(orderEntity.getId()))
+            .andExpect(jsonPath("$.status").value(OrderStatusEnum.PENDING.name()))
+            .andExpect(jsonPath("$.failureReason").doesNotExist());
+    }
+
+    @Test
+    void getOrder_withUnknownId_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get(String.format("/orders/%d", Integer.MAX_VALUE))
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("Order not found"));
+    }
+
     /*@Test
     @Transactional
     void getOrders_withValidParameters_shouldReturnAllOrders() throws Exception {
@@ -292,6 +341,61 @@ class OrderIntTest {
             .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    @Transactional
+    void getOrders_withNextPage_shouldLinkToItWithACursor() throws Exception {
+        orderEntityRepository.save(new OrderEntity(10, OrderStatusEnum.UNASSIGNED));
+        orderEntityRepository.save(new OrderEntity(20, OrderStatusEnum.UNASSIGNED));
+        OrderEntity last = orderEntityRepository.save(new OrderEntity(30, OrderStatusEnum.TAKEN));
+
+        MvcResult firstPage = mockMvc.perform(get("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .param("page", "1")
+            .param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(header().string("Link", containsString("rel=\"next\"")))
+            .andReturn();
+        String next = firstPage.getResponse().getHeader("Link").replaceAll("^<(.*)>; rel=\"next\"$", "$1");
+        String cursor = UriComponentsBuilder.fromUriString(next).build().getQueryParams().getFirst("cursor");
+
+        mockMvc.perform(get("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .param("cursor", cursor)
+            .param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].id").value(last.getId()))
+            .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @Transactional
+    void getOrders_withPendingAndFailedOrders_shouldListOnlyUnassignedAndTakenOrders() throws Exception {
+        OrderEntity unassigned = orderEntityRepository.save(new OrderEntity(10, OrderStatusEnum.UNASSIGNED));
+        orderEntityRepository.save(new OrderEntity(null, OrderStatusEnum.PENDING));
+        orderEntityRepository.save(new OrderEntity(null, OrderStatusEnum.FAILED));
+        OrderEntity taken = orderEntityRepository.save(new OrderEntity(30, OrderStatusEnum.TAKEN));
+
+        mockMvc.perform(get("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .param("page", "1")
+            .param("limit", "10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$[*].id").value(containsInRelativeOrder(unassigned.getId(), taken.getId())));
+    }
+
+    @Test
+    void getOrders_withInvalidCursor_shouldReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .param("cursor", "not-a-cursor")
+            .param("limit", "2"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Invalid cursor"));
+    }
+
     @Test
     void getOrders_withBadPageParam_shouldReturnBadRequest() throws Exception {
         mockMvc.perform(get("/orders")
@@ -343,9 +447,7 @@ class OrderIntTest {
     @Transactional
     void takeOrder_withAlreadyTaken_shouldThrowAnError() throws Exception {
         OrderStatus orderStatus = new OrderStatus(OrderStatusEnum.TAKEN.name());
-        OrderEntity orderEntity = new OrderEntity(1, 10, OrderStatusEnum.TAKEN);
-
-        orderEntityRepository.save(orderEntity);
+        OrderEntity orderEntity = orderEntityRepository.save(new OrderEntity(1, 10, OrderStatusEnum.TAKEN));
 
         mockMvc.perform(patch(String.format("/orders/%d", orderEntity.getId()))
             .contentType(MediaType.APPLICATION_JSON)
@@ -354,6 +456,19 @@ class OrderIntTest {
             .andExpect(jsonPath("$.error").value("Order already taken"));
     }
 
+    @Test
+    @Transactional
+    void takeOrder_withPendingOrder_shouldThrowAnError() throws Exception {
+        OrderStatus orderStatus = new OrderStatus(OrderStatusEnum.TAKEN.name());
+        OrderEntity orderEntity = orderEntityRepository.save(new OrderEntity(null, OrderStatusEnum.PENDING));
+
+        mockMvc.perform(patch(String.format("/orders/%d", orderEntity.getId()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(orderStatus)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.error").value("Order is PENDING and cannot be taken"));
+    }
+
     @Test
     void takeOrder_withBadStatusInput_shouldThrowAnError() throws Exception {
         OrderStatus orderStatus = new OrderStatus(OrderStatusEnum.UNASSIGNED.name());
@@ -373,4 +488,73 @@ class OrderIntTest {
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.error").value(containsString("Field error in object 'orderStatus' on field 'status': rejected value [null]")));
     }
+
+    @Test
+    @Transactional
+    void takeOrders_withMixedOrders_shouldReturnOutcomeOfEachOrder() throws Exception {
+        OrderEntity unassigned = orderEntityRepository.save(new OrderEntity(10, OrderStatusEnum.UNASSIGNED));
+        OrderEntity taken = orderEntityRepository.save(new OrderEntity(10, OrderStatusEnum.TAKEN));
+        OrderEntity pending = orderEntityRepository.save(new OrderEntity(null, OrderStatusEnum.PENDING));
+        int unknownId = pending.getId() + 1000;
+        OrdersStatus ordersStatus = new OrdersStatus(
+            Arrays.asList(unassigned.getId(), taken.getId(), pending.getId(), unknownId), OrderStatusEnum.TAKEN.name());
+
+        mockMvc.perform(patch("/orders/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(ordersStatus)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].id").value(unassigned.getId()))
+            .andExpect(jsonPath("$[0].outcome").value(TakeOrderOutcomeEnum.TAKEN.name()))
+            .andExpect(jsonPath("$[1].outcome").value(TakeOrderOutcomeEnum.ALREADY_TAKEN.name()))
+            .andExpect(jsonPath("$[2].outcome").value(TakeOrderOutcomeEnum.NOT_AVAILABLE.name()))
+            .andExpect(jsonPath("$[3].id").value(unknownId))
+            .andExpect(jsonPath("$[3].outcome").value(TakeOrderOutcomeEnum.NOT_FOUND.name()));
+
+        assertThat(orderEntityRepository.findStatusById(unassigned.getId())).contains(OrderStatusEnum.TAKEN);
+        assertThat(orderEntityRepository.findStatusById(pending.getId())).contains(OrderStatusEnum.PENDING);
+    }
+
+    @Test
+    void takeOrders_withEmptyIds_shouldThrowAnError() throws Exception {
+        OrdersStatus ordersStatus = new OrdersStatus(Collections.emptyList(), OrderStatusEnum.TAKEN.name());
+
+        mockMvc.perform(patch("/orders/batch")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(TestUtil.convertObjectToJsonBytes(ordersStatus)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("Field error in object 'ordersStatus' on field 'ids'")));
+    }
+
+    @Test
+    @Transactional
+    void claimNextOrder_withShortestFirst_shouldTakeTheShortestUnassignedOrder() throws Exception {
+        orderEntityRepository.save(new OrderEntity(30, OrderStatusEnum.UNASSIGNED));
+        OrderEntity shortest = orderEntityRepository.save(new OrderEntity(5, OrderStatusEnum.UNASSIGNED));
+        orderEntityRepository.save(new OrderEntity(1, OrderStatusEnum.TAKEN));
+
+        mockMvc.perform(patch("/orders/next")
+            .contentType(MediaType.APPLICATION_JSON)
+            .param("shortestFirst", "true"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(shortest.getId()))
+            .andExpect(jsonPath("$.distance").value(5))
+            .andExpect(jsonPath("$.status").value(OrderStatusEnum.TAKEN.name()));
+
+        assertThat(orderEntityRepository.findStatusById(shortest.getId())).contains(OrderStatusEnum.TAKEN);
+    }
+
+    @Test
+    @Transactional
+    void claimNextOrder_withNoUnassignedOrder_shouldThrowAnError() throws Exception {
+        orderEntityRepository.save(new OrderEntity(1, OrderStatusEnum.TAKEN));
+
+        mockMvc.perform(patch("/orders/next")
+            .contentType(MediaType.APPLICATION_JSON))
+            .andExpect(status().isNotFound())
+            .andExpect(jsonPath("$.error").value("No order available"));
+    }
+
+    private static byte[] coordinatesJson(String origin, String destination) {
+        return ("{\"origin\": " + origin + ", \"destination\": " + destination + "}").getBytes(StandardCharsets.UTF_8);
+    }
 }
@@ -0,0 +1,157 @@
+package fr.dla.app.web.rest;
+
+import com.jayway.jsonpath.JsonPath;
+import fr.dla.app.DlappApp;
+import fr.dla.app.client.googlemapsapi.GoogleMapsRouteClient;
+import fr.dla.app.domain.OrderCoordinates;
+import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.domain.entities.OrderEntity;
+import fr.dla.app.repository.OrderEntityRepository;
+import fr.dla.app.web.rest.errors.DlappExceptionHandler;
+import fr.dla.app.web.rest.errors.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static fr.dla.app.web.rest.OrderIntTest.CoordinatesEnum.DISNEYLAND_PARIS;
+import static fr.dla.app.web.rest.OrderIntTest.CoordinatesEnum.MALDIVES_ISLAND;
+import static fr.dla.app.web.rest.OrderIntTest.CoordinatesEnum.PARIS_EIFFEL_TOWER;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Order creation with the {@code Prefer: respond-async} header, which needs the order intake.
+ * Google is mocked and kept unavailable so that accepted orders stay pending.
+ */
+@SpringBootTest(classes = {DlappApp.class})
+@TestPropertySource(properties = {
+    "application.order-intake.enabled=true",
+    "application.order-intake.sweep-interval=PT1H"
+})
+class OrderIntakeIntTest {
+
+    @MockBean(name = "googleMapsRouteClient")
+    private GoogleMapsRouteClient googleMapsRouteClient;
+
+    private OrderCoordinates orderCoordinates = new OrderCoordinates();
+
+    @Autowired
+    private OrderResource controller;
+
+    @Autowired
+    private DlappExceptionHandler exceptionTranslator;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private OrderEntityRepository orderEntityRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter)
+            .build();
+        Mockito.when(googleMapsRouteClient.getDistanceDetailsBetweenTwoCoordinates(Mockito.any(), Mockito.any()))
+            .thenThrow(new ServiceUnavailableException("Google maps API unavailable", "order", "googleunavailable"));
+    }
+
+    @AfterEach
+    void clean() {
+        orderEntityRepository.deleteAll();
+    }
+
+    @Test
+    void createOrder_withRespondAsyncPreference_shouldAcceptPendingOrder() throws Exception {
+        orderCoordinates.setOrigin(PARIS_EIFFEL_TOWER.toGeoPoint());
+        orderCoordinates.setDestination(DISNEYLAND_PARIS.toGeoPoint());
+
+        MvcResult mvcResult = mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", containsString("/orders/")))
+            .andExpect(header().string("Preference-Applied", "respond-async"))
+            .andExpect(jsonPath("$.id").isNotEmpty())
+            .andExpect(jsonPath("$.distance").doesNotExist())
+            .andExpect(jsonPath("$.status").value(OrderStatusEnum.PENDING.name()));
+
+        OrderEntity orderEntity = orderEntityRepository.findAll().get(0);
+        assertThat(orderEntity.getOriginLatitude()).isEqualTo(PARIS_EIFFEL_TOWER.toGeoPoint().getLatitude());
+        assertThat(orderEntity.getCreatedDate()).isNotNull();
+    }
+
+    @Test
+    void createOrder_withRespondAsyncPreferenceAndSameIdempotencyKey_shouldAcceptOrderOnce() throws Exception {
+        orderCoordinates.setOrigin(PARIS_EIFFEL_TOWER.toGeoPoint());
+        orderCoordinates.setDestination(DISNEYLAND_PARIS.toGeoPoint());
+
+        MvcResult firstResult = mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .header("Idempotency-Key", "2d0a6f0e-retry-test")
+            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .andReturn();
+        String firstOrder = mockMvc.perform(asyncDispatch(firstResult))
+            .andExpect(status().isAccepted())
+            .andReturn().getResponse().getContentAsString();
+
+        MvcResult retryResult = mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .header("Idempotency-Key", "2d0a6f0e-retry-test")
+            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(retryResult))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.id").value(JsonPath.<Integer>read(firstOrder, "$.id")));
+
+        assertThat(orderEntityRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void createOrder_withIdempotencyKeyReusedWithOtherCoordinates_shouldReturnBadRequest() throws Exception {
+        orderCoordinates.setOrigin(PARIS_EIFFEL_TOWER.toGeoPoint());
+        orderCoordinates.setDestination(DISNEYLAND_PARIS.toGeoPoint());
+        MvcResult firstResult = mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .header("Idempotency-Key", "reused-key")
+            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .andReturn();
+        mockMvc.perform(asyncDispatch(firstResult)).andExpect(status().isAccepted());
+
+        orderCoordinates.setDestination(MALDIVES_ISLAND.toGeoPoint());
+        mockMvc.perform(post("/orders")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Prefer", "respond-async")
+            .header("Idempotency-Key", "reused-key")
+            .content(TestUtil.convertObjectToJsonBytes(orderCoordinates)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Idempotency-Key already used with other coordinates"));
+    }
+}
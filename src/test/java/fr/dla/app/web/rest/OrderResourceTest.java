@@ -1,88 +1,158 @@
 package fr.dla.app.web.rest;
 
+import fr.dla.app.config.ApplicationProperties;
+import fr.dla.app.domain.GeoPoint;
 import fr.dla.app.domain.Order;
 import fr.dla.app.domain.OrderCoordinates;
 import fr.dla.app.domain.OrderStatusEnum;
+import fr.dla.app.service.IdempotencyStore;
+import fr.dla.app.service.OrderClaimService;
+import fr.dla.app.service.OrderIntakeService;
 import fr.dla.app.service.OrderService;
-import fr.dla.app.service.dto.OrderCoordinatesDTO;
-import fr.dla.app.service.mapper.OrderCoordinatesMapper;
 import fr.dla.app.web.rest.errors.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
-import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 @ExtendWith(MockitoExtension.class)
 class OrderResourceTest {
 
-    private static final String START_LATITUDE = "START_LATITUDE";
-    private static final String END_LATITUDE = "END_LATITUDE";
-    private static final String START_LONGITUDE = "START_LONGITUDE";
-    private static final String END_LONGITUDE = "END_LONGITUDE";
+    private static final GeoPoint ORIGIN = GeoPoint.of(48.858245, 2.294642);
+    private static final GeoPoint DESTINATION = GeoPoint.of(48.86848, 2.781909);
     private static final int ORDER_ID = 1;
     private static final int ORDER_DISTANCE = 10;
     private static final String NULL_BODY_ERROR_ERROR_KEY = "nullBodyError";
 
     private OrderCoordinates orderCoordinates = new OrderCoordinates();
-    private OrderCoordinatesDTO orderCoordinatesDTO = new OrderCoordinatesDTO();
 
-    @InjectMocks
+    private ApplicationProperties applicationProperties = new ApplicationProperties();
+
     private OrderResource orderResource;
 
     @Mock
     private OrderService orderService;
 
     @Mock
-    private OrderCoordinatesMapper orderCoordinatesMapper;
+    private OrderClaimService orderClaimService;
+
+    @Mock
+    private ObjectProvider<OrderIntakeService> orderIntakeService;
+
+    @Mock
+    private IdempotencyStore idempotencyStore;
+
+    @BeforeEach
+    void setup() {
+        orderResource = newOrderResource();
+    }
 
     @Test
     void createOrder_withFullValidParameters_shouldReturnOkResponse() {
         //inputs
-        orderCoordinates.setOrigin(Arrays.asList(START_LATITUDE, START_LONGITUDE));
-        orderCoordinates.setDestination(Arrays.asList(END_LATITUDE, END_LONGITUDE));
-
-        orderCoordinatesDTO.setOrigin(orderCoordinatesDTO.getOrigin());
-        orderCoordinatesDTO.setDestination(orderCoordinatesDTO.getDestination());
-        Mockito.when(orderCoordinatesMapper.toDto(orderCoordinates)).thenReturn(orderCoordinatesDTO);
+        orderCoordinates.setOrigin(ORIGIN);
+        orderCoordinates.setDestination(DESTINATION);
 
         Order order = new Order();
         order.setId(ORDER_ID);
         order.setDistance(ORDER_DISTANCE);
         order.setStatus(OrderStatusEnum.UNASSIGNED);
-        Mockito.when(orderService.createOrder(orderCoordinatesDTO.getOrigin(), orderCoordinatesDTO.getDestination())).thenReturn(order);
+        Mockito.when(orderService.createOrder(ORIGIN, DESTINATION)).thenReturn(order);
 
         //test
-        ResponseEntity<Order> orderResponseEntity = orderResource.createOrder(orderCoordinates);
+        CompletableFuture<ResponseEntity<Order>> response = orderResource.createOrder(null, orderCoordinates);
 
         //checks
+        assertThat(response).isCompleted();
+        ResponseEntity<Order> orderResponseEntity = response.join();
         assertThat(orderResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(orderResponseEntity.getBody()).isEqualToComparingFieldByField(order);
+        Mockito.verify(orderService, Mockito.never()).createOrderAsync(any(), any());
     }
 
     @Test
-    void createOrder_withServiceThrowAnException_shouldReturnTheException() {
+    void createOrder_withAsyncEnabled_shouldCompleteWithTheGoogleResponse() {
         //inputs
-        orderCoordinates.setOrigin(Arrays.asList(START_LATITUDE, START_LONGITUDE));
-        orderCoordinates.setDestination(Arrays.asList(END_LATITUDE, END_LONGITUDE));
+        applicationProperties.getGoogleMapsApi().getAsync().setEnabled(true);
+        orderResource = newOrderResource();
+        orderCoordinates.setOrigin(ORIGIN);
+        orderCoordinates.setDestination(DESTINATION);
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        CompletableFuture<Order> createdOrder = new CompletableFuture<>();
+        Mockito.when(orderService.createOrderAsync(ORIGIN, DESTINATION)).thenReturn(createdOrder);
 
-        orderCoordinatesDTO.setOrigin(orderCoordinatesDTO.getOrigin());
-        orderCoordinatesDTO.setDestination(orderCoordinatesDTO.getDestination());
-        Mockito.when(orderCoordinatesMapper.toDto(orderCoordinates)).thenReturn(orderCoordinatesDTO);
+        //test
+        CompletableFuture<ResponseEntity<Order>> response = orderResource.createOrder(null, orderCoordinates);
+
+        //checks
+        assertThat(response).isNotDone();
+        createdOrder.complete(order);
+        ResponseEntity<Order> orderResponseEntity = response.join();
+        assertThat(orderResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(orderResponseEntity.getBody()).isSameAs(order);
+        Mockito.verify(orderService, Mockito.never()).createOrder(any(), any());
+    }
+
+    @Test
+    void createOrder_withServiceThrowAnException_shouldReturnTheException() {
+        //inputs
+        orderCoordinates.setOrigin(ORIGIN);
+        orderCoordinates.setDestination(DESTINATION);
 
         //test
         try {
-            orderResource.createOrder(orderCoordinates);
+            orderResource.createOrder(null, orderCoordinates);
         } catch (BadRequestException ex) {
             //checks
             assertThat(ex.getErrorKey()).isEqualTo(NULL_BODY_ERROR_ERROR_KEY);
         }
     }
+
+    @Test
+    void acceptOrder_withOrderIntakeDisabled_shouldCreateOrderSynchronously() {
+        //inputs
+        orderCoordinates.setOrigin(ORIGIN);
+        orderCoordinates.setDestination(DESTINATION);
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(orderIntakeService.getIfAvailable()).thenReturn(null);
+        Mockito.when(orderService.createOrder(ORIGIN, DESTINATION)).thenReturn(order);
+
+        //test
+        ResponseEntity<Order> orderResponseEntity = orderResource.acceptOrder(null, orderCoordinates).join();
+
+        //checks
+        assertThat(orderResponseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(orderResponseEntity.getBody()).isSameAs(order);
+    }
+
+    @Test
+    void createOrder_withIdempotencyKey_shouldReturnOrderOfTheStore() {
+        //inputs
+        orderCoordinates.setOrigin(ORIGIN);
+        orderCoordinates.setDestination(DESTINATION);
+        Order order = new Order(ORDER_ID, ORDER_DISTANCE, OrderStatusEnum.UNASSIGNED);
+        Mockito.when(idempotencyStore.execute(eq("retry-key"), eq(ORIGIN + ";" + DESTINATION), any())).thenReturn(order);
+
+        //test
+        ResponseEntity<Order> orderResponseEntity = orderResource.createOrder("retry-key", orderCoordinates).join();
+
+        //checks
+        assertThat(orderResponseEntity.getBody()).isSameAs(order);
+        Mockito.verifyNoInteractions(orderService);
+    }
+
+    private OrderResource newOrderResource() {
+        return new OrderResource(orderService, orderClaimService, orderIntakeService, idempotencyStore, applicationProperties);
+    }
 }
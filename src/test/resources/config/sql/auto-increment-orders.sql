@@ -0,0 +1,10 @@
+-- Orders created before the id_generator table, with auto increment ids
+create table order_entity (
+    id integer auto_increment primary key,
+    distance integer,
+    status integer
+);
+
+insert into order_entity (id, distance, status) values (1, 10, 0);
+insert into order_entity (id, distance, status) values (2, 20, 1);
+insert into order_entity (id, distance, status) values (120, 30, 0);